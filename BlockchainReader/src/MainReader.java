@@ -1,4 +1,6 @@
 import block.Block;
+import block.ChainStatistics;
+import block.InclusionProof;
 import block.Note;
 import block.OwnerType;
 import network.ServerConnection;
@@ -9,6 +11,7 @@ import java.io.UnsupportedEncodingException;
 import java.security.*;
 import java.security.spec.InvalidKeySpecException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 
@@ -104,7 +107,7 @@ public class MainReader {
      * Gibt eine Nachricht zur Benutzung des Programms aus.
      */
     private void sendUsageMessage() {
-        System.err.println("Usage: java -jar this.jar ip:port  -S student|-h Hash [-o nr key | -std key | -sch key | -ez nr key]");
+        System.err.println("Usage: java -jar this.jar ip:port  -S student|-h Hash|-stats [-o nr key | -std key | -sch key | -ez nr key]");
     }
 
     /**
@@ -161,14 +164,20 @@ public class MainReader {
     }
 
     /**
-     * Empfängt den Block mit bestimmtem Hash.
+     * Empfängt den Block mit bestimmtem Hash. Ist der Hash kürzer als 32 Byte, wird er als Präfix verwendet.
      *
-     * @param hash Der gewünschte Hash.
+     * @param hash Der gewünschte Hash oder ein eindeutiger Präfix davon.
      * @return Der gewünschte Block oder {@code null}, sollte dieser nicht existieren.
      */
     private Block getBlockWithHash(byte[] hash) {
         try {
-            return new Block(connection.getBlockWithHash(hash));
+            if (hash.length == 32) return new Block(connection.getBlockWithHash(hash));
+            Block b = new Block(connection.getBlockWithHashPrefix(hash));
+            if (!Arrays.equals(Arrays.copyOf(b.getHash(), hash.length), hash)) {
+                System.err.println("Der Hash des empfangenen Blockes passt nicht zum Präfix!");
+                return null;
+            }
+            return b;
         } catch (NoSuchAlgorithmException e) {
             System.err.println("Das System scheint die benötigten kryptographischen Algorithmen nicht zu unterstützen!");
             return null;
@@ -218,6 +227,45 @@ public class MainReader {
         return true;
     }
 
+    /**
+     * Überprüft anhand eines Beweises des Servers, ob der Block Teil von dessen Blockchain ist.
+     * Das Ergebnis wird nur ausgegeben, da ältere Server keine Beweise unterstützen.
+     *
+     * @param b Der zu überprüfende Block.
+     */
+    private void verifyInclusion(Block b) {
+        try {
+            InclusionProof proof = connection.getProof(b.getHash());
+            if (proof != null && proof.verify(b.getHash()))
+                System.out.println("Der Block ist an Position " + proof.getIndex() + " von " + proof.getSize() + " in der Blockchain enthalten.");
+            else
+                System.err.println("Der Block konnte nicht als Teil der Blockchain bestätigt werden!");
+        } catch (NoSuchAlgorithmException e) {
+            System.err.println("Das System scheint die benötigten kryptographischen Algorithmen nicht zu unterstützen!");
+        } catch (IOException e) {
+            System.err.println("Fehler beim Empfangen des Beweises: " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Gibt die Statistik des Servers je Schule und Jahr aus.
+     */
+    private void printStatistics() {
+        ChainStatistics statistics;
+        try {
+            statistics = connection.getStatistics();
+        } catch (IOException e) {
+            System.err.println("Fehler beim Empfangen der Statistik: " + e.getLocalizedMessage());
+            return;
+        }
+        System.out.println("Blöcke: " + statistics.getHeight() + "\tGröße: " + statistics.getBytes() + " Bytes");
+        for (ChainStatistics.Entry entry : statistics.getEntries()) {
+            System.out.println("Schulnr: " + entry.getSchoolNumber() + "\tJahr: " + entry.getYear()
+                    + "\tBlöcke: " + entry.getBlocks() + "\tGröße: " + entry.getBytes() + " Bytes"
+                    + "\tLetzte Höhe: " + entry.getLastHeight());
+        }
+    }
+
     /**
      * Konvertiert einen String zu einem öffentlichen RSAkey.
      *
@@ -242,7 +290,10 @@ public class MainReader {
     private void run() {
         if (!getKey()) return;
         int parameterPos = findParameter("-h");
-        if (parameterPos != -1) {
+        if (findParameter("-stats") != -1) {
+            if (!establishConnection()) return;
+            printStatistics();
+        } else if (parameterPos != -1) {
             //load block via hash
             if (keyParam == null || parameterPos + 1 == args.length) {
                 sendUsageMessage();
@@ -264,6 +315,7 @@ public class MainReader {
                 connection.close();
                 return;
             }
+            verifyInclusion(b);
             printBlock(b);
         } else {
             //load block via student
@@ -303,7 +355,7 @@ public class MainReader {
      */
     private List<byte[]> loadBlocks(PublicKey k) {
         try {
-            return connection.getBlocksFromStudent(k);
+            return connection.getBlocksFromFingerprint(k);
         } catch (IOException e) {
             System.err.println("Fehler beim Empfangen der Blöcke: " + e.getLocalizedMessage());
             return null;
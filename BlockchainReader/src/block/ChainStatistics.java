@@ -0,0 +1,150 @@
+package block;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Vom Server erhaltene Statistik über dessen Blockchain, aufgeschlüsselt nach Schule und Jahr.
+ */
+public class ChainStatistics {
+    /**
+     * Die Anzahl der Blöcke.
+     */
+    private final int height;
+    /**
+     * Die Größe aller Blöcke zusammen.
+     */
+    private final long bytes;
+    /**
+     * Die Einträge, sortiert nach Schulnummer und Jahr.
+     */
+    private final List<Entry> entries;
+
+    /**
+     * Erzeugt einen neuen Stand.
+     *
+     * @param height  Die Anzahl der Blöcke.
+     * @param bytes   Die Größe aller Blöcke zusammen.
+     * @param entries Die Einträge, sortiert nach Schulnummer und Jahr.
+     */
+    public ChainStatistics(int height, long bytes, List<Entry> entries) {
+        this.height = height;
+        this.bytes = bytes;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Getter für die Anzahl der Blöcke.
+     *
+     * @return Die Anzahl der Blöcke in der Blockchain.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Getter für die Größe der Blockchain.
+     *
+     * @return Die Größe aller Blöcke zusammen in Bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Getter für die Einträge.
+     *
+     * @return Je Kombination aus Schulnummer und Jahr ein Eintrag, sortiert nach Schulnummer und Jahr.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Die Statistik der Blöcke einer Schule aus einem Jahr.
+     */
+    public static class Entry {
+        /**
+         * Die Schulnummer.
+         */
+        private final int schoolNumber;
+        /**
+         * Das Jahr.
+         */
+        private final short year;
+        /**
+         * Die Anzahl der Blöcke.
+         */
+        private final int blocks;
+        /**
+         * Die Größe der Blöcke zusammen.
+         */
+        private final long bytes;
+        /**
+         * Die Höhe des zuletzt angehängten Blockes.
+         */
+        private final int lastHeight;
+
+        /**
+         * Erzeugt einen neuen Eintrag.
+         *
+         * @param schoolNumber Die Schulnummer.
+         * @param year         Das Jahr.
+         * @param blocks       Die Anzahl der Blöcke.
+         * @param bytes        Die Größe der Blöcke zusammen.
+         * @param lastHeight   Die Höhe des zuletzt angehängten Blockes.
+         */
+        public Entry(int schoolNumber, short year, int blocks, long bytes, int lastHeight) {
+            this.schoolNumber = schoolNumber;
+            this.year = year;
+            this.blocks = blocks;
+            this.bytes = bytes;
+            this.lastHeight = lastHeight;
+        }
+
+        /**
+         * Getter für die Schulnummer.
+         *
+         * @return Die Schulnummer.
+         */
+        public int getSchoolNumber() {
+            return schoolNumber;
+        }
+
+        /**
+         * Getter für das Jahr.
+         *
+         * @return Das Jahr.
+         */
+        public short getYear() {
+            return year;
+        }
+
+        /**
+         * Getter für die Anzahl der Blöcke.
+         *
+         * @return Die Anzahl der Blöcke dieser Schule aus diesem Jahr.
+         */
+        public int getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * Getter für die Größe der Blöcke.
+         *
+         * @return Die Größe der Blöcke zusammen in Bytes.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Getter für die Höhe des zuletzt angehängten Blockes.
+         *
+         * @return Die Höhe, beginnend bei {@code 0}.
+         */
+        public int getLastHeight() {
+            return lastHeight;
+        }
+    }
+}
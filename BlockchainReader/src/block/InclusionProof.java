@@ -0,0 +1,126 @@
+package block;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vom Server erhaltener Beweis, dass ein Block in dessen Blockchain enthalten ist.
+ * <p>
+ * Der Server bildet einen Merkle-Baum nach RFC 6962 über alle Blockhashes: Die Blätter sind die Blockhashes selbst,
+ * ein innerer Knoten ist {@code Sha-256(0x01 || links || rechts)}. Aus dem Blockhash und dem Pfad lässt sich die
+ * Wurzel mit wenigen Hashes lokal berechnen, ohne weitere Blöcke herunterzuladen.
+ */
+public class InclusionProof {
+    /**
+     * Wird den Kindern eines inneren Knotens beim Hashen vorangestellt.
+     */
+    private static final byte NODE_PREFIX = 1;
+    /**
+     * Die Position des Blockes.
+     */
+    private final int index;
+    /**
+     * Die Anzahl der Blöcke, über die der Baum gebildet wurde.
+     */
+    private final int size;
+    /**
+     * Die Wurzel des Baumes laut Server.
+     */
+    private final byte[] root;
+    /**
+     * Die Hashes der Geschwister auf dem Weg vom Block zur Wurzel, beginnend beim Block.
+     */
+    private final List<byte[]> path;
+
+    /**
+     * Erzeugt einen neuen Beweis.
+     *
+     * @param index Die Position des Blockes.
+     * @param size  Die Anzahl der Blöcke, über die der Baum gebildet wurde.
+     * @param root  Die Wurzel des Baumes laut Server.
+     * @param path  Die Hashes der Geschwister auf dem Weg vom Block zur Wurzel, beginnend beim Block.
+     */
+    public InclusionProof(int index, int size, byte[] root, List<byte[]> path) {
+        this.index = index;
+        this.size = size;
+        this.root = root;
+        this.path = path;
+    }
+
+    /**
+     * Überprüft, ob ein Block laut diesem Beweis Teil der Blockchain mit der angegebenen Wurzel ist
+     * (Algorithmus aus RFC 9162, Abschnitt 2.1.3.2).
+     *
+     * @param blockHash Der selbst berechnete Hash des Blockes.
+     * @return Gibt {@code true} zurück, wenn der Pfad vom Blockhash zur Wurzel führt.
+     * @throws NoSuchAlgorithmException sollte Sha-256 nicht verfügbar sein.
+     */
+    public boolean verify(byte[] blockHash) throws NoSuchAlgorithmException {
+        if (index < 0 || index >= size) return false;
+        MessageDigest md = MessageDigest.getInstance("Sha-256");
+        long fn = index;
+        long sn = size - 1;
+        byte[] r = blockHash;
+        for (byte[] p : path) {
+            if (sn == 0) return false;
+            if ((fn & 1) == 1 || fn == sn) {
+                r = hashNodes(md, p, r);
+                if ((fn & 1) == 0) {
+                    while ((fn & 1) == 0 && fn != 0) {
+                        fn >>= 1;
+                        sn >>= 1;
+                    }
+                }
+            } else {
+                r = hashNodes(md, r, p);
+            }
+            fn >>= 1;
+            sn >>= 1;
+        }
+        return sn == 0 && Arrays.equals(r, root);
+    }
+
+    /**
+     * Berechnet den Hash eines inneren Knotens.
+     *
+     * @param md    Der Digest.
+     * @param left  Der linke Kindknoten.
+     * @param right Der rechte Kindknoten.
+     * @return {@code Sha-256(0x01 || links || rechts)}.
+     */
+    private static byte[] hashNodes(MessageDigest md, byte[] left, byte[] right) {
+        md.update(NODE_PREFIX);
+        md.update(left);
+        md.update(right);
+        return md.digest();
+    }
+
+    /**
+     * Getter für die Position des Blockes.
+     *
+     * @return Die Position, beginnend bei {@code 0}.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Getter für die Anzahl der Blöcke.
+     *
+     * @return Die Anzahl der Blöcke, über die der Baum gebildet wurde.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Getter für die Wurzel.
+     *
+     * @return Die Wurzel des Baumes laut Server.
+     */
+    public byte[] getRoot() {
+        return root;
+    }
+}
@@ -1,5 +1,7 @@
 package network;
 
+import block.ChainStatistics;
+import block.InclusionProof;
 import utils.CryptoUtils;
 import utils.ProtocolCommands;
 
@@ -70,6 +72,138 @@ public class ServerConnection implements AutoCloseable {
         return null;
     }
 
+    /**
+     * Fragt den Block an, dessen Hash mit einem bestimmten Präfix beginnt.
+     * Ist der Präfix mehrdeutig oder existiert kein solcher Block, antwortet der Server mit einer Fehlermeldung.
+     *
+     * @param prefix Der Präfix des Hashes, zwischen 1 und 32 Byte lang.
+     * @return Die Byterepräsention des Blockes.
+     * @throws IOException              sollte es irgendwelche Fehler bei der Kommunikation geben.
+     * @throws IllegalArgumentException sollte der Präfix leer oder länger als 256 Bit sein.
+     */
+    public byte[] getBlockWithHashPrefix(byte[] prefix) throws IOException, IllegalArgumentException {
+        if (prefix.length == 0 || prefix.length > 32)
+            throw new IllegalArgumentException("Der Präfix muss zwischen 1 und 32 Byte lang sein!");
+        out.writeByte(ProtocolCommands.PGETBLOCK);
+        out.writeByte(prefix.length);
+        out.write(prefix);
+        out.flush();
+        switch (in.readByte()) {
+            case ProtocolCommands.ERROR:
+                handleServerError();
+                break;
+            case ProtocolCommands.BLOCK:
+                return receiveBlock();
+            default:
+                throw new IOException("Unerwarteter Befehl!");
+        }
+        return null;
+    }
+
+    /**
+     * Fragt die Anzahl der Blöcke in der Blockchain des Servers ab.
+     *
+     * @return Die Anzahl der Blöcke.
+     * @throws IOException sollte es irgendwelche Fehler bei der Kommunikation geben.
+     */
+    public int getHeight() throws IOException {
+        out.writeByte(ProtocolCommands.LASTHASH);
+        out.flush();
+        switch (in.readByte()) {
+            case ProtocolCommands.ERROR:
+                handleServerError();
+                break;
+            case ProtocolCommands.HASH:
+                readBytes(32);
+                return in.readInt();
+            default:
+                throw new IOException("Unerwarteter Befehl!");
+        }
+        return -1;
+    }
+
+    /**
+     * Empfängt aufeinanderfolgende Blöcke. Der Server beendet die Verbindung danach.
+     *
+     * @param from  Die Höhe des ersten Blockes, beginnend bei {@code 0}.
+     * @param count Die Anzahl der Blöcke. Am Ende der Blockchain werden entsprechend weniger Blöcke gesendet.
+     * @return Die Blöcke in der Reihenfolge der Blockchain.
+     * @throws IOException sollte es irgendwelche Fehler bei der Kommunikation geben.
+     */
+    public List<byte[]> getRange(int from, int count) throws IOException {
+        out.writeByte(ProtocolCommands.GETRANGE);
+        out.writeInt(from);
+        out.writeInt(count);
+        out.flush();
+        return receiveBlocks();
+    }
+
+    /**
+     * Fragt einen Beweis an, dass der Block mit einem bestimmten Hash in der Blockchain des Servers enthalten ist.
+     *
+     * @param hash Der Hash des Blockes.
+     * @return Der Beweis, der mit {@link InclusionProof#verify(byte[])} überprüft werden kann.
+     * @throws IOException              sollte es irgendwelche Fehler bei der Kommunikation geben.
+     * @throws IllegalArgumentException sollte der Hash nicht 256 Bit lang sein.
+     */
+    public InclusionProof getProof(byte[] hash) throws IOException, IllegalArgumentException {
+        if (hash.length != 32) throw new IllegalArgumentException("Der Hash muss 32 Byte lang sein!");
+        out.writeByte(ProtocolCommands.GETPROOF);
+        out.write(hash);
+        out.flush();
+        switch (in.readByte()) {
+            case ProtocolCommands.ERROR:
+                handleServerError();
+                break;
+            case ProtocolCommands.PROOF:
+                int index = in.readInt();
+                int size = in.readInt();
+                byte[] root = readBytes(32);
+                int length = in.readUnsignedByte();
+                List<byte[]> path = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    path.add(readBytes(32));
+                }
+                return new InclusionProof(index, size, root, path);
+            default:
+                throw new IOException("Unerwarteter Befehl!");
+        }
+        return null;
+    }
+
+    /**
+     * Fragt die Statistik des Servers je Schule und Jahr ab, ohne Blöcke zu übertragen.
+     *
+     * @return Die Statistik.
+     * @throws IOException sollte es irgendwelche Fehler bei der Kommunikation geben.
+     */
+    public ChainStatistics getStatistics() throws IOException {
+        out.writeByte(ProtocolCommands.STATS);
+        out.flush();
+        switch (in.readByte()) {
+            case ProtocolCommands.ERROR:
+                handleServerError();
+                break;
+            case ProtocolCommands.STATS:
+                int height = in.readInt();
+                long bytes = in.readLong();
+                int count = in.readInt();
+                List<ChainStatistics.Entry> entries = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int schoolNumber = in.readInt();
+                    short year = in.readShort();
+                    int blocks = in.readInt();
+                    long entryBytes = in.readLong();
+                    int lastHeight = in.readInt();
+                    entries.add(new ChainStatistics.Entry(schoolNumber, year, blocks, entryBytes, lastHeight));
+                }
+                return new ChainStatistics(height, bytes, entries);
+            default:
+                throw new IOException("Unerwarteter Befehl!");
+        }
+        return null;
+    }
+
     /**
      * Empfängt den Block.
      *
@@ -96,6 +230,92 @@ public class ServerConnection implements AutoCloseable {
         out.writeInt(keyData.length);
         out.write(keyData);
         out.flush();
+        return receiveBlocks();
+    }
+
+    /**
+     * Empfängt alle Blöcke von einem Schüler. Statt des Schlüssels wird nur dessen Sha-256 Hash übertragen.
+     *
+     * @param key Der Schüler.
+     * @return Alle mit diesem Schüler verbundene Blöcke.
+     * @throws IOException              sollte es irgendwelche Fehler bei der Kommunikation geben.
+     * @throws InvalidKeySpecException  sollte der übergebene Key fehlerhaft sein.
+     * @throws NoSuchAlgorithmException sollte ein benötigter Algorithmus nicht gefunden werden.
+     */
+    public List<byte[]> getBlocksFromFingerprint(PublicKey key) throws IOException, InvalidKeySpecException, NoSuchAlgorithmException {
+        out.writeByte(ProtocolCommands.FGETBLOCK);
+        out.write(CryptoUtils.calculateSha256(CryptoUtils.encodeRSAKey(key)));
+        out.flush();
+        return receiveBlocks();
+    }
+
+    /**
+     * Empfängt alle Blöcke einer Schule aus einem Bereich von Jahren.
+     *
+     * @param schoolNumber Die Schulnummer.
+     * @param fromYear     Das erste Jahr (inklusive).
+     * @param toYear       Das letzte Jahr (inklusive).
+     * @return Alle passenden Blöcke in der Reihenfolge der Blockchain.
+     * @throws IOException sollte es irgendwelche Fehler bei der Kommunikation geben.
+     */
+    public List<byte[]> getBlocksFromSchool(int schoolNumber, short fromYear, short toYear) throws IOException {
+        writeSchoolRange(ProtocolCommands.RGETBLOCK, schoolNumber, fromYear, toYear);
+        return receiveBlocks();
+    }
+
+    /**
+     * Empfängt die Hashes aller Blöcke einer Schule aus einem Bereich von Jahren.
+     * Die Blöcke selbst können danach einzeln mit {@link #getBlockWithHash(byte[])} angefragt werden.
+     *
+     * @param schoolNumber Die Schulnummer.
+     * @param fromYear     Das erste Jahr (inklusive).
+     * @param toYear       Das letzte Jahr (inklusive).
+     * @return Die Hashes aller passenden Blöcke in der Reihenfolge der Blockchain.
+     * @throws IOException sollte es irgendwelche Fehler bei der Kommunikation geben.
+     */
+    public List<byte[]> getHashesFromSchool(int schoolNumber, short fromYear, short toYear) throws IOException {
+        writeSchoolRange(ProtocolCommands.RGETHASH, schoolNumber, fromYear, toYear);
+        ArrayList<byte[]> hashes = new ArrayList<>();
+        getHashesLoop:
+        while (true)
+            switch (in.readByte()) {
+                case ProtocolCommands.HASH:
+                    hashes.add(readBytes(32));
+                    break;
+                case ProtocolCommands.ERROR:
+                    handleServerError();
+                    break;
+                case ProtocolCommands.CLOSE:
+                default:
+                    break getHashesLoop;
+            }
+        return hashes;
+    }
+
+    /**
+     * Sendet eine Anfrage nach den Blöcken einer Schule aus einem Bereich von Jahren.
+     *
+     * @param command      Der Befehl.
+     * @param schoolNumber Die Schulnummer.
+     * @param fromYear     Das erste Jahr (inklusive).
+     * @param toYear       Das letzte Jahr (inklusive).
+     * @throws IOException sollte es irgendwelche Fehler bei der Kommunikation geben.
+     */
+    private void writeSchoolRange(byte command, int schoolNumber, short fromYear, short toYear) throws IOException {
+        out.writeByte(command);
+        out.writeInt(schoolNumber);
+        out.writeShort(fromYear);
+        out.writeShort(toYear);
+        out.flush();
+    }
+
+    /**
+     * Empfängt Blöcke, bis der Server die Übertragung beendet.
+     *
+     * @return Die empfangenen Blöcke.
+     * @throws IOException sollte es irgendwelche Fehler bei der Kommunikation geben.
+     */
+    private List<byte[]> receiveBlocks() throws IOException {
         ArrayList<byte[]> blocks = new ArrayList<>();
         getBlocksLoop:
         while (true)
@@ -103,6 +323,9 @@ public class ServerConnection implements AutoCloseable {
                 case ProtocolCommands.BLOCK:
                     blocks.add(receiveBlock());
                     break;
+                case ProtocolCommands.ERROR:
+                    handleServerError();
+                    break;
                 case ProtocolCommands.CLOSE:
                 default:
                     break getBlocksLoop;
@@ -24,6 +24,10 @@ public class BlockchainConnection implements AutoCloseable {
      * Der OutputStream vom Socket.
      */
     private DataOutputStream out;
+    /**
+     * Die Anzahl der Blöcke, die der Server bei der letzten Abfrage des letzten Hashes gemeldet hat.
+     */
+    private int lastHeight = -1;
 
     /**
      * Stellt die Verbindung zum Server her.
@@ -72,13 +76,25 @@ public class BlockchainConnection implements AutoCloseable {
     }
 
     /**
-     * Empfängt den letzten Hash der Blockchain.
+     * Empfängt den letzten Hash der Blockchain und die Anzahl der Blöcke.
      *
      * @return Der letzte Hash.
      * @throws IOException sollte ein Fehler bei der Kommunikation auftreten.
      */
     private byte[] recieveHash() throws IOException {
-        return readBytes(32);
+        byte[] hash = readBytes(32);
+        lastHeight = in.readInt();
+        return hash;
+    }
+
+    /**
+     * Getter für die Anzahl der Blöcke.
+     *
+     * @return Die Anzahl der Blöcke, die der Server bei der letzten Abfrage von {@link #getLastHash()} gemeldet hat,
+     * oder {@code -1}, sollte noch nicht abgefragt worden sein.
+     */
+    public int getLastHeight() {
+        return lastHeight;
     }
 
     /**
@@ -0,0 +1,181 @@
+import data.AuditReport;
+import data.BenchmarkReport;
+import data.ChainAuditor;
+import data.ChainConverter;
+import data.ChainExporter;
+import data.ExportFormat;
+import data.FsyncPolicy;
+import data.StoreBenchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+public class ChainTool {
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            printUsage();
+            return;
+        }
+        switch (args[0]) {
+            case "convert":
+                convert(args);
+                break;
+            case "export":
+                export(args);
+                break;
+            case "audit":
+            case "reindex":
+            case "compact":
+                audit(args);
+                break;
+            case "bench":
+                bench(args);
+                break;
+            default:
+                printUsage();
+        }
+    }
+
+    /**
+     * Schreibt eine Blockchain in das aktuelle Dateiformat um.
+     *
+     * @param args Die Parameter {@code convert source target [--segment-size bytes]}.
+     * @throws IOException sollte die Blockchain nicht umgewandelt werden können.
+     */
+    private static void convert(String[] args) throws IOException {
+        if (args.length < 3) {
+            printUsage();
+            return;
+        }
+        long segmentSize = 0;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--segment-size") && i + 1 < args.length) segmentSize = Long.parseLong(args[++i]);
+        }
+        long start = System.currentTimeMillis();
+        int count = ChainConverter.convert(new File(args[1]), new File(args[2]), segmentSize);
+        System.out.println(count + " Blöcke in " + (System.currentTimeMillis() - start) + " ms umgewandelt.");
+    }
+
+    /**
+     * Schreibt die Metadaten aller Blöcke einer Blockchain für Auswertungen in eine Datei.
+     *
+     * @param args Die Parameter {@code export source target [--csv]}.
+     * @throws IOException sollte die Blockchain nicht exportiert werden können.
+     */
+    private static void export(String[] args) throws IOException {
+        if (args.length < 3) {
+            printUsage();
+            return;
+        }
+        ExportFormat format = ExportFormat.COLUMNAR;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--csv")) format = ExportFormat.CSV;
+        }
+        long start = System.currentTimeMillis();
+        int count = ChainExporter.export(new File(args[1]), new File(args[2]), format);
+        System.out.println(count + " Blöcke in " + (System.currentTimeMillis() - start) + " ms exportiert.");
+    }
+
+    /**
+     * Überprüft eine Blockchain und schreibt je nach Befehl Indexdatei und Checkpoint neu oder kopiert die korrekten
+     * Blöcke bis zum ersten Fehler in eine neue Blockchain. Bei einem Fehler wird das Programm mit Status {@code 1} beendet.
+     *
+     * @param args Die Parameter {@code audit source [--threads n]}, {@code reindex source [--threads n]} oder
+     *             {@code compact source target [--segment-size bytes] [--threads n]}.
+     * @throws IOException sollte die Blockchain nicht überprüft werden können.
+     */
+    private static void audit(String[] args) throws IOException {
+        boolean compact = args[0].equals("compact");
+        if (args.length < (compact ? 3 : 2)) {
+            printUsage();
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        long segmentSize = 0;
+        for (int i = compact ? 3 : 2; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--segment-size") && i + 1 < args.length) segmentSize = Long.parseLong(args[++i]);
+        }
+        ChainAuditor auditor = new ChainAuditor(new File(args[1]), threads);
+        if (compact) auditor.setCopy(new File(args[2]), segmentSize);
+        auditor.setReindex(args[0].equals("reindex"));
+        AuditReport report = auditor.run();
+        long millis = report.getMillis();
+        System.out.println(report.getValidBlocks() + " Blöcke (" + report.getBytes() / 1024 + " KiB) in " + millis
+                + " ms mit " + threads + " Threads überprüft (" + report.getValidBlocks() * 1000L / millis + " Blöcke/s, "
+                + report.getBytes() * 1000L / millis / 1024 + " KiB/s).");
+        if (report.isValid()) {
+            System.out.println("Die Blockchain ist korrekt.");
+            return;
+        }
+        System.err.println("Erster fehlerhafter Block auf Höhe " + report.getValidBlocks() + " (Segment "
+                + report.getSegment() + (report.getOffset() == -1 ? "" : ", Position " + report.getOffset()) + "): "
+                + report.getReason());
+        if (compact)
+            System.err.println("Die Kopie enthält die " + report.getValidBlocks() + " korrekten Blöcke davor.");
+        else if (args[0].equals("reindex"))
+            System.err.println("Indexdatei und Checkpoint wurden nicht neu geschrieben.");
+        System.exit(1);
+    }
+
+    /**
+     * Reicht die Blöcke einer Blockchain für jede Art der Speicherung in eine neue Blockchain ein, überprüft, ob sich
+     * alle gleich verhalten, und gibt die Dauer jedes Schrittes aus. Bei einem Fehler wird das Programm mit Status
+     * {@code 1} beendet.
+     *
+     * @param args Die Parameter {@code bench source directory [--blocks n] [--segment-size bytes] [--fsync policy]}.
+     * @throws IOException sollte die Quelle nicht gelesen oder das Verzeichnis nicht verwendet werden können.
+     */
+    private static void bench(String[] args) throws IOException {
+        if (args.length < 3) {
+            printUsage();
+            return;
+        }
+        StoreBenchmark benchmark = new StoreBenchmark(new File(args[1]), new File(args[2]));
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--blocks") && i + 1 < args.length) {
+                benchmark.setLimit(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--segment-size") && i + 1 < args.length) {
+                benchmark.setSegmentSize(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--fsync") && i + 1 < args.length) {
+                try {
+                    benchmark.setFsyncPolicy(FsyncPolicy.valueOf(args[++i].toUpperCase().replace('-', '_')));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Unknown fsync policy: " + args[i]);
+                    return;
+                }
+            }
+        }
+        boolean valid = true;
+        for (BenchmarkReport report : benchmark.run()) {
+            System.out.println(report.getMode() + " (" + report.getBlocks() + " Blöcke):");
+            for (BenchmarkReport.Phase phase : BenchmarkReport.Phase.values()) {
+                if (!report.hasRun(phase)) continue;
+                long millis = report.getMillis(phase);
+                System.out.println("  " + phase.getDescription() + ": " + millis + " ms ("
+                        + report.getBlocks() * 1000L / millis + " Blöcke/s)");
+            }
+            if (!report.isValid()) {
+                System.err.println("  Fehler beim Schritt \"" + report.getFailedPhase().getDescription() + "\": "
+                        + report.getReason());
+                valid = false;
+            }
+        }
+        if (valid) {
+            System.out.println("Alle Arten der Speicherung verhalten sich gleich.");
+            return;
+        }
+        System.exit(1);
+    }
+
+    /**
+     * Gibt die möglichen Befehle aus.
+     */
+    private static void printUsage() {
+        System.err.println("Usage: java -cp this.jar ChainTool convert source target [--segment-size bytes]");
+        System.err.println("       java -cp this.jar ChainTool export source target [--csv]");
+        System.err.println("       java -cp this.jar ChainTool audit|reindex source [--threads n]");
+        System.err.println("       java -cp this.jar ChainTool compact source target [--segment-size bytes] [--threads n]");
+        System.err.println("       java -cp this.jar ChainTool bench source directory [--blocks n] [--segment-size bytes] [--fsync per-block|group|interval|none]");
+    }
+}
@@ -1,22 +1,131 @@
+import data.BlockCache;
 import data.Blockchain;
+import data.ChainConfig;
+import data.FsyncPolicy;
+import data.StorageMode;
 import network.ConnectionHandler;
+import network.ConnectionMode;
+import network.VirtualThreadHandler;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class ServerMain {
+    /**
+     * Der Abstand, in dem die Zähler des Zwischenspeichers ausgegeben werden, in Sekunden.
+     */
+    private static final int CACHE_REPORT_INTERVAL = 60;
+
     public static void main(String[] args) throws IOException {
         if (args.length == 0) {
-            System.err.println("Usage: java -jar this.jar port [file]");
+            System.err.println("Usage: java -jar this.jar port [file|directory] [--store memory|file|mmap] [--mmap] [--segment-size bytes] [--full-verify] [--verify-threads n] [--lazy-verify] [--cache-size bytes] [--compress-cold keep] [--fsync per-block|group|interval|none] [--fsync-interval ms] [--bloom-fpp p] [--connections selector|virtual]");
             return;
         }
-        Blockchain c;
-        if (args.length == 2) {
-            c = new Blockchain(new File(args[1]));
-        } else {
-            c = new Blockchain();
+        File file = null;
+        ChainConfig config = new ChainConfig();
+        ConnectionMode connections = ConnectionMode.SELECTOR;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--mmap")) {
+                config.setMode(StorageMode.MAPPED);
+            } else if (args[i].equals("--store") && i + 1 < args.length) {
+                switch (args[++i]) {
+                    case "memory":
+                        config.setMode(StorageMode.MEMORY);
+                        break;
+                    case "file":
+                        config.setMode(StorageMode.HEAP);
+                        break;
+                    case "mmap":
+                        config.setMode(StorageMode.MAPPED);
+                        break;
+                    default:
+                        System.err.println("Unknown store: " + args[i]);
+                        return;
+                }
+            } else if (args[i].equals("--segment-size") && i + 1 < args.length) {
+                config.setSegmentSize(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--full-verify")) {
+                config.setFullVerify(true);
+            } else if (args[i].equals("--verify-threads") && i + 1 < args.length) {
+                config.setVerifyThreads(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--lazy-verify")) {
+                config.setLazyVerify(true);
+            } else if (args[i].equals("--cache-size") && i + 1 < args.length) {
+                config.setBlockCacheSize(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--compress-cold") && i + 1 < args.length) {
+                config.setUncompressedSegments(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--fsync") && i + 1 < args.length) {
+                try {
+                    config.setFsyncPolicy(FsyncPolicy.valueOf(args[++i].toUpperCase().replace('-', '_')));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Unknown fsync policy: " + args[i]);
+                    return;
+                }
+            } else if (args[i].equals("--fsync-interval") && i + 1 < args.length) {
+                config.setFsyncInterval(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--bloom-fpp") && i + 1 < args.length) {
+                config.setStudentFilterFpp(Double.parseDouble(args[++i]));
+            } else if (args[i].equals("--connections") && i + 1 < args.length) {
+                switch (args[++i]) {
+                    case "selector":
+                        connections = ConnectionMode.SELECTOR;
+                        break;
+                    case "virtual":
+                        connections = ConnectionMode.VIRTUAL_THREADS;
+                        break;
+                    default:
+                        System.err.println("Unknown connection mode: " + args[i]);
+                        return;
+                }
+            } else {
+                file = new File(args[i]);
+            }
+        }
+        if (file != null && config.getMode() == StorageMode.MEMORY) {
+            //der Speicher im Heap beginnt immer leer, eine vorhandene Blockchain würde stillschweigend ignoriert
+            System.err.println("The memory store cannot load a chain: " + file);
+            return;
         }
-        ConnectionHandler con = new ConnectionHandler(Integer.parseInt(args[0]), c);
+        if (file == null) file = new File("default.chain");
+        if (config.getSegmentSize() == 0 && file.isDirectory()) config.setSegmentSize(Blockchain.DEFAULT_SEGMENT_SIZE);
+        Blockchain c = new Blockchain(file, config);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println(c.getBlockCache());
+            try {
+                c.close();
+            } catch (IOException e) {
+                System.err.println("Fehler beim Schließen der Blockchain: " + e.getLocalizedMessage());
+            }
+        }));
+        int port = Integer.parseInt(args[0]);
+        if (connections == ConnectionMode.VIRTUAL_THREADS)
+            new VirtualThreadHandler(port, c);
+        else
+            new ConnectionHandler(port, c);
         System.out.println("Server successfully started!");
+        reportCache(c.getBlockCache());
+    }
+
+    /**
+     * Gibt die Zähler des Zwischenspeichers regelmäßig aus, sofern seit der letzten Ausgabe Blöcke angefragt wurden.
+     *
+     * @param cache Der Zwischenspeicher der Blockchain.
+     */
+    private static void reportCache(BlockCache cache) {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread t = new Thread(task, "cache-report");
+            t.setDaemon(true);
+            return t;
+        });
+        long[] reported = {0};
+        reporter.scheduleAtFixedRate(() -> {
+            long requests = cache.getHits() + cache.getMisses();
+            if (requests == reported[0]) return;
+            reported[0] = requests;
+            System.out.println(cache);
+        }, CACHE_REPORT_INTERVAL, CACHE_REPORT_INTERVAL, TimeUnit.SECONDS);
     }
 }
@@ -0,0 +1,113 @@
+package data;
+
+/**
+ * Das Ergebnis einer Überprüfung durch {@link ChainAuditor}.
+ */
+public class AuditReport {
+    /**
+     * Die Anzahl der korrekten Blöcke vor dem ersten Fehler.
+     */
+    private final int validBlocks;
+    /**
+     * Die Größe der korrekten Blöcke zusammen.
+     */
+    private final long bytes;
+    /**
+     * Die Dauer der Überprüfung in Nanosekunden.
+     */
+    private final long nanos;
+    /**
+     * Die Nummer des Segmentes, in dem der Fehler liegt.
+     */
+    private final int segment;
+    /**
+     * Die Position des fehlerhaften Datensatzes im Segment.
+     */
+    private final long offset;
+    /**
+     * Die Beschreibung des Fehlers.
+     */
+    private final String reason;
+
+    /**
+     * Erzeugt ein neues Ergebnis.
+     *
+     * @param validBlocks Die Anzahl der korrekten Blöcke vor dem ersten Fehler.
+     * @param bytes       Die Größe der korrekten Blöcke zusammen.
+     * @param nanos       Die Dauer der Überprüfung in Nanosekunden.
+     * @param segment     Die Nummer des Segmentes, in dem der Fehler liegt, oder {@code -1}.
+     * @param offset      Die Position des fehlerhaften Datensatzes oder {@code -1}, sollte diese nicht bekannt sein.
+     * @param reason      Die Beschreibung des Fehlers oder {@code null}, sollten alle Blöcke korrekt sein.
+     */
+    AuditReport(int validBlocks, long bytes, long nanos, int segment, long offset, String reason) {
+        this.validBlocks = validBlocks;
+        this.bytes = bytes;
+        this.nanos = nanos;
+        this.segment = segment;
+        this.offset = offset;
+        this.reason = reason;
+    }
+
+    /**
+     * Gibt zurück, ob alle Blöcke korrekt sind.
+     *
+     * @return Gibt {@code true} zurück, wenn kein Fehler gefunden wurde.
+     */
+    public boolean isValid() {
+        return reason == null;
+    }
+
+    /**
+     * Getter für die Anzahl der korrekten Blöcke. Diese entspricht der Höhe des ersten fehlerhaften Blockes.
+     *
+     * @return Die Anzahl der Blöcke vor dem ersten Fehler.
+     */
+    public int getValidBlocks() {
+        return validBlocks;
+    }
+
+    /**
+     * Getter für die Größe der korrekten Blöcke.
+     *
+     * @return Die Größe in Bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Getter für die Dauer der Überprüfung.
+     *
+     * @return Die Dauer in Millisekunden, mindestens {@code 1}.
+     */
+    public long getMillis() {
+        return Math.max(1, nanos / 1_000_000);
+    }
+
+    /**
+     * Getter für das Segment des Fehlers.
+     *
+     * @return Die Nummer des Segmentes oder {@code -1}, sollten alle Blöcke korrekt sein.
+     */
+    public int getSegment() {
+        return segment;
+    }
+
+    /**
+     * Getter für die Position des Fehlers.
+     *
+     * @return Die Position des fehlerhaften Datensatzes im Segment oder {@code -1}, sollte diese nicht bekannt sein.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Getter für die Beschreibung des Fehlers.
+     *
+     * @return Die Beschreibung oder {@code null}, sollten alle Blöcke korrekt sein.
+     */
+    public String getReason() {
+        return reason;
+    }
+}
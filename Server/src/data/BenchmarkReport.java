@@ -0,0 +1,184 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Das Ergebnis von {@link StoreBenchmark} für eine Art der Speicherung.
+ */
+public class BenchmarkReport {
+    /**
+     * Die Schritte, die für jede Art der Speicherung ausgeführt und gemessen werden.
+     */
+    public enum Phase {
+        /**
+         * Alle Blöcke werden nacheinander eingereicht.
+         */
+        APPEND("Einreichen"),
+        /**
+         * Alle Blöcke werden nach ihrer Höhe gelesen.
+         */
+        HEIGHT("Lesen nach Höhe"),
+        /**
+         * Alle Blöcke werden nach ihrem Hash gelesen.
+         */
+        HASH("Lesen nach Hash"),
+        /**
+         * Die Blockchain wird geschlossen und mit der Indexdatei wieder geöffnet.
+         */
+        REOPEN("Neustart mit Index"),
+        /**
+         * Alle Blöcke werden nach dem Neustart erneut nach ihrer Höhe gelesen, diesmal ohne Zwischenspeicher.
+         */
+        COLD("Lesen nach Neustart"),
+        /**
+         * Die Blockchain wird ohne Indexdatei wieder geöffnet und dabei vollständig gelesen.
+         */
+        REBUILD("Neustart ohne Index");
+
+        /**
+         * Die Bezeichnung für die Ausgabe.
+         */
+        private final String description;
+
+        /**
+         * Erzeugt einen neuen Schritt.
+         *
+         * @param description Die Bezeichnung für die Ausgabe.
+         */
+        Phase(String description) {
+            this.description = description;
+        }
+
+        /**
+         * Getter für die Bezeichnung.
+         *
+         * @return Die Bezeichnung für die Ausgabe.
+         */
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Die Art der Speicherung.
+     */
+    private final StorageMode mode;
+    /**
+     * Die Anzahl der Blöcke.
+     */
+    private final int blocks;
+    /**
+     * Die Dauer jedes Schrittes in Nanosekunden oder {@code -1}, sollte er nicht ausgeführt worden sein.
+     */
+    private final long[] nanos = new long[Phase.values().length];
+    /**
+     * Der Schritt, in dem der Fehler aufgetreten ist.
+     */
+    private Phase failedPhase;
+    /**
+     * Die Beschreibung des Fehlers.
+     */
+    private String reason;
+
+    /**
+     * Erzeugt ein neues Ergebnis, in dem noch kein Schritt ausgeführt wurde.
+     *
+     * @param mode   Die Art der Speicherung.
+     * @param blocks Die Anzahl der Blöcke.
+     */
+    BenchmarkReport(StorageMode mode, int blocks) {
+        this.mode = mode;
+        this.blocks = blocks;
+        Arrays.fill(nanos, -1);
+    }
+
+    /**
+     * Hält die Dauer eines erfolgreichen Schrittes fest.
+     *
+     * @param phase Der Schritt.
+     * @param nanos Die Dauer in Nanosekunden.
+     */
+    void record(Phase phase, long nanos) {
+        this.nanos[phase.ordinal()] = nanos;
+    }
+
+    /**
+     * Hält den ersten Fehler fest.
+     *
+     * @param phase  Der Schritt, in dem der Fehler aufgetreten ist.
+     * @param reason Die Beschreibung des Fehlers.
+     * @return Dieses Ergebnis.
+     */
+    BenchmarkReport fail(Phase phase, String reason) {
+        if (this.reason == null) {
+            failedPhase = phase;
+            this.reason = reason;
+        }
+        return this;
+    }
+
+    /**
+     * Getter für die Art der Speicherung.
+     *
+     * @return Die Art der Speicherung.
+     */
+    public StorageMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Getter für die Anzahl der Blöcke.
+     *
+     * @return Die Anzahl der Blöcke, die in jedem Schritt verarbeitet werden.
+     */
+    public int getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Gibt zurück, ob ein Schritt ausgeführt wurde.
+     *
+     * @param phase Der Schritt.
+     * @return Gibt {@code true} zurück, wenn der Schritt erfolgreich ausgeführt wurde.
+     */
+    public boolean hasRun(Phase phase) {
+        return nanos[phase.ordinal()] != -1;
+    }
+
+    /**
+     * Getter für die Dauer eines Schrittes.
+     *
+     * @param phase Der Schritt.
+     * @return Die Dauer in Millisekunden, mindestens {@code 1}.
+     */
+    public long getMillis(Phase phase) {
+        return Math.max(1, nanos[phase.ordinal()] / 1_000_000);
+    }
+
+    /**
+     * Gibt zurück, ob sich die Speicherung in allen Schritten korrekt verhalten hat.
+     *
+     * @return Gibt {@code true} zurück, wenn kein Fehler gefunden wurde.
+     */
+    public boolean isValid() {
+        return reason == null;
+    }
+
+    /**
+     * Getter für den Schritt, in dem der Fehler aufgetreten ist.
+     *
+     * @return Der Schritt oder {@code null}, sollten alle Schritte erfolgreich gewesen sein.
+     */
+    public Phase getFailedPhase() {
+        return failedPhase;
+    }
+
+    /**
+     * Getter für die Beschreibung des Fehlers.
+     *
+     * @return Die Beschreibung oder {@code null}, sollten alle Schritte erfolgreich gewesen sein.
+     */
+    public String getReason() {
+        return reason;
+    }
+}
@@ -1,8 +1,8 @@
 package data;
 
-import utils.ByteUtils;
 import utils.CryptoUtils;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.spec.InvalidKeySpecException;
@@ -10,20 +10,36 @@ import java.util.Arrays;
 
 /**
  * Stellt einen Block dar, der geparsed wurde.
+ * <p>
+ * Die Rohdaten werden als schreibgeschützter {@code ByteBuffer} gehalten. Dieser kann entweder im Heap liegen
+ * oder ein Ausschnitt einer in den Speicher abgebildeten Blockchaindatei sein.
+ * In beiden Fällen wird direkt auf dem Buffer geparsed und verifiziert.
  */
 public class Block {
     /**
      * Die Rohdaten.
      */
-    private final byte[] raw;
+    private final ByteBuffer raw;
     /**
      * Der Schüler.
      */
     private PublicKey student;
+    /**
+     * Der Sha-256 Hash des codierten Schülerschlüssels.
+     */
+    private byte[] studentFingerprint;
     /**
      * Die Schulleitung.
      */
     private PublicKey direx;
+    /**
+     * Das Jahr, für das der Block ausgestellt wurde.
+     */
+    private short year;
+    /**
+     * Die Schulnummer.
+     */
+    private int schoolNumber;
     /**
      * Die Klassenleitung.
      */
@@ -45,7 +61,19 @@ public class Block {
      * @see NoSuchAlgorithmException
      */
     Block(byte[] blockData) throws InvalidKeySpecException, NoSuchAlgorithmException {
-        raw = Arrays.copyOf(blockData, blockData.length);
+        this(ByteBuffer.wrap(Arrays.copyOf(blockData, blockData.length)));
+    }
+
+    /**
+     * Erzeugt einen neuen Block aus {@code data}, ohne die Daten zu kopieren.
+     *
+     * @param blockData Die binären und unveränderten Blockdaten zwischen Position und Limit des Buffers.
+     *                  Der Buffer darf danach nicht mehr verändert werden.
+     * @see InvalidKeySpecException
+     * @see NoSuchAlgorithmException
+     */
+    Block(ByteBuffer blockData) throws InvalidKeySpecException, NoSuchAlgorithmException {
+        raw = blockData.slice().asReadOnlyBuffer();
         parseBlock();
     }
 
@@ -81,57 +109,110 @@ public class Block {
         int position;
         {
             position = 2 + 32;
-            short keyLen = ByteUtils.toShort(Arrays.copyOfRange(raw, position, position += 2));
-            byte[] studentKeyBytes = Arrays.copyOfRange(raw, position, position += keyLen);
+            short keyLen = raw.getShort(position);
+            byte[] studentKeyBytes = copyOfRange(position += 2, position += keyLen);
             student = CryptoUtils.toPublicRSAKey(studentKeyBytes);
+            studentFingerprint = CryptoUtils.calculateSha256(studentKeyBytes);
         }
         //parse direx Key
         {
-            short keyLen = ByteUtils.toShort(Arrays.copyOfRange(raw, position, position += 2));
-            byte[] direxKeyBytes = Arrays.copyOfRange(raw, position, position += keyLen);
+            short keyLen = raw.getShort(position);
+            byte[] direxKeyBytes = copyOfRange(position += 2, position += keyLen);
             direx = CryptoUtils.toPublicECKey(direxKeyBytes);
         }
-        //skip year and schoolnr.
+        //parse year and schoolnr.
         {
+            year = raw.getShort(position);
+            schoolNumber = raw.getInt(position + 2);
             position += 6;
         }
         //skip owners
         {
-            short amount = ByteUtils.toShort(Arrays.copyOfRange(raw, position, position += 2));
-            position += amount * 256 + 2;
+            short amount = raw.getShort(position);
+            position += 2 + amount * 256 + 2;
         }
         //read kl Key
         {
-            short keyLen = ByteUtils.toShort(Arrays.copyOfRange(raw, position, position += 2));
-            byte[] klKeyBytes = Arrays.copyOfRange(raw, position, position += keyLen);
+            short keyLen = raw.getShort(position);
+            byte[] klKeyBytes = copyOfRange(position += 2, position += keyLen);
             kl = CryptoUtils.toPublicECKey(klKeyBytes);
         }
         //skip encrypted
         {
-            int encryptedLength = ByteUtils.toInt(Arrays.copyOfRange(raw, position, position += 4));
-            position += encryptedLength;
+            int encryptedLength = raw.getInt(position);
+            position += 4 + encryptedLength;
         }
         klSigBegin = position;
         //calculate direxSigBegin
         {
-            byte siglen = raw[position];
+            byte siglen = raw.get(position);
             position += siglen + 1;
             direxSigBegin = position;
         }
         //calculate blockhash
         {
             MessageDigest md = MessageDigest.getInstance("Sha-256");
-            hash = md.digest(raw);
+            md.update(raw.duplicate());
+            hash = md.digest();
         }
     }
 
     /**
-     * Getter für die binären Daten.
+     * Kopiert einen Bereich der Rohdaten.
+     *
+     * @param from Der Anfang des Bereiches (inklusive).
+     * @param to   Das Ende des Bereiches (exklusive).
+     * @return Der Bereich als neues Bytearray.
+     * @throws IndexOutOfBoundsException sollte der Bereich außerhalb der Rohdaten liegen.
+     */
+    private byte[] copyOfRange(int from, int to) {
+        if (from < 0 || to < from || to > raw.limit())
+            throw new IndexOutOfBoundsException("Range " + from + " - " + to + " outside of block!");
+        byte[] result = new byte[to - from];
+        ByteBuffer source = raw.duplicate();
+        source.position(from);
+        source.get(result);
+        return result;
+    }
+
+    /**
+     * Gibt einen Ausschnitt der Rohdaten zurück, ohne diese zu kopieren.
+     *
+     * @param from Der Anfang des Ausschnittes (inklusive).
+     * @param to   Das Ende des Ausschnittes (exklusive).
+     * @return Der Ausschnitt als schreibgeschützter Buffer.
+     */
+    private ByteBuffer view(int from, int to) {
+        ByteBuffer view = raw.duplicate();
+        view.limit(to).position(from);
+        return view;
+    }
+
+    /**
+     * Getter für die binären Daten. Dabei werden die Daten kopiert.
      *
      * @return Die binären Daten.
      */
     public byte[] getData() {
-        return raw;
+        return copyOfRange(0, raw.limit());
+    }
+
+    /**
+     * Gibt die binären Daten ohne Kopie zurück.
+     *
+     * @return Die binären Daten als schreibgeschützter Buffer.
+     */
+    public ByteBuffer getBuffer() {
+        return raw.duplicate();
+    }
+
+    /**
+     * Getter für die Größe des Blockes.
+     *
+     * @return Die Größe in Bytes.
+     */
+    public int getLength() {
+        return raw.limit();
     }
 
     /**
@@ -152,6 +233,33 @@ public class Block {
         return student;
     }
 
+    /**
+     * Getter für den Fingerabdruck des Schülers.
+     *
+     * @return Der Sha-256 Hash des codierten Schülerschlüssels.
+     */
+    public byte[] getStudentFingerprint() {
+        return studentFingerprint;
+    }
+
+    /**
+     * Getter für das Jahr.
+     *
+     * @return Das Jahr, für das der Block ausgestellt wurde.
+     */
+    public short getYear() {
+        return year;
+    }
+
+    /**
+     * Getter für die Schulnummer.
+     *
+     * @return Die Nummer der Schule, die den Block ausgestellt hat.
+     */
+    public int getSchoolNumber() {
+        return schoolNumber;
+    }
+
     /**
      * Verifiziert den Block.
      *
@@ -159,16 +267,31 @@ public class Block {
      * @return Gibt {@code true} zurück, wenn der Block korrekt scheint.
      */
     public boolean verify(byte[] previousHash) {
-        //Verify Hash
-        if (!Arrays.equals(previousHash, Arrays.copyOfRange(raw, 2, 34))) return false;
-        //Verify signatures
-        byte[] toSignKl = Arrays.copyOfRange(raw, 0, klSigBegin);
-        byte klSignatureLength = raw[klSigBegin];
-        byte[] toSignDirex = Arrays.copyOfRange(raw, 0, direxSigBegin);
-        byte direxSignatureLength = raw[direxSigBegin];
+        return follows(previousHash) && verifySignatures();
+    }
+
+    /**
+     * Überprüft, ob der Block auf den angegebenen Block folgt.
+     *
+     * @param previousHash Der Hash des vorangegangenen Blockes.
+     * @return Gibt {@code true} zurück, wenn der Block den Hash als Vorgänger enthält.
+     */
+    public boolean follows(byte[] previousHash) {
+        return view(2, 34).equals(ByteBuffer.wrap(previousHash));
+    }
+
+    /**
+     * Überprüft die Signaturen des Klassenleiters und des Direktors.
+     * Anders als {@link #verify(byte[])} wird der Vorgänger nicht geprüft.
+     *
+     * @return Gibt {@code true} zurück, wenn beide Signaturen gültig sind.
+     */
+    public boolean verifySignatures() {
+        byte klSignatureLength = raw.get(klSigBegin);
+        byte direxSignatureLength = raw.get(direxSigBegin);
         try {
-            return CryptoUtils.verify(kl, toSignKl, Arrays.copyOfRange(raw, klSigBegin + 1, klSigBegin + 1 + klSignatureLength)) &&
-                    CryptoUtils.verify(direx, toSignDirex, Arrays.copyOfRange(raw, direxSigBegin + 1, direxSigBegin + 1 + direxSignatureLength));
+            return CryptoUtils.verify(kl, view(0, klSigBegin), copyOfRange(klSigBegin + 1, klSigBegin + 1 + klSignatureLength)) &&
+                    CryptoUtils.verify(direx, view(0, direxSigBegin), copyOfRange(direxSigBegin + 1, direxSigBegin + 1 + direxSignatureLength));
         } catch (NoSuchAlgorithmException | SignatureException | InvalidKeyException e) {
             return false;
         }
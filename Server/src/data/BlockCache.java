@@ -0,0 +1,153 @@
+package data;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Zwischenspeicher für geparste Blöcke, dessen Größe in Bytes begrenzt ist.
+ * <p>
+ * Die Blöcke werden nach ihrer Position abgelegt. Überschreitet die Summe der Gewichte die Obergrenze,
+ * werden die am längsten nicht verwendeten Blöcke entfernt (LRU). Das Gewicht eines Blockes ist seine Größe
+ * zuzüglich eines geschätzten Aufschlages für das Objekt selbst.
+ */
+public class BlockCache {
+    /**
+     * Geschätzter Speicherbedarf eines geparsten Blockes zusätzlich zu seinen Rohdaten.
+     */
+    private static final int BLOCK_OVERHEAD = 512;
+    /**
+     * Die Blöcke in der Reihenfolge ihrer letzten Verwendung.
+     */
+    private final LinkedHashMap<Integer, Block> blocks = new LinkedHashMap<>(256, 0.75f, true);
+    /**
+     * Die maximale Summe der Gewichte in Bytes.
+     */
+    private final long capacity;
+    /**
+     * Die aktuelle Summe der Gewichte in Bytes.
+     */
+    private long weight = 0;
+    /**
+     * Anzahl der gefundenen Blöcke.
+     */
+    private long hits = 0;
+    /**
+     * Anzahl der nicht gefundenen Blöcke.
+     */
+    private long misses = 0;
+    /**
+     * Anzahl der entfernten Blöcke.
+     */
+    private long evictions = 0;
+
+    /**
+     * Erzeugt einen leeren Zwischenspeicher.
+     *
+     * @param capacity Die maximale Größe in Bytes. Bei {@code 0} werden keine Blöcke gespeichert.
+     */
+    BlockCache(long capacity) {
+        this.capacity = Math.max(0, capacity);
+    }
+
+    /**
+     * Sucht einen Block.
+     *
+     * @param position Die Position des Blockes.
+     * @return Der Block oder {@code null}, sollte er nicht gespeichert sein.
+     */
+    synchronized Block get(int position) {
+        Block b = blocks.get(position);
+        if (b == null) misses++;
+        else hits++;
+        return b;
+    }
+
+    /**
+     * Speichert einen Block und entfernt bei Bedarf die am längsten nicht verwendeten Blöcke.
+     *
+     * @param position Die Position des Blockes.
+     * @param b        Der Block.
+     */
+    synchronized void put(int position, Block b) {
+        long blockWeight = weigh(b);
+        if (blockWeight > capacity) return;
+        Block previous = blocks.put(position, b);
+        if (previous != null) weight -= weigh(previous);
+        weight += blockWeight;
+        Iterator<Map.Entry<Integer, Block>> eldest = blocks.entrySet().iterator();
+        while (weight > capacity && eldest.hasNext()) {
+            weight -= weigh(eldest.next().getValue());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Berechnet das Gewicht eines Blockes.
+     *
+     * @param b Der Block.
+     * @return Das Gewicht in Bytes.
+     */
+    private static long weigh(Block b) {
+        return b.getLength() + BLOCK_OVERHEAD;
+    }
+
+    /**
+     * Getter für die Anzahl der gefundenen Blöcke.
+     *
+     * @return Die Anzahl der Treffer seit dem Start.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter für die Anzahl der nicht gefundenen Blöcke.
+     *
+     * @return Die Anzahl der Fehlschläge seit dem Start.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Getter für die Anzahl der entfernten Blöcke.
+     *
+     * @return Die Anzahl der Blöcke, die wegen der Obergrenze entfernt wurden.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Getter für die aktuelle Größe.
+     *
+     * @return Die Summe der Gewichte aller gespeicherten Blöcke in Bytes.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Getter für die Obergrenze.
+     *
+     * @return Die maximale Größe in Bytes.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Fasst die Zähler für die Ausgabe zusammen.
+     *
+     * @return Treffer, Fehlschläge, entfernte Blöcke und die Belegung.
+     */
+    @Override
+    public synchronized String toString() {
+        long requests = hits + misses;
+        return "Zwischenspeicher: " + hits + " Treffer, " + misses + " Fehlschläge ("
+                + (requests == 0 ? 0 : hits * 100 / requests) + " % Treffer), " + evictions + " entfernt, "
+                + weight / 1024 + " von " + capacity / 1024 + " KiB belegt.";
+    }
+}
@@ -0,0 +1,257 @@
+package data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Kompakte Tabelle mit den Metadaten aller Blöcke der Blockchain.
+ * <p>
+ * Statt eines Objektes je Block werden Segment, Position, Größe, Blockhash, Fingerabdruck des Schülers, Jahr und
+ * Schulnummer in parallelen Arrays primitiver Typen abgelegt. Die beiden Hashes liegen dabei als je vier {@code long}
+ * vor. Ein Block belegt so 86 Bytes ohne weitere Objekte; vollständige {@link Block}-Objekte werden erst bei Bedarf aus den Dateien erzeugt.
+ */
+class BlockTable {
+    /**
+     * Anzahl der {@code long}, die ein Sha-256 Hash belegt.
+     */
+    private static final int HASH_WORDS = 4;
+    /**
+     * Die Nummern der Segmente, in denen die Blöcke liegen.
+     */
+    private int[] segments;
+    /**
+     * Die Positionen der Datensätze in den Segmenten.
+     */
+    private long[] offsets;
+    /**
+     * Die Größen der Blöcke.
+     */
+    private int[] lengths;
+    /**
+     * Die Blockhashes, je Block {@link #HASH_WORDS} aufeinanderfolgende Einträge.
+     */
+    private long[] hashes;
+    /**
+     * Die Fingerabdrücke der Schüler, je Block {@link #HASH_WORDS} aufeinanderfolgende Einträge.
+     */
+    private long[] fingerprints;
+    /**
+     * Die Jahre der Blöcke.
+     */
+    private short[] years;
+    /**
+     * Die Schulnummern der Blöcke.
+     */
+    private int[] schools;
+    /**
+     * Anzahl der eingetragenen Blöcke.
+     */
+    private int size = 0;
+
+    /**
+     * Erzeugt eine leere Tabelle.
+     *
+     * @param capacity Die erwartete Anzahl an Blöcken.
+     */
+    BlockTable(int capacity) {
+        capacity = Math.max(16, capacity);
+        segments = new int[capacity];
+        offsets = new long[capacity];
+        lengths = new int[capacity];
+        hashes = new long[capacity * HASH_WORDS];
+        fingerprints = new long[capacity * HASH_WORDS];
+        years = new short[capacity];
+        schools = new int[capacity];
+    }
+
+    /**
+     * Hängt einen Block an.
+     *
+     * @param entry Der Indexeintrag des Blockes.
+     * @return Die Position des Blockes.
+     */
+    int add(IndexEntry entry) {
+        if (size == segments.length) grow();
+        segments[size] = entry.getSegment();
+        offsets[size] = entry.getOffset();
+        lengths[size] = entry.getLength();
+        pack(entry.getHash(), hashes, size * HASH_WORDS);
+        pack(entry.getStudentFingerprint(), fingerprints, size * HASH_WORDS);
+        years[size] = entry.getYear();
+        schools[size] = entry.getSchoolNumber();
+        return size++;
+    }
+
+    /**
+     * Getter für die Anzahl der Blöcke.
+     *
+     * @return Die Anzahl.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Getter für die Nummer des Segmentes eines Blockes.
+     *
+     * @param position Die Position des Blockes.
+     * @return Die Nummer des Segmentes.
+     */
+    int getSegment(int position) {
+        return segments[check(position)];
+    }
+
+    /**
+     * Getter für die Position des Datensatzes eines Blockes.
+     *
+     * @param position Die Position des Blockes.
+     * @return Die Position im Segment.
+     */
+    long getOffset(int position) {
+        return offsets[check(position)];
+    }
+
+    /**
+     * Getter für die Größe eines Blockes.
+     *
+     * @param position Die Position des Blockes.
+     * @return Die Größe in Bytes.
+     */
+    int getLength(int position) {
+        return lengths[check(position)];
+    }
+
+    /**
+     * Getter für den Hash eines Blockes.
+     *
+     * @param position Die Position des Blockes.
+     * @return Eine Kopie des Hashes.
+     */
+    byte[] getHash(int position) {
+        return unpack(hashes, check(position) * HASH_WORDS);
+    }
+
+    /**
+     * Getter für den Fingerabdruck des Schülers eines Blockes.
+     *
+     * @param position Die Position des Blockes.
+     * @return Eine Kopie des Fingerabdruckes.
+     */
+    byte[] getStudentFingerprint(int position) {
+        return unpack(fingerprints, check(position) * HASH_WORDS);
+    }
+
+    /**
+     * Getter für das Jahr eines Blockes.
+     *
+     * @param position Die Position des Blockes.
+     * @return Das Jahr.
+     */
+    short getYear(int position) {
+        return years[check(position)];
+    }
+
+    /**
+     * Getter für die Schulnummer eines Blockes.
+     *
+     * @param position Die Position des Blockes.
+     * @return Die Schulnummer.
+     */
+    int getSchoolNumber(int position) {
+        return schools[check(position)];
+    }
+
+    /**
+     * Gibt den Indexeintrag eines Blockes zurück.
+     *
+     * @param position Die Position des Blockes.
+     * @return Ein neuer Eintrag mit den Werten aus der Tabelle.
+     */
+    IndexEntry getEntry(int position) {
+        return new IndexEntry(getSegment(position), getOffset(position), getLength(position), getHash(position),
+                getStudentFingerprint(position), getYear(position), getSchoolNumber(position));
+    }
+
+    /**
+     * Gibt eine Ansicht der Tabelle als Liste von Indexeinträgen zurück, die erst beim Zugriff erzeugt werden.
+     *
+     * @return Die Ansicht.
+     */
+    List<IndexEntry> asEntries() {
+        return new AbstractList<IndexEntry>() {
+            @Override
+            public IndexEntry get(int index) {
+                return getEntry(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Prüft eine Position.
+     *
+     * @param position Die Position.
+     * @return Die Position.
+     * @throws IndexOutOfBoundsException sollte die Position nicht belegt sein.
+     */
+    private int check(int position) {
+        if (position < 0 || position >= size)
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+        return position;
+    }
+
+    /**
+     * Verdoppelt die Kapazität aller Arrays.
+     */
+    private void grow() {
+        int capacity = segments.length << 1;
+        segments = Arrays.copyOf(segments, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        hashes = Arrays.copyOf(hashes, capacity * HASH_WORDS);
+        fingerprints = Arrays.copyOf(fingerprints, capacity * HASH_WORDS);
+        years = Arrays.copyOf(years, capacity);
+        schools = Arrays.copyOf(schools, capacity);
+    }
+
+    /**
+     * Legt einen Sha-256 Hash als vier {@code long} (Big Endian) ab.
+     *
+     * @param hash   Der Hash.
+     * @param target Das Ziel.
+     * @param index  Der erste Eintrag im Ziel.
+     */
+    private static void pack(byte[] hash, long[] target, int index) {
+        for (int word = 0; word < HASH_WORDS; word++) {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (hash[word * 8 + i] & 0xFF);
+            }
+            target[index + word] = value;
+        }
+    }
+
+    /**
+     * Stellt einen als vier {@code long} abgelegten Sha-256 Hash wieder her.
+     *
+     * @param source Die Quelle.
+     * @param index  Der erste Eintrag in der Quelle.
+     * @return Der Hash.
+     */
+    private static byte[] unpack(long[] source, int index) {
+        byte[] hash = new byte[HASH_WORDS * 8];
+        for (int word = 0; word < HASH_WORDS; word++) {
+            long value = source[index + word];
+            for (int i = 7; i >= 0; i--) {
+                hash[word * 8 + i] = (byte) value;
+                value >>>= 8;
+            }
+        }
+        return hash;
+    }
+}
@@ -1,28 +1,126 @@
 package data;
 
-import utils.ByteUtils;
+import utils.CryptoUtils;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
 
 /**
  * Darstellung der gesamten Blockchain.
  */
-public class Blockchain {
+public class Blockchain implements AutoCloseable {
     /**
-     * Die Datei, in der die Blockchain liegt.
+     * Die Standardgröße eines Segmentes, sollte die Blockchain in einem Verzeichnis liegen.
      */
-    private final File chain;
+    public static final long DEFAULT_SEGMENT_SIZE = ChainLog.DEFAULT_SEGMENT_SIZE;
     /**
-     * Eine Liste mit allen Blöcken der Blockchain.
+     * Nach wie vielen angehängten Blöcken der Checkpoint aktualisiert wird.
      */
-    private final List<Block> data = new ArrayList<>();
+    private static final int CHECKPOINT_INTERVAL = 100;
+    /**
+     * Wie viele Blöcke bei der Überprüfung im Hintergrund am Stück überprüft werden.
+     */
+    private static final int VERIFY_CHUNK = 10_000;
+    /**
+     * Der Mindestabstand zwischen zwei Fortschrittsmeldungen der Überprüfung im Hintergrund in Millisekunden.
+     */
+    private static final long PROGRESS_INTERVAL = 5000;
+    /**
+     * Der Speicher, in dem die Blöcke liegen.
+     */
+    private final ChainStore log;
+    /**
+     * Die Indexdatei neben der Blockchain.
+     */
+    private final ChainIndex index;
+    /**
+     * Die Datei, in der der Checkpoint liegt.
+     */
+    private final File checkpointFile;
+    /**
+     * Die Datei, in der der Bloom-Filter über die Schüler liegt.
+     */
+    private final File filterFile;
+    /**
+     * Die Einstellungen.
+     */
+    private final ChainConfig config;
+    /**
+     * Die Metadaten aller Blöcke der Blockchain. Die Blöcke selbst werden erst bei Bedarf aus den Dateien gelesen.
+     */
+    private final BlockTable table = new BlockTable(1024);
+    /**
+     * Angehängte Blöcke, die noch nicht geschrieben wurden, nach ihrer Position.
+     */
+    private final Map<Integer, Block> unwritten = new HashMap<>();
+    /**
+     * Der fortlaufende Digest bis einschließlich der noch nicht geschriebenen Blöcke, nach deren Position.
+     * Wird benötigt, um nach dem Schreiben einen Checkpoint für genau diese Höhe zu speichern.
+     */
+    private final Map<Integer, byte[]> unwrittenDigests = new HashMap<>();
+    /**
+     * Zwischenspeicher für zuletzt verwendete Blöcke.
+     */
+    private final BlockCache cache;
+    /**
+     * Index über die Blockhashes.
+     */
+    private final HashIndex hashIndex = new HashIndex(0, table::getHash);
+    /**
+     * Sortierter Index über die Präfixe der Blockhashes.
+     */
+    private final HashPrefixIndex prefixIndex = new HashPrefixIndex(table::getHash);
+    /**
+     * Index über die Fingerabdrücke der Schüler.
+     */
+    private final StudentIndex studentIndex = new StudentIndex(table::getStudentFingerprint);
+    /**
+     * Merkle-Baum über die Blockhashes für Inklusionsbeweise.
+     */
+    private final MerkleTree merkleTree;
+    /**
+     * Index über Schulnummer und Jahr.
+     */
+    private final SchoolIndex schoolIndex = new SchoolIndex();
+    /**
+     * Statistik je Schule und Jahr.
+     */
+    private final StatisticsProjection statistics = new StatisticsProjection();
+    /**
+     * Bloom-Filter über die Fingerabdrücke der Schüler, um Anfragen unbekannter Schüler früh abzuweisen.
+     * Ist {@code null}, bis alle Blöcke geladen wurden.
+     */
+    private StudentFilter studentFilter;
+    /**
+     * Der fortlaufende Digest über alle Blockhashes, wie er im Checkpoint gespeichert wird.
+     */
+    private byte[] runningDigest = Checkpoint.initialDigest();
+    /**
+     * Ob alle Blöcke überprüft wurden. Erst danach werden neue Blöcke angenommen.
+     */
+    private volatile boolean verified = false;
+    /**
+     * Die Anzahl der Blöcke, deren Signaturen bereits überprüft wurden.
+     */
+    private volatile int verifiedHeight = 0;
+    /**
+     * Die Höhe des ersten fehlerhaften Blockes, der im Hintergrund gefunden wurde, oder {@code -1}.
+     */
+    private volatile int invalidHeight = -1;
+    /**
+     * Ob ein Block nicht geschrieben werden konnte. Danach werden keine Blöcke mehr angenommen.
+     */
+    private volatile boolean writeFailed = false;
+    /**
+     * Die Höhe des zuletzt gespeicherten Checkpoints.
+     */
+    private int checkpointHeight = 0;
 
     /**
      * Erzeugt eine Blockchain auf Basis einer Datei.
@@ -31,15 +129,32 @@ public class Blockchain {
      * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
      */
     public Blockchain(File chain) throws IOException {
-        this.chain = chain;
-        if (chain.exists() && chain.isFile() && chain.length() > 0) {
-            try {
-                loadFromFile();
-            } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
-                throw new IOException("Corrupted chain!", e);
-            }
-        } else if (!chain.createNewFile())
-            throw new IOException("Parameter is not a file!");
+        this(chain, new ChainConfig());
+    }
+
+    /**
+     * Erzeugt eine Blockchain auf Basis einer Datei oder eines Verzeichnisses mit Segmenten.
+     * Neben der Blockchain werden eine Indexdatei mit der Endung {@code .idx}, ein Checkpoint mit der Endung
+     * {@code .ckpt} und ein Bloom-Filter über die Schüler mit der Endung {@code .bloom} gepflegt.
+     * Im Modus {@link StorageMode#MEMORY} werden weder die Blockchain noch diese Dateien geschrieben.
+     *
+     * @param chain  Die Datei bzw. das Verzeichnis, in dem die Blockchain liegt.
+     * @param config Die Einstellungen.
+     * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
+     */
+    public Blockchain(File chain, ChainConfig config) throws IOException {
+        this.config = config;
+        cache = new BlockCache(config.getBlockCacheSize());
+        log = ChainStore.open(chain, config);
+        index = new ChainIndex(new File(chain.getPath() + ".idx"));
+        checkpointFile = new File(chain.getPath() + ".ckpt");
+        filterFile = new File(chain.getPath() + ".bloom");
+        try {
+            merkleTree = new MerkleTree(table::getHash);
+            loadFromFile();
+        } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
+            throw new IOException("Corrupted chain!", e);
+        }
     }
 
     /**
@@ -53,53 +168,325 @@ public class Blockchain {
 
     /**
      * Lädt die Blockchain aus einer Datei.
+     * Passt die Indexdatei zur Blockchain, werden nur die Einträge übernommen. Anderenfalls wird die gesamte
+     * Blockchain gelesen und die Indexdatei neu geschrieben. Das geschieht auch, wenn der Checkpoint oder die Blöcke
+     * unterhalb des Checkpoints nicht zu den Einträgen passen, da dann eher die Indexdatei als die Blockchain fehlerhaft
+     * ist. Erst wenn auch die gelesenen Blöcke nicht passen, werden alle Blöcke überprüft.
      *
      * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
      * @see InvalidKeySpecException
      * @see NoSuchAlgorithmException
      */
     private void loadFromFile() throws IOException, InvalidKeySpecException, NoSuchAlgorithmException {
-        DataInputStream in = new DataInputStream(new FileInputStream(chain));
-        byte[] buffer = new byte[4];
-        while (in.available() > 0) {
-            int read = 0;
-            do {
-                read += in.read(buffer, read, 4 - read);
-            } while (read < 4 && in.available() > 0);
-            if (in.available() == 0)
-                throw new IOException("File is corrupted!");
-            byte[] block = readBlock(ByteUtils.toInt(buffer), in);
-            data.add(new Block(block));
-        }
-        if (data.size() > 0) {
-            if (!data.get(0).verify(Block.getGenesisHash())) {
-                throw new IOException("Invalid Chain!");
-            }
-            for (int i = 1; i < data.size(); i++) {
-                if (!data.get(i).verify(data.get(i - 1).getHash())) {
-                    throw new IOException("Invalid Chain!");
+        List<IndexEntry> entries = log.isPersistent() ? index.load() : null;
+        boolean fromIndex = entries != null && matchesIndex(entries);
+        if (entries != null && !fromIndex)
+            System.err.println("Die Indexdatei passt nicht zur Blockchain und wird neu erzeugt.");
+        if (!fromIndex) entries = readEntries();
+        int height = findVerifiedHeight(entries);
+        if (height == -1 && fromIndex) {
+            System.err.println("Die Indexdatei passt nicht zum Checkpoint und wird neu erzeugt.");
+            fromIndex = false;
+            entries = readEntries();
+            height = findVerifiedHeight(entries);
+        }
+        if (height == -1) {
+            System.err.println("Die Blöcke passen nicht zum Checkpoint, alle Blöcke werden überprüft.");
+            height = 0;
+        }
+        if (!fromIndex && log.isPersistent()) index.rewrite(entries);
+        for (IndexEntry entry : entries) {
+            if (fromIndex) log.restore(entry.getSegment(), entry.getOffset(), entry.getHash());
+            add(entry);
+        }
+        loadStudentFilter();
+        verifiedHeight = height;
+        checkpointHeight = height;
+        if (height < table.size() && config.isLazyVerify()) {
+            verifyInBackground(height);
+            return;
+        }
+        if (height < table.size()) {
+            long start = System.nanoTime();
+            int invalid = createVerifier().verify(height, table.size());
+            if (invalid != -1)
+                throw new IOException("Invalid Chain! First invalid block at height " + invalid);
+            reportVerified(table.size() - height, start);
+        }
+        verifiedHeight = table.size();
+        verified = true;
+        if (height < table.size() || !checkpointFile.isFile())
+            saveCheckpoint();
+    }
+
+    /**
+     * Lädt den gespeicherten Bloom-Filter über die Schüler. Passt dieser nicht zur geladenen Blockchain oder ist
+     * bereits überfüllt, wird er aus dem Index der Schüler neu aufgebaut und gespeichert.
+     */
+    private void loadStudentFilter() {
+        studentFilter = log.isPersistent() ? StudentFilter.load(filterFile, table.size(), lastHash()) : null;
+        if (studentFilter == null || studentFilter.isFull()) {
+            rebuildStudentFilter(studentIndex.size() * 2);
+            saveStudentFilter();
+        }
+    }
+
+    /**
+     * Baut den Bloom-Filter über die Schüler mit einer neuen Kapazität aus dem Index der Schüler auf.
+     *
+     * @param capacity Die Anzahl an Schülern, für die der Filter ausgelegt sein soll.
+     */
+    private void rebuildStudentFilter(int capacity) {
+        StudentFilter filter = new StudentFilter(Math.max(1024, capacity), config.getStudentFilterFpp());
+        for (int i = 0; i < table.size(); i++) {
+            byte[] fingerprint = table.getStudentFingerprint(i);
+            if (studentIndex.find(fingerprint)[0] == i) filter.add(fingerprint);
+        }
+        studentFilter = filter;
+    }
+
+    /**
+     * Speichert den Bloom-Filter über die Schüler für die aktuelle Höhe.
+     */
+    private void saveStudentFilter() {
+        if (!log.isPersistent()) return;
+        try {
+            studentFilter.save(filterFile, table.size(), lastHash());
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben des Bloom-Filters: " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Erzeugt einen Verifier über die Blöcke der Blockchain.
+     * Die Blöcke werden in den Threads des Verifiers gelesen, geparst und danach wieder verworfen.
+     *
+     * @return Der Verifier.
+     */
+    private ChainVerifier createVerifier() {
+        byte[] genesisHash = Block.getGenesisHash();
+        return new ChainVerifier(this::readBlockAt, i -> i == 0 ? genesisHash : table.getHash(i - 1), config.getVerifyThreads());
+    }
+
+    /**
+     * Gibt aus, wie viele Blöcke überprüft wurden.
+     *
+     * @param count Die Anzahl der überprüften Blöcke.
+     * @param start Der Beginn der Überprüfung ({@link System#nanoTime()}).
+     */
+    private void reportVerified(int count, long start) {
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(count + " Blöcke in " + millis + " ms mit " + config.getVerifyThreads()
+                + " Threads überprüft (" + count * 1000L / millis + " Blöcke/s).");
+    }
+
+    /**
+     * Überprüft die Signaturen ab einer Höhe in einem eigenen Thread. Lesende Anfragen werden währenddessen bereits
+     * beantwortet, neue Blöcke erst nach erfolgreicher Überprüfung angenommen. Der Fortschritt wird regelmäßig ausgegeben.
+     * Da währenddessen keine Blöcke angehängt werden, kann die Tabelle ohne Sperre gelesen werden.
+     *
+     * @param from Die Anzahl der Blöcke, die laut Checkpoint bereits überprüft wurden.
+     */
+    private void verifyInBackground(int from) {
+        int total = table.size();
+        Thread verifier = new Thread(() -> {
+            long start = System.nanoTime();
+            long lastReport = start;
+            ChainVerifier chainVerifier = createVerifier();
+            for (int begin = from; begin < total; begin += VERIFY_CHUNK) {
+                int end = Math.min(total, begin + VERIFY_CHUNK);
+                int invalid;
+                try {
+                    invalid = chainVerifier.verify(begin, end);
+                } catch (RuntimeException e) {
+                    invalid = begin;
+                }
+                if (invalid != -1) {
+                    invalidHeight = invalid;
+                    System.err.println("Invalid Chain! First invalid block at height " + invalid);
+                    return;
+                }
+                verifiedHeight = end;
+                if (System.nanoTime() - lastReport >= PROGRESS_INTERVAL * 1_000_000) {
+                    lastReport = System.nanoTime();
+                    System.out.println("Überprüfung im Hintergrund: " + end + " von " + total + " Blöcken ("
+                            + end * 100L / total + " %).");
                 }
             }
-        }
+            reportVerified(total - from, start);
+            synchronized (this) {
+                verified = true;
+                saveCheckpoint();
+            }
+        }, "chain-verifier");
+        verifier.setDaemon(true);
+        verifier.start();
+        System.out.println("Die Signaturen von " + (total - from) + " Blöcken werden im Hintergrund überprüft.");
     }
 
     /**
-     * Liest einen einzelnen Block ein.
+     * Liest alle Blöcke der Blockchain und erzeugt daraus die Einträge der Indexdatei.
      *
-     * @param blockSize Die Größe des Blockes.
-     * @param in        Die Quelle, von der der Block gelesen werden soll.
-     * @return Den Block als Bytearray.
+     * @return Die Einträge in der Reihenfolge der Blöcke.
      * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
+     * @see InvalidKeySpecException
+     * @see NoSuchAlgorithmException
+     */
+    private List<IndexEntry> readEntries() throws IOException, InvalidKeySpecException, NoSuchAlgorithmException {
+        List<IndexEntry> entries = new ArrayList<>();
+        log.read((block, segment, offset) -> {
+            Block b = new Block(block);
+            entries.add(IndexEntry.of(segment, offset, b));
+            return b.getHash();
+        });
+        return entries;
+    }
+
+    /**
+     * Berechnet den fortlaufenden Digest über alle Blöcke und sucht dabei die Höhe, bis zu der laut Checkpoint
+     * bereits überprüft wurde. Der Checkpoint wird nur verwendet, wenn sowohl der Hash des Blockes auf dieser Höhe
+     * als auch der Digest bis dahin übereinstimmen und die Blöcke darunter noch zu ihren Hashes passen
+     * ({@link #matchesLinkage(List, int)}).
+     *
+     * @param entries Die Einträge aller Blöcke.
+     * @return Die Anzahl der Blöcke, deren Signaturen nicht erneut überprüft werden müssen, oder {@code -1}, sollte der
+     * Checkpoint nicht zu den Einträgen oder die Blöcke unterhalb des Checkpoints nicht zu ihren Einträgen passen.
+     * @see NoSuchAlgorithmException
+     */
+    private int findVerifiedHeight(List<IndexEntry> entries) throws NoSuchAlgorithmException {
+        Checkpoint checkpoint = config.isFullVerify() ? null : Checkpoint.load(checkpointFile);
+        int verified = 0;
+        runningDigest = Checkpoint.initialDigest();
+        for (int i = 0; i < entries.size(); i++) {
+            byte[] hash = entries.get(i).getHash();
+            runningDigest = Checkpoint.extend(runningDigest, hash);
+            if (checkpoint != null && i + 1 == checkpoint.getHeight()
+                    && Arrays.equals(hash, checkpoint.getTipHash())
+                    && Arrays.equals(runningDigest, checkpoint.getDigest()))
+                verified = i + 1;
+        }
+        if (checkpoint != null && checkpoint.getHeight() > 0 && verified == 0) return -1;
+        if (verified > 0 && !matchesLinkage(entries, verified)) return -1;
+        return verified;
+    }
+
+    /**
+     * Überprüft die Verkettung der Blöcke unterhalb des Checkpoints, ohne Signaturen zu überprüfen.
+     * Dazu wird jeder Block erneut gehasht und mit seinem Eintrag verglichen, außerdem muss er auf den Hash seines
+     * Vorgängers verweisen.
+     *
+     * @param entries Die Einträge aller Blöcke.
+     * @param height  Die Anzahl der zu überprüfenden Blöcke.
+     * @return Gibt {@code true} zurück, wenn alle Blöcke passen.
+     * @see NoSuchAlgorithmException
+     */
+    private boolean matchesLinkage(List<IndexEntry> entries, int height) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("Sha-256");
+        byte[] previousHash = Block.getGenesisHash();
+        for (int i = 0; i < height; i++) {
+            IndexEntry entry = entries.get(i);
+            ByteBuffer block;
+            try {
+                block = log.readBlock(entry.getSegment(), entry.getOffset(), entry.getLength());
+            } catch (IOException e) {
+                return false;
+            }
+            if (block.remaining() < 34) return false;
+            ByteBuffer previous = block.duplicate();
+            previous.limit(previous.position() + 34).position(previous.position() + 2);
+            if (!previous.equals(ByteBuffer.wrap(previousHash))) return false;
+            md.update(block);
+            byte[] hash = md.digest();
+            if (!Arrays.equals(hash, entry.getHash())) return false;
+            previousHash = hash;
+        }
+        return true;
+    }
+
+    /**
+     * Speichert einen Checkpoint für alle bisher überprüften Blöcke.
+     */
+    private void saveCheckpoint() {
+        saveCheckpoint(table.size(), lastHash(), runningDigest);
+    }
+
+    /**
+     * Speichert einen Checkpoint für eine bestimmte Höhe. Alle Blöcke bis zu dieser Höhe müssen überprüft und
+     * geschrieben sein.
+     *
+     * @param height  Die Anzahl der Blöcke.
+     * @param tipHash Der Hash des Blockes auf dieser Höhe.
+     * @param digest  Der fortlaufende Digest bis einschließlich dieses Blockes.
+     */
+    private void saveCheckpoint(int height, byte[] tipHash, byte[] digest) {
+        if (!log.isPersistent()) return;
+        try {
+            new Checkpoint(height, tipHash, digest).save(checkpointFile);
+            checkpointHeight = height;
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben des Checkpoints: " + e.getLocalizedMessage());
+        }
+        saveStudentFilter();
+    }
+
+    /**
+     * Überprüft, ob die Einträge der Indexdatei zur Blockchain passen.
+     * Dazu muss jeder Eintrag direkt hinter dem vorherigen liegen, sodass kein Eintrag fehlt oder verschoben ist, und
+     * der letzte Eintrag auf den letzten Datensatz zeigen, dessen Hash übereinstimmt.
+     *
+     * @param stored Die Einträge aus der Indexdatei.
+     * @return Gibt {@code true} zurück, wenn die Einträge verwendet werden können.
+     * @see NoSuchAlgorithmException
      */
-    private byte[] readBlock(int blockSize, DataInputStream in) throws IOException {
-        byte[] block = new byte[blockSize];
-        int read = 0;
-        do {
-            read += in.read(block, read, blockSize - read);
-        } while (read < blockSize && in.available() > 0);
-        if (blockSize > read && in.available() == 0)
-            throw new IOException("File is corrupted!");
-        return block;
+    private boolean matchesIndex(List<IndexEntry> stored) throws NoSuchAlgorithmException {
+        if (stored.isEmpty()) return log.isEmpty();
+        IndexEntry last = stored.get(stored.size() - 1);
+        if (!log.isTail(last.getSegment(), last.getOffset(), last.getLength())) return false;
+        try {
+            IndexEntry previous = null;
+            for (IndexEntry entry : stored) {
+                if (entry.getLength() < 0 || !log.follows(previous, entry.getSegment(), entry.getOffset())) return false;
+                previous = entry;
+            }
+            byte[] lastBlock = new byte[last.getLength()];
+            log.readBlock(last.getSegment(), last.getOffset(), last.getLength()).get(lastBlock);
+            return Arrays.equals(CryptoUtils.calculateSha256(lastBlock), last.getHash());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gibt den Block an einer Position zurück.
+     *
+     * @param position Die Position des Blockes.
+     * @return Der Block.
+     * @throws IllegalStateException sollte der Block nicht mehr gelesen werden können.
+     */
+    private Block getBlockAt(int position) {
+        Block b = unwritten.get(position);
+        if (b == null) b = cache.get(position);
+        if (b == null) {
+            b = readBlockAt(position);
+            cache.put(position, b);
+        }
+        return b;
+    }
+
+    /**
+     * Liest einen bereits geschriebenen Block aus den Dateien und parsed diesen.
+     * Kann von mehreren Threads gleichzeitig aufgerufen werden, solange keine Blöcke angehängt werden.
+     *
+     * @param position Die Position des Blockes.
+     * @return Der Block.
+     * @throws IllegalStateException sollte der Block nicht mehr gelesen oder geparsed werden können.
+     */
+    private Block readBlockAt(int position) {
+        try {
+            return new Block(log.readBlock(table.getSegment(position), table.getOffset(position), table.getLength(position)));
+        } catch (IOException | InvalidKeySpecException | NoSuchAlgorithmException | RuntimeException e) {
+            throw new IllegalStateException("Corrupted chain!", e);
+        }
     }
 
     /**
@@ -107,10 +494,20 @@ public class Blockchain {
      *
      * @return Der Hash des letzten Blockes.
      */
-    public byte[] getLastHash() {
-        if (data.size() == 0)
+    public synchronized byte[] getLastHash() {
+        return lastHash();
+    }
+
+    /**
+     * Gibt den letzten Hash der Blockchain zurück, ohne zu sperren. Wird intern statt {@link #getLastHash()} verwendet,
+     * da der Aufrufer die Sperre bereits hält oder sich die Blockchain noch im Konstruktor befindet.
+     *
+     * @return Der Hash des letzten Blockes.
+     */
+    private byte[] lastHash() {
+        if (table.size() == 0)
             return Block.getGenesisHash();
-        return data.get(data.size() - 1).getHash();
+        return table.getHash(table.size() - 1);
     }
 
     /**
@@ -119,8 +516,41 @@ public class Blockchain {
      * @param hash Der Hash des gesuchten Blockes.
      * @return Der gesuchte Block oder {@code null}, sollte er nicht existieren.
      */
-    public Block getBlock(byte[] hash) {
-        return data.stream().filter(b -> Arrays.equals(b.getHash(), hash)).findFirst().orElse(null);
+    public synchronized Block getBlock(byte[] hash) {
+        int position = hashIndex.find(hash);
+        return position == -1 ? null : getBlockAt(position);
+    }
+
+    /**
+     * Sucht die Blöcke, deren Hash mit einem bestimmten Präfix beginnt.
+     * Da nur ein eindeutiger Präfix einen Block bestimmt, wird nach dem zweiten Treffer nicht weiter gesucht.
+     *
+     * @param prefix Der Präfix des Hashes, höchstens 32 Bytes.
+     * @return Keiner, einer oder, sollte der Präfix mehrdeutig sein, zwei der passenden Blöcke.
+     */
+    public synchronized List<Block> getBlocksByPrefix(byte[] prefix) {
+        int[] positions = prefixIndex.find(prefix, 2);
+        List<Block> blocks = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            blocks.add(getBlockAt(position));
+        }
+        return blocks;
+    }
+
+    /**
+     * Gibt den Block auf einer bestimmten Höhe zurück. Die Höhe entspricht der Position in der Blockchain, der erste
+     * Block nach dem Genesisblock liegt auf Höhe {@code 0}.
+     * Da so meist die gesamte Blockchain der Reihe nach gelesen wird, werden gelesene Blöcke nicht in den
+     * Zwischenspeicher aufgenommen, um häufig verwendete Blöcke nicht zu verdrängen.
+     *
+     * @param height Die Höhe.
+     * @return Der Block oder {@code null}, sollte es keinen Block auf dieser Höhe geben.
+     */
+    public synchronized Block getBlockAtHeight(int height) {
+        if (height < 0 || height >= table.size()) return null;
+        Block b = unwritten.get(height);
+        if (b == null) b = cache.get(height);
+        return b == null ? readBlockAt(height) : b;
     }
 
     /**
@@ -129,42 +559,271 @@ public class Blockchain {
      * @param student Der gesuchte Schüler.
      * @return Die Blöcke des Schülers als Liste.
      */
-    public List<Block> getStudentBlocks(PublicKey student) {
-        return data.stream().filter(b -> b.getStudent().equals(student)).collect(Collectors.toList());
+    public synchronized List<Block> getStudentBlocks(PublicKey student) {
+        try {
+            return getStudentBlocks(CryptoUtils.calculateSha256(student.getEncoded()));
+        } catch (NoSuchAlgorithmException e) {
+            List<Block> blocks = new ArrayList<>();
+            for (int i = 0; i < table.size(); i++) {
+                if (getBlockAt(i).getStudent() == student || getBlockAt(i).getStudent().equals(student)) blocks.add(getBlockAt(i));
+            }
+            return blocks;
+        }
+    }
+
+    /**
+     * Gibt alle Blöcke eines Schülers zurück.
+     *
+     * @param fingerprint Der Sha-256 Hash des codierten Schlüssels des Schülers.
+     * @return Die Blöcke des Schülers als Liste.
+     */
+    public synchronized List<Block> getStudentBlocks(byte[] fingerprint) {
+        int[] positions = studentIndex.find(fingerprint);
+        List<Block> blocks = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            blocks.add(getBlockAt(position));
+        }
+        return blocks;
+    }
+
+    /**
+     * Gibt alle Blöcke einer Schule aus einem Bereich von Jahren zurück.
+     *
+     * @param schoolNumber Die Schulnummer.
+     * @param fromYear     Das erste Jahr (inklusive).
+     * @param toYear       Das letzte Jahr (inklusive).
+     * @return Die Blöcke in der Reihenfolge der Blockchain.
+     */
+    public synchronized List<Block> getSchoolBlocks(int schoolNumber, short fromYear, short toYear) {
+        int[] positions = schoolIndex.find(schoolNumber, fromYear, toYear);
+        List<Block> blocks = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            blocks.add(getBlockAt(position));
+        }
+        return blocks;
+    }
+
+    /**
+     * Gibt die Hashes aller Blöcke einer Schule aus einem Bereich von Jahren zurück, ohne die Blöcke zu lesen.
+     *
+     * @param schoolNumber Die Schulnummer.
+     * @param fromYear     Das erste Jahr (inklusive).
+     * @param toYear       Das letzte Jahr (inklusive).
+     * @return Die Blockhashes in der Reihenfolge der Blockchain.
+     */
+    public synchronized List<byte[]> getSchoolHashes(int schoolNumber, short fromYear, short toYear) {
+        int[] positions = schoolIndex.find(schoolNumber, fromYear, toYear);
+        List<byte[]> hashes = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            hashes.add(table.getHash(position));
+        }
+        return hashes;
+    }
+
+    /**
+     * Gibt die Statistik je Schule und Jahr zurück, ohne Blöcke zu lesen.
+     *
+     * @return Der aktuelle Stand, der sich nicht mehr verändert.
+     */
+    public synchronized ChainStatistics getStatistics() {
+        return statistics.getSnapshot();
+    }
+
+    /**
+     * Erzeugt einen Beweis, dass ein Block in der Blockchain enthalten ist.
+     *
+     * @param hash Der Hash des Blockes.
+     * @return Der Beweis über die aktuelle Blockchain oder {@code null}, sollte der Block nicht existieren.
+     */
+    public synchronized InclusionProof getProof(byte[] hash) {
+        int position = hashIndex.find(hash);
+        if (position == -1) return null;
+        return new InclusionProof(position, merkleTree.size(), merkleTree.getRoot(), merkleTree.getPath(position));
+    }
+
+    /**
+     * Getter für die Wurzel des Merkle-Baumes über alle Blockhashes.
+     *
+     * @return Die Wurzel.
+     */
+    public synchronized byte[] getMerkleRoot() {
+        return merkleTree.getRoot();
+    }
+
+    /**
+     * Prüft anhand des Bloom-Filters, ob ein Schüler Blöcke besitzen könnte.
+     * Solange der Filter noch nicht geladen wurde, wird kein Schüler ausgeschlossen.
+     *
+     * @param fingerprint Der Sha-256 Hash des codierten Schlüssels des Schülers.
+     * @return Gibt {@code false} zurück, wenn der Schüler sicher keine Blöcke besitzt.
+     */
+    public synchronized boolean mightContainStudent(byte[] fingerprint) {
+        return studentFilter == null || studentFilter.mightContain(fingerprint);
+    }
+
+    /**
+     * Hängt einen Block an die Tabelle an und trägt ihn in die Indizes ein.
+     * Besitzt der Schüler noch keine Blöcke, wird er außerdem in den Bloom-Filter eingetragen.
+     *
+     * @param entry Der Indexeintrag des Blockes.
+     * @return Die Position des Blockes.
+     */
+    private int add(IndexEntry entry) {
+        int position = table.add(entry);
+        hashIndex.put(entry.getHash(), position);
+        prefixIndex.add(entry.getHash(), position);
+        merkleTree.add(entry.getHash());
+        schoolIndex.add(entry.getSchoolNumber(), entry.getYear(), position);
+        statistics.add(entry, position);
+        if (studentIndex.add(entry.getStudentFingerprint(), position) && studentFilter != null) {
+            studentFilter.add(entry.getStudentFingerprint());
+            if (studentFilter.isFull()) rebuildStudentFilter(studentIndex.size() * 2);
+        }
+        return position;
+    }
+
+    /**
+     * Gibt zurück, ob alle Blöcke überprüft wurden und neue Blöcke angenommen werden.
+     *
+     * @return Gibt {@code false} zurück, solange die Überprüfung im Hintergrund läuft oder fehlgeschlagen ist.
+     */
+    public boolean isVerified() {
+        return verified;
+    }
+
+    /**
+     * Getter für die Anzahl der überprüften Blöcke.
+     *
+     * @return Die Anzahl der Blöcke, deren Signaturen bereits überprüft wurden.
+     */
+    public int getVerifiedHeight() {
+        return verifiedHeight;
+    }
+
+    /**
+     * Getter für die Höhe des ersten fehlerhaften Blockes.
+     *
+     * @return Die Höhe oder {@code -1}, sollte bei der Überprüfung im Hintergrund kein Fehler gefunden worden sein.
+     */
+    public int getInvalidHeight() {
+        return invalidHeight;
+    }
+
+    /**
+     * Gibt zurück, ob ein Block nicht geschrieben werden konnte. Die Blockchain nimmt danach keine Blöcke mehr an.
+     *
+     * @return Gibt {@code true} zurück, wenn ein Schreibfehler aufgetreten ist.
+     */
+    public boolean hasWriteFailed() {
+        return writeFailed;
+    }
+
+    /**
+     * Getter für den Zwischenspeicher der Blöcke, z.B. um dessen Zähler abzufragen.
+     *
+     * @return Der Zwischenspeicher.
+     */
+    public BlockCache getBlockCache() {
+        return cache;
+    }
+
+    /**
+     * Getter für die Anzahl der Blöcke.
+     *
+     * @return Die Anzahl der Blöcke in der Blockchain.
+     */
+    public synchronized int getHeight() {
+        return table.size();
     }
 
     /**
      * Überprüft einen Block und fügt diesen zur Blockchain hinzu.
+     * Der Block wird im Hintergrund geschrieben. Die Methode kehrt erst zurück, wenn der Block gemäß der
+     * {@link FsyncPolicy} bestätigt wurde; währenddessen können andere Threads bereits weitere Blöcke einreichen,
+     * die dann gemeinsam geschrieben werden. Solange nicht alle Blöcke überprüft wurden ({@link #isVerified()}),
+     * werden keine Blöcke angenommen. Der Checkpoint wird erst gespeichert, nachdem der Block bestätigt wurde.
+     * <p>
+     * Schlägt das Schreiben fehl, bleibt der Block im Speicher, die Blockchain nimmt aber keine weiteren Blöcke mehr
+     * an ({@link #hasWriteFailed()}). Da der Writer nach einem Fehler ohnehin nichts mehr schreibt, kann erst ein
+     * Neustart den Zustand wiederherstellen; dabei wird das Ende der Dateien wie nach einem Absturz behandelt.
      *
      * @param block Der Block.
      * @return Gibt {@code true} zurück, wenn der Block valide ist und geschrieben werden konnte.
      */
     public boolean verifyAndAdd(byte[] block) {
+        if (!verified || writeFailed) return false;
+        //Die Signaturen werden außerhalb der Sperre geprüft, damit Leser während der Überprüfung nicht warten müssen
         Block b;
         try {
             b = new Block(block);
-            if (!b.verify(getLastHash())) return false;
-        } catch (InvalidKeySpecException | NoSuchAlgorithmException | ArrayIndexOutOfBoundsException e) {
+            if (!b.verifySignatures()) return false;
+        } catch (InvalidKeySpecException | NoSuchAlgorithmException | IndexOutOfBoundsException e) {
             return false;
         }
+        long ticket;
+        int position;
+        synchronized (this) {
+            //Das Ende der Blockchain kann sich inzwischen verschoben haben
+            if (!verified || writeFailed || !b.follows(lastHash())) return false;
+            IndexEntry entry;
+            byte[] digest;
+            try {
+                digest = Checkpoint.extend(runningDigest, b.getHash());
+            } catch (NoSuchAlgorithmException e) {
+                return false;
+            }
+            try {
+                long offset = log.append(b.getBuffer(), b.getHash());
+                ticket = log.getLastSequence();
+                entry = IndexEntry.of(log.getActiveSegment(), offset, b);
+            } catch (IOException e) {
+                writeFailed = true;
+                System.err.println("Fehler beim Schreiben der Blockchain: " + e.getLocalizedMessage());
+                return false;
+            }
+            if (log.isPersistent()) {
+                try {
+                    index.append(entry);
+                } catch (IOException e) {
+                    //der Indexdatei würde danach ein Eintrag fehlen, sie wird daher verworfen und beim nächsten Start neu erzeugt
+                    System.err.println("Fehler beim Schreiben der Indexdatei: " + e.getLocalizedMessage());
+                    index.discard();
+                }
+            }
+            position = add(entry);
+            unwritten.put(position, b);
+            unwrittenDigests.put(position, digest);
+            runningDigest = digest;
+        }
         try {
-            writeToFile(block);
+            log.await(ticket);
         } catch (IOException e) {
+            writeFailed = true;
+            System.err.println("Fehler beim Schreiben der Blockchain: " + e.getLocalizedMessage());
             return false;
         }
-        data.add(b);
+        synchronized (this) {
+            unwritten.remove(position);
+            byte[] digest = unwrittenDigests.remove(position);
+            //Bestätigungen erfolgen in der Reihenfolge der Blöcke, bis hierhin ist also alles geschrieben
+            if (position + 1 - checkpointHeight >= CHECKPOINT_INTERVAL)
+                saveCheckpoint(position + 1, table.getHash(position), digest);
+        }
         return true;
     }
 
     /**
-     * Schreibt einen Block in die Blockchaindatei.
+     * Schreibt alle ausstehenden Blöcke, synchronisiert sie und schließt die Dateien der Blockchain.
      *
-     * @param block Der Block, der geschrieben werden soll.
-     * @throws IOException sollte der Block nicht geschrieben werden können.
+     * @throws IOException sollte dabei ein Fehler auftreten.
      */
-    private void writeToFile(byte[] block) throws IOException {
-        DataOutputStream out = new DataOutputStream(new FileOutputStream(chain, true));
-        out.write(ByteUtils.toBytes(block.length));
-        out.write(block);
+    @Override
+    public synchronized void close() throws IOException {
+        if (studentFilter != null) saveStudentFilter();
+        try {
+            log.close();
+        } finally {
+            index.close();
+        }
     }
 }
@@ -0,0 +1,264 @@
+package data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * Überprüft eine Blockchain, ohne einen Server zu starten.
+ * <p>
+ * Die Blockchain wird nur zum Lesen geöffnet und dabei nicht verändert, ein unvollständiger Datensatz am Ende gilt also
+ * als Fehler. Die Blöcke werden einmal der Reihe nach gelesen und in Stapeln von {@link #BATCH_SIZE} Blöcken mit einem
+ * {@link ChainVerifier} parallel überprüft, also Verkettung und beide Signaturen. Danach wird ein Stapel verworfen,
+ * sodass der Speicherbedarf nicht von der Länge der Blockchain abhängt. Die Überprüfung endet beim ersten Fehler.
+ * <p>
+ * Auf Wunsch werden dabei die Indexdatei und der Checkpoint neben der Blockchain neu geschrieben oder die korrekten Blöcke
+ * bis zum ersten Fehler in eine neue Blockchain kopiert, deren Indexdatei und Checkpoint ebenfalls geschrieben werden.
+ * Der Bloom-Filter über die Schüler wird beim nächsten Start aus dem Index aufgebaut.
+ */
+public class ChainAuditor {
+    /**
+     * Die Anzahl der Blöcke, die gemeinsam überprüft werden.
+     */
+    private static final int BATCH_SIZE = 4096;
+    /**
+     * Die Datei bzw. das Verzeichnis der zu überprüfenden Blockchain.
+     */
+    private final File source;
+    /**
+     * Die Anzahl der Threads.
+     */
+    private final int threads;
+    /**
+     * Das Ziel der Kopie oder {@code null}, sollte nicht kopiert werden.
+     */
+    private File copy;
+    /**
+     * Die maximale Größe eines Segmentes der Kopie oder {@code 0} für eine einzelne Datei.
+     */
+    private long copySegmentSize = 0;
+    /**
+     * Ob Indexdatei und Checkpoint der überprüften Blockchain neu geschrieben werden.
+     */
+    private boolean reindex = false;
+    //Zustand während der Überprüfung
+    private final ByteBuffer[] blocks = new ByteBuffer[BATCH_SIZE];
+    private final byte[][] hashes = new byte[BATCH_SIZE][];
+    private final byte[][] previousHashes = new byte[BATCH_SIZE][];
+    private final int[] segments = new int[BATCH_SIZE];
+    private final long[] offsets = new long[BATCH_SIZE];
+    private final IndexEntry[] entries = new IndexEntry[BATCH_SIZE];
+    private int pending;
+    private int height;
+    private long bytes;
+    private byte[] lastHash;
+    private byte[] lastValidHash;
+    private byte[] runningDigest;
+    private ChainLog target;
+    private ChainIndex.Rewrite rewrite;
+    private AuditReport failure;
+
+    /**
+     * Erzeugt ein neues Objekt.
+     *
+     * @param source  Die Datei bzw. das Verzeichnis der Blockchain.
+     * @param threads Die Anzahl der Threads für die Überprüfung der Signaturen.
+     */
+    public ChainAuditor(File source, int threads) {
+        this.source = source;
+        this.threads = threads;
+    }
+
+    /**
+     * Legt fest, dass die korrekten Blöcke bis zum ersten Fehler in eine neue Blockchain kopiert werden.
+     *
+     * @param target      Die Datei bzw. das Verzeichnis der neuen Blockchain. Darf noch nicht existieren.
+     * @param segmentSize Die maximale Größe eines Segmentes der neuen Blockchain oder {@code 0} für eine einzelne Datei.
+     */
+    public void setCopy(File target, long segmentSize) {
+        this.copy = target;
+        this.copySegmentSize = segmentSize;
+    }
+
+    /**
+     * Legt fest, ob Indexdatei und Checkpoint der überprüften Blockchain neu geschrieben werden.
+     * Dies geschieht nur, wenn alle Blöcke korrekt sind.
+     *
+     * @param reindex {@code true}, um die Dateien neu zu schreiben.
+     */
+    public void setReindex(boolean reindex) {
+        this.reindex = reindex;
+    }
+
+    /**
+     * Überprüft die Blockchain.
+     *
+     * @return Das Ergebnis der Überprüfung.
+     * @throws IOException sollte die Blockchain nicht geöffnet oder die Kopie bzw. Indexdatei nicht geschrieben werden können.
+     */
+    public AuditReport run() throws IOException {
+        if (!source.exists())
+            throw new IOException("Source does not exist!");
+        if (copy != null && copy.exists())
+            throw new IOException("Target already exists!");
+        ChainConfig sourceConfig = new ChainConfig();
+        sourceConfig.setSegmentSize(source.isDirectory() ? ChainLog.DEFAULT_SEGMENT_SIZE : 0);
+        //die Blöcke werden nur einmal angesehen und sollen daher nicht in den Heap kopiert werden
+        sourceConfig.setMode(StorageMode.MAPPED);
+        ChainConfig targetConfig = new ChainConfig();
+        targetConfig.setSegmentSize(copySegmentSize);
+        //synchronisiert wird einmalig beim Schließen
+        targetConfig.setFsyncPolicy(FsyncPolicy.NONE);
+        File output = copy != null ? copy : reindex ? source : null;
+        pending = 0;
+        height = 0;
+        bytes = 0;
+        lastHash = Block.getGenesisHash();
+        lastValidHash = lastHash;
+        runningDigest = Checkpoint.initialDigest();
+        failure = null;
+        long start = System.nanoTime();
+        try (ChainLog log = ChainLog.openReadOnly(source, sourceConfig);
+             ChainLog target = copy == null ? null : new ChainLog(copy, targetConfig);
+             ChainIndex.Rewrite rewrite = output == null ? null : new ChainIndex(new File(output.getPath() + ".idx")).beginRewrite()) {
+            this.target = target;
+            this.rewrite = rewrite;
+            MessageDigest md = MessageDigest.getInstance("Sha-256");
+            try {
+                log.read((block, segment, offset) -> {
+                    md.update(block.duplicate());
+                    byte[] hash = md.digest();
+                    blocks[pending] = block;
+                    hashes[pending] = hash;
+                    previousHashes[pending] = lastHash;
+                    segments[pending] = segment;
+                    offsets[pending] = offset;
+                    lastHash = hash;
+                    if (++pending == BATCH_SIZE && !flush()) throw new AuditStoppedException();
+                    return hash;
+                });
+                flush();
+            } catch (AuditStoppedException ignored) {
+                //der erste Fehler wurde bereits festgehalten
+            } catch (CorruptedRecordException e) {
+                if (flush())
+                    failure = new AuditReport(height, bytes, 0, e.getSegment(), e.getOffset(), e.getMessage());
+            } catch (IOException e) {
+                //die bis dahin gelesenen Blöcke werden noch überprüft, ein Fehler darunter liegt vor diesem
+                int segment = pending > 0 ? segments[pending - 1] : -1;
+                if (flush())
+                    failure = new AuditReport(height, bytes, 0, segment, -1, e.getMessage());
+            }
+            if (rewrite != null && (copy != null || failure == null)) {
+                rewrite.commit();
+                new Checkpoint(height, lastValidHash, runningDigest)
+                        .save(new File(output.getPath() + ".ckpt"));
+            }
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IOException("Chain could not be audited!", e);
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        } finally {
+            this.target = null;
+            this.rewrite = null;
+        }
+        long nanos = System.nanoTime() - start;
+        if (failure == null) return new AuditReport(height, bytes, nanos, -1, -1, null);
+        return new AuditReport(height, bytes, nanos, failure.getSegment(), failure.getOffset(), failure.getReason());
+    }
+
+    /**
+     * Überprüft die ausstehenden Blöcke und übernimmt die korrekten davon in Kopie und Indexdatei.
+     *
+     * @return Gibt {@code false} zurück, wenn ein fehlerhafter Block gefunden wurde.
+     * @throws IllegalStateException mit einer {@code IOException} als Ursache, sollte nicht geschrieben werden können.
+     */
+    private boolean flush() {
+        ChainVerifier verifier = new ChainVerifier(this::parse, i -> previousHashes[i], threads);
+        int invalid = verifier.verify(0, pending);
+        int valid = invalid == -1 ? pending : invalid;
+        try {
+            for (int i = 0; i < valid; i++) {
+                accept(i);
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (invalid != -1)
+            failure = new AuditReport(height, bytes, 0, segments[invalid], offsets[invalid], describe(invalid));
+        for (int i = 0; i < pending; i++) {
+            blocks[i] = null;
+            entries[i] = null;
+        }
+        pending = 0;
+        return invalid == -1;
+    }
+
+    /**
+     * Parsed einen ausstehenden Block und merkt sich dessen Indexeintrag. Wird von den Threads des Verifiers aufgerufen.
+     *
+     * @param i Die Stelle im Stapel.
+     * @return Der Block.
+     * @throws IllegalStateException sollte der Block nicht geparsed werden können.
+     */
+    private Block parse(int i) {
+        try {
+            Block b = new Block(blocks[i]);
+            entries[i] = IndexEntry.of(segments[i], offsets[i], b);
+            return b;
+        } catch (InvalidKeySpecException | NoSuchAlgorithmException | RuntimeException e) {
+            throw new IllegalStateException("Corrupted block!", e);
+        }
+    }
+
+    /**
+     * Übernimmt einen überprüften Block in Kopie, Indexdatei und Checkpoint.
+     *
+     * @param i Die Stelle im Stapel.
+     * @throws IOException             sollte nicht geschrieben werden können.
+     * @throws NoSuchAlgorithmException sollte Sha-256 nicht unterstützt werden.
+     */
+    private void accept(int i) throws IOException, NoSuchAlgorithmException {
+        IndexEntry entry = entries[i];
+        if (target != null) {
+            long offset = target.append(blocks[i], entry.getHash());
+            entry = new IndexEntry(target.getActiveSegment(), offset, entry.getLength(), entry.getHash(),
+                    entry.getStudentFingerprint(), entry.getYear(), entry.getSchoolNumber());
+        }
+        if (rewrite != null) rewrite.add(entry);
+        runningDigest = Checkpoint.extend(runningDigest, hashes[i]);
+        lastValidHash = hashes[i];
+        bytes += entry.getLength();
+        height++;
+    }
+
+    /**
+     * Beschreibt, weshalb ein ausstehender Block fehlerhaft ist.
+     *
+     * @param i Die Stelle im Stapel.
+     * @return Die Beschreibung.
+     */
+    private String describe(int i) {
+        if (entries[i] == null) return "Der Block kann nicht geparsed werden.";
+        ByteBuffer previous = blocks[i].duplicate();
+        previous.limit(previous.position() + 34).position(previous.position() + 2);
+        if (!previous.equals(ByteBuffer.wrap(previousHashes[i])))
+            return "Der Block verweist nicht auf den Hash seines Vorgängers.";
+        return "Eine Signatur des Blockes ist ungültig.";
+    }
+
+    /**
+     * Bricht das Lesen der Blockchain nach dem ersten fehlerhaften Block ab.
+     */
+    private static class AuditStoppedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        AuditStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package data;
+
+/**
+ * Einstellungen, mit denen eine Blockchain geladen und betrieben wird.
+ */
+public class ChainConfig {
+    /**
+     * Wie die Blöcke im Speicher gehalten werden.
+     */
+    private StorageMode mode = StorageMode.HEAP;
+    /**
+     * Die maximale Größe eines Segmentes oder {@code 0} für eine einzelne Datei.
+     */
+    private long segmentSize = 0;
+    /**
+     * Ob beim Start alle Signaturen unabhängig vom Checkpoint überprüft werden.
+     */
+    private boolean fullVerify = false;
+    /**
+     * Die Anzahl der Threads, mit denen die Signaturen beim Start überprüft werden.
+     */
+    private int verifyThreads = Runtime.getRuntime().availableProcessors();
+    /**
+     * Ob die Signaturen beim Start im Hintergrund überprüft werden, während bereits Anfragen beantwortet werden.
+     */
+    private boolean lazyVerify = false;
+    /**
+     * Die maximale Größe des Zwischenspeichers für geparste Blöcke in Bytes.
+     */
+    private long blockCacheSize = 64L << 20;
+    /**
+     * Die Anzahl der neuesten Segmente, die nicht komprimiert werden, oder {@code 0}, um gar nicht zu komprimieren.
+     */
+    private int uncompressedSegments = 0;
+    /**
+     * Wann neue Blöcke auf die Festplatte synchronisiert werden.
+     */
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.GROUP;
+    /**
+     * Das Intervall für {@link FsyncPolicy#INTERVAL} in Millisekunden.
+     */
+    private long fsyncInterval = 1000;
+    /**
+     * Die Fehlerwahrscheinlichkeit des Bloom-Filters über die Schüler.
+     */
+    private double studentFilterFpp = 0.01;
+
+    /**
+     * Getter für die Art der Speicherung.
+     *
+     * @return Wie die Blöcke im Speicher gehalten werden.
+     */
+    public StorageMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Setter für die Art der Speicherung.
+     *
+     * @param mode Wie die Blöcke im Speicher gehalten werden sollen.
+     */
+    public void setMode(StorageMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Getter für die Segmentgröße.
+     *
+     * @return Die maximale Größe eines Segmentes in Bytes oder {@code 0} für eine einzelne Datei.
+     */
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Setter für die Segmentgröße.
+     *
+     * @param segmentSize Die maximale Größe eines Segmentes in Bytes oder {@code 0} für eine einzelne Datei.
+     */
+    public void setSegmentSize(long segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Getter für die vollständige Überprüfung.
+     *
+     * @return Gibt {@code true} zurück, wenn beim Start alle Signaturen überprüft werden.
+     */
+    public boolean isFullVerify() {
+        return fullVerify;
+    }
+
+    /**
+     * Setter für die vollständige Überprüfung.
+     *
+     * @param fullVerify Ob beim Start alle Signaturen unabhängig vom Checkpoint überprüft werden sollen.
+     */
+    public void setFullVerify(boolean fullVerify) {
+        this.fullVerify = fullVerify;
+    }
+
+    /**
+     * Getter für die Anzahl der Threads zur Überprüfung.
+     *
+     * @return Die Anzahl der Threads, mit denen die Signaturen beim Start überprüft werden.
+     */
+    public int getVerifyThreads() {
+        return verifyThreads;
+    }
+
+    /**
+     * Setter für die Anzahl der Threads zur Überprüfung.
+     *
+     * @param verifyThreads Die Anzahl der Threads, mit denen die Signaturen beim Start überprüft werden sollen.
+     */
+    public void setVerifyThreads(int verifyThreads) {
+        this.verifyThreads = Math.max(1, verifyThreads);
+    }
+
+    /**
+     * Getter für die Überprüfung im Hintergrund.
+     *
+     * @return Gibt {@code true} zurück, wenn die Signaturen beim Start im Hintergrund überprüft werden.
+     */
+    public boolean isLazyVerify() {
+        return lazyVerify;
+    }
+
+    /**
+     * Setter für die Überprüfung im Hintergrund. Bis die Überprüfung abgeschlossen ist, werden nur lesende Anfragen
+     * beantwortet und keine neuen Blöcke angenommen.
+     *
+     * @param lazyVerify Ob die Signaturen beim Start im Hintergrund überprüft werden sollen.
+     */
+    public void setLazyVerify(boolean lazyVerify) {
+        this.lazyVerify = lazyVerify;
+    }
+
+    /**
+     * Getter für die Größe des Zwischenspeichers.
+     *
+     * @return Die maximale Größe des Zwischenspeichers für geparste Blöcke in Bytes.
+     */
+    public long getBlockCacheSize() {
+        return blockCacheSize;
+    }
+
+    /**
+     * Setter für die Größe des Zwischenspeichers.
+     *
+     * @param blockCacheSize Die maximale Größe des Zwischenspeichers für geparste Blöcke in Bytes, {@code 0} schaltet ihn ab.
+     */
+    public void setBlockCacheSize(long blockCacheSize) {
+        this.blockCacheSize = Math.max(0, blockCacheSize);
+    }
+
+    /**
+     * Getter für die Anzahl der unkomprimierten Segmente.
+     *
+     * @return Die Anzahl der neuesten Segmente, die nicht komprimiert werden, oder {@code 0}, sollte gar nicht
+     * komprimiert werden.
+     */
+    public int getUncompressedSegments() {
+        return uncompressedSegments;
+    }
+
+    /**
+     * Setter für die Anzahl der unkomprimierten Segmente. Ältere versiegelte Segmente werden beim Laden komprimiert.
+     * Das aktive Segment wird nie komprimiert.
+     *
+     * @param uncompressedSegments Die Anzahl der neuesten Segmente, die nicht komprimiert werden sollen,
+     *                             oder {@code 0}, um gar nicht zu komprimieren.
+     */
+    public void setUncompressedSegments(int uncompressedSegments) {
+        this.uncompressedSegments = Math.max(0, uncompressedSegments);
+    }
+
+    /**
+     * Getter für die Synchronisationsstrategie.
+     *
+     * @return Wann neue Blöcke auf die Festplatte synchronisiert werden.
+     */
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * Setter für die Synchronisationsstrategie.
+     *
+     * @param fsyncPolicy Wann neue Blöcke auf die Festplatte synchronisiert werden sollen.
+     */
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    /**
+     * Getter für das Synchronisationsintervall.
+     *
+     * @return Das Intervall für {@link FsyncPolicy#INTERVAL} in Millisekunden.
+     */
+    public long getFsyncInterval() {
+        return fsyncInterval;
+    }
+
+    /**
+     * Setter für das Synchronisationsintervall.
+     *
+     * @param fsyncInterval Das Intervall für {@link FsyncPolicy#INTERVAL} in Millisekunden.
+     */
+    public void setFsyncInterval(long fsyncInterval) {
+        this.fsyncInterval = Math.max(1, fsyncInterval);
+    }
+
+    /**
+     * Getter für die Fehlerwahrscheinlichkeit des Bloom-Filters über die Schüler.
+     *
+     * @return Die Wahrscheinlichkeit, mit der ein unbekannter Schüler nicht bereits am Filter abgewiesen wird.
+     */
+    public double getStudentFilterFpp() {
+        return studentFilterFpp;
+    }
+
+    /**
+     * Setter für die Fehlerwahrscheinlichkeit des Bloom-Filters über die Schüler.
+     * Kleinere Werte vergrößern den Filter, der etwa {@code -1,44 * log2(p)} Bits je Schüler belegt.
+     *
+     * @param studentFilterFpp Die Wahrscheinlichkeit zwischen {@code 0} und {@code 0,5}.
+     */
+    public void setStudentFilterFpp(double studentFilterFpp) {
+        this.studentFilterFpp = Math.min(0.5, Math.max(1e-9, studentFilterFpp));
+    }
+}
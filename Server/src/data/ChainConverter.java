@@ -0,0 +1,57 @@
+package data;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * Schreibt eine Blockchain in das aktuelle Dateiformat um, z.B. eine Blockchain aus Version 1 ohne Prüfsummen.
+ * Die Blöcke werden dabei nicht geparst oder überprüft, dies geschieht beim nächsten Laden der Blockchain. Die bestehende
+ * Blockchain wird nur gelesen; ein unvollständiger Datensatz an ihrem Ende bricht die Umwandlung ab.
+ */
+public class ChainConverter {
+    /**
+     * Schreibt alle Blöcke einer Blockchain in eine neue Blockchain.
+     *
+     * @param source      Die Datei bzw. das Verzeichnis der bestehenden Blockchain.
+     * @param target      Die Datei bzw. das Verzeichnis der neuen Blockchain. Darf noch nicht existieren.
+     * @param segmentSize Die maximale Größe eines Segmentes der neuen Blockchain oder {@code 0} für eine einzelne Datei.
+     * @return Die Anzahl der übertragenen Blöcke.
+     * @throws IOException sollte eine der Blockchains nicht gelesen bzw. geschrieben werden können.
+     */
+    public static int convert(File source, File target, long segmentSize) throws IOException {
+        if (!source.exists())
+            throw new IOException("Source does not exist!");
+        if (target.exists())
+            throw new IOException("Target already exists!");
+        ChainConfig sourceConfig = new ChainConfig();
+        sourceConfig.setSegmentSize(source.isDirectory() ? ChainLog.DEFAULT_SEGMENT_SIZE : 0);
+        ChainConfig targetConfig = new ChainConfig();
+        targetConfig.setSegmentSize(segmentSize);
+        //synchronisiert wird einmalig beim Schließen
+        targetConfig.setFsyncPolicy(FsyncPolicy.NONE);
+        int[] count = {0};
+        try (ChainLog from = ChainLog.openReadOnly(source, sourceConfig); ChainLog to = new ChainLog(target, targetConfig)) {
+            MessageDigest md = MessageDigest.getInstance("Sha-256");
+            from.read((block, segment, offset) -> {
+                md.update(block.duplicate());
+                byte[] hash = md.digest();
+                try {
+                    to.append(block, hash);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                count[0]++;
+                return hash;
+            });
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IOException("Chain could not be converted!", e);
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+        return count[0];
+    }
+}
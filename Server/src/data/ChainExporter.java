@@ -0,0 +1,276 @@
+package data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+
+/**
+ * Schreibt die Metadaten aller Blöcke einer Blockchain für Auswertungen in eine Datei.
+ * <p>
+ * Die Blockchain wird dabei nur zum Lesen geöffnet und einmal der Reihe nach gelesen, ohne die Blöcke zu parsen oder zu
+ * verifizieren. Ein unvollständiger Datensatz am Ende bricht den Export ab, statt abgeschnitten zu werden. Je Block werden
+ * Höhe, Hash, Größe, Jahr, Schulnummer, Anzahl der Besitzer und Größe des verschlüsselten Teils ausgegeben. Die Noten
+ * liegen im verschlüsselten Teil und können daher nicht gezählt werden.
+ * <p>
+ * Im Format {@link ExportFormat#COLUMNAR} werden höchstens {@link #GROUP_SIZE} Blöcke zu einer Gruppe zusammengefasst,
+ * in der jedes Feld als Array hintereinander steht, sodass der Speicherbedarf nicht von der Länge der Blockchain abhängt.
+ * Alle Zahlen sind Big-Endian.
+ * <p>
+ * Aufbau: {@code [long Magic][int Version][int Gruppengröße]}, je Gruppe {@code [int Anzahl][int[] Höhe][byte[32][] Hash]
+ * [int[] Größe][short[] Jahr][int[] Schulnummer][short[] Besitzer][int[] verschlüsselte Größe]}, zum Abschluss
+ * {@code [int 0][long Anzahl aller Blöcke]}.
+ */
+public class ChainExporter {
+    /**
+     * Kennzeichnet eine exportierte Datei im Spaltenformat.
+     */
+    private static final long MAGIC = 0x5A45554745585021L;
+    /**
+     * Die Version des Spaltenformates.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Die maximale Anzahl an Blöcken je Gruppe.
+     */
+    static final int GROUP_SIZE = 1 << 16;
+
+    /**
+     * Schreibt die Metadaten aller Blöcke einer Blockchain in eine Datei.
+     *
+     * @param source Die Datei bzw. das Verzeichnis der Blockchain.
+     * @param target Die Zieldatei. Darf noch nicht existieren.
+     * @param format Das Format der Zieldatei.
+     * @return Die Anzahl der exportierten Blöcke.
+     * @throws IOException sollte die Blockchain nicht gelesen oder die Zieldatei nicht geschrieben werden können.
+     */
+    public static int export(File source, File target, ExportFormat format) throws IOException {
+        if (!source.exists())
+            throw new IOException("Source does not exist!");
+        if (target.exists())
+            throw new IOException("Target already exists!");
+        ChainConfig config = new ChainConfig();
+        config.setSegmentSize(source.isDirectory() ? ChainLog.DEFAULT_SEGMENT_SIZE : 0);
+        //die Blöcke werden nur einmal angesehen und sollen daher nicht in den Heap kopiert werden
+        config.setMode(StorageMode.MAPPED);
+        int[] count = {0};
+        try (ChainLog log = ChainLog.openReadOnly(source, config);
+             MetadataSink sink = format == ExportFormat.CSV ? new CsvSink(target) : new ColumnarSink(target)) {
+            MessageDigest md = MessageDigest.getInstance("Sha-256");
+            log.read((block, segment, offset) -> {
+                md.update(block.duplicate());
+                byte[] hash = md.digest();
+                try {
+                    write(sink, count[0], hash, block.slice());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                count[0]++;
+                return hash;
+            });
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IOException("Chain could not be exported!", e);
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+        return count[0];
+    }
+
+    /**
+     * Liest die Metadaten aus den Rohdaten eines Blockes, ohne Schlüssel zu decodieren, und gibt sie weiter.
+     *
+     * @param sink   Das Ziel.
+     * @param height Die Höhe des Blockes.
+     * @param hash   Der Hash des Blockes.
+     * @param raw    Die Rohdaten, beginnend bei Position {@code 0}.
+     * @throws IOException sollte der Block fehlerhaft sein oder nicht geschrieben werden können.
+     */
+    private static void write(MetadataSink sink, int height, byte[] hash, ByteBuffer raw) throws IOException {
+        try {
+            //Version und vorheriger Hash, danach Schüler- und Schulleitungsschlüssel
+            int position = 2 + 32;
+            position += 2 + raw.getShort(position);
+            position += 2 + raw.getShort(position);
+            short year = raw.getShort(position);
+            int schoolNumber = raw.getInt(position + 2);
+            position += 6;
+            short owners = raw.getShort(position);
+            position += 2 + owners * 256 + 2;
+            //Klassenleitungsschlüssel
+            position += 2 + raw.getShort(position);
+            int encryptedSize = raw.getInt(position);
+            sink.add(height, hash, raw.limit(), year, schoolNumber, owners, encryptedSize);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Block at height " + height + " is malformed!", e);
+        }
+    }
+
+    /**
+     * Nimmt die Metadaten der Blöcke der Reihe nach entgegen.
+     */
+    private interface MetadataSink extends AutoCloseable {
+        /**
+         * Schreibt die Metadaten eines Blockes.
+         *
+         * @param height        Die Höhe.
+         * @param hash          Der Blockhash.
+         * @param size          Die Größe in Bytes.
+         * @param year          Das Jahr.
+         * @param schoolNumber  Die Schulnummer.
+         * @param owners        Die Anzahl der Besitzer.
+         * @param encryptedSize Die Größe des verschlüsselten Teils in Bytes.
+         * @throws IOException sollte nicht geschrieben werden können.
+         */
+        void add(int height, byte[] hash, int size, short year, int schoolNumber, short owners, int encryptedSize) throws IOException;
+
+        /**
+         * Schreibt alle ausstehenden Daten und schließt die Datei.
+         *
+         * @throws IOException sollte nicht geschrieben werden können.
+         */
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Schreibt die Metadaten im Spaltenformat.
+     */
+    private static class ColumnarSink implements MetadataSink {
+        /**
+         * Die Zieldatei.
+         */
+        private final FileChannel channel;
+        /**
+         * Die Spalten der aktuellen Gruppe in der Reihenfolge, in der sie geschrieben werden.
+         */
+        private final ByteBuffer heights = ByteBuffer.allocate(4 * GROUP_SIZE);
+        private final ByteBuffer hashes = ByteBuffer.allocate(32 * GROUP_SIZE);
+        private final ByteBuffer sizes = ByteBuffer.allocate(4 * GROUP_SIZE);
+        private final ByteBuffer years = ByteBuffer.allocate(2 * GROUP_SIZE);
+        private final ByteBuffer schoolNumbers = ByteBuffer.allocate(4 * GROUP_SIZE);
+        private final ByteBuffer owners = ByteBuffer.allocate(2 * GROUP_SIZE);
+        private final ByteBuffer encryptedSizes = ByteBuffer.allocate(4 * GROUP_SIZE);
+        /**
+         * Die Anzahl der Blöcke in der aktuellen Gruppe.
+         */
+        private int rows = 0;
+        /**
+         * Die Anzahl aller geschriebenen Blöcke.
+         */
+        private long total = 0;
+
+        /**
+         * Legt die Zieldatei an und schreibt den Kopf.
+         *
+         * @param target Die Zieldatei.
+         * @throws IOException sollte die Datei nicht angelegt werden können.
+         */
+        ColumnarSink(File target) throws IOException {
+            channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(16).putLong(MAGIC).putInt(VERSION).putInt(GROUP_SIZE);
+            header.flip();
+            writeFully(header);
+        }
+
+        @Override
+        public void add(int height, byte[] hash, int size, short year, int schoolNumber, short owners, int encryptedSize) throws IOException {
+            heights.putInt(height);
+            hashes.put(hash);
+            sizes.putInt(size);
+            years.putShort(year);
+            schoolNumbers.putInt(schoolNumber);
+            this.owners.putShort(owners);
+            encryptedSizes.putInt(encryptedSize);
+            if (++rows == GROUP_SIZE) flush();
+        }
+
+        /**
+         * Schreibt die aktuelle Gruppe, sofern sie Blöcke enthält.
+         *
+         * @throws IOException sollte nicht geschrieben werden können.
+         */
+        private void flush() throws IOException {
+            if (rows == 0) return;
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(rows);
+            ByteBuffer[] group = {count, heights, hashes, sizes, years, schoolNumbers, owners, encryptedSizes};
+            for (ByteBuffer column : group) {
+                column.flip();
+            }
+            while (group[group.length - 1].hasRemaining()) {
+                channel.write(group);
+            }
+            for (ByteBuffer column : group) {
+                column.clear();
+            }
+            total += rows;
+            rows = 0;
+        }
+
+        /**
+         * Schreibt einen Buffer vollständig.
+         *
+         * @param buffer Die Daten zwischen Position und Limit.
+         * @throws IOException sollte nicht geschrieben werden können.
+         */
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                ByteBuffer end = ByteBuffer.allocate(12).putInt(0).putLong(total);
+                end.flip();
+                writeFully(end);
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Schreibt die Metadaten als CSV, die Hashes in Base64 wie in der Ausgabe des Clients.
+     */
+    private static class CsvSink implements MetadataSink {
+        /**
+         * Die Zieldatei.
+         */
+        private final Writer out;
+        /**
+         * Codiert die Hashes.
+         */
+        private final Base64.Encoder encoder = Base64.getEncoder();
+
+        /**
+         * Legt die Zieldatei an und schreibt die Kopfzeile.
+         *
+         * @param target Die Zieldatei.
+         * @throws IOException sollte die Datei nicht angelegt werden können.
+         */
+        CsvSink(File target) throws IOException {
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), StandardCharsets.UTF_8), 1 << 16);
+            out.write("height,hash,size,year,school_number,owners,encrypted_size\n");
+        }
+
+        @Override
+        public void add(int height, byte[] hash, int size, short year, int schoolNumber, short owners, int encryptedSize) throws IOException {
+            out.write(height + "," + encoder.encodeToString(hash) + "," + size + "," + year + "," + schoolNumber + ","
+                    + owners + "," + encryptedSize + "\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package data;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Die Indexdatei neben der Blockchain. Sie enthält für jeden Block einen {@link IndexEntry},
+ * sodass beim Start weder gelesen noch geparsed werden muss, um die Blöcke zu finden.
+ * <p>
+ * Aufbau: {@code [long Magic][int Version]} gefolgt von Einträgen fester Größe
+ * {@code [int Segment][long Position][int Länge][32 Byte Hash][32 Byte Fingerabdruck][short Jahr][int Schulnummer]}.
+ * Indexdateien älterer Versionen werden nicht gelesen, sondern beim Start neu erzeugt.
+ */
+class ChainIndex implements AutoCloseable {
+    /**
+     * Kennzeichnet eine Indexdatei.
+     */
+    private static final long MAGIC = 0x5A45554749445821L;
+    /**
+     * Die Version des Dateiformates.
+     */
+    private static final int VERSION = 2;
+    /**
+     * Die Größe des Dateikopfes.
+     */
+    private static final int HEADER_SIZE = 12;
+    /**
+     * Die Größe eines Eintrages.
+     */
+    private static final int ENTRY_SIZE = 4 + 8 + 4 + 32 + 32 + 2 + 4;
+    /**
+     * Die Indexdatei.
+     */
+    private final File file;
+    /**
+     * Die zum Anhängen geöffnete Indexdatei oder {@code null}, sollte sie noch nicht geöffnet sein.
+     */
+    private DataOutputStream appender;
+    /**
+     * Ob die Indexdatei nach einem Fehler beim Anhängen verworfen wurde. Bis sie neu geschrieben wird, wird nichts mehr
+     * angehängt.
+     */
+    private boolean discarded = false;
+
+    /**
+     * Erzeugt ein neues Objekt.
+     *
+     * @param file Die Indexdatei.
+     */
+    ChainIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Liest alle Einträge. Ein unvollständiger letzter Eintrag wird ignoriert.
+     *
+     * @return Die Einträge oder {@code null}, sollte die Datei fehlen oder nicht lesbar sein.
+     */
+    List<IndexEntry> load() {
+        if (!file.isFile() || file.length() < HEADER_SIZE) return null;
+        long count = (file.length() - HEADER_SIZE) / ENTRY_SIZE;
+        List<IndexEntry> entries = new ArrayList<>((int) Math.min(count, Integer.MAX_VALUE - 8));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) return null;
+            for (long i = 0; i < count; i++) {
+                int segment = in.readInt();
+                long offset = in.readLong();
+                int length = in.readInt();
+                byte[] hash = new byte[32];
+                byte[] fingerprint = new byte[32];
+                in.readFully(hash);
+                in.readFully(fingerprint);
+                short year = in.readShort();
+                int schoolNumber = in.readInt();
+                entries.add(new IndexEntry(segment, offset, length, hash, fingerprint, year, schoolNumber));
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        //einen unvollständigen letzten Eintrag abschneiden, damit weitere Einträge wieder an der richtigen Stelle landen
+        if ((file.length() - HEADER_SIZE) % ENTRY_SIZE != 0) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(HEADER_SIZE + count * ENTRY_SIZE);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Hängt einen Eintrag an.
+     *
+     * @param entry Der Eintrag.
+     * @throws IOException sollte der Eintrag nicht geschrieben werden können.
+     */
+    void append(IndexEntry entry) throws IOException {
+        if (discarded) return;
+        if (appender == null) {
+            appender = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), ENTRY_SIZE));
+            if (file.length() == 0) writeHeader(appender);
+        }
+        writeEntry(appender, entry);
+        appender.flush();
+    }
+
+    /**
+     * Verwirft die Indexdatei, nachdem ein Eintrag nicht angehängt werden konnte. Ihr würden danach Einträge fehlen,
+     * daher wird sie gelöscht und bis zum Neuschreiben nichts mehr angehängt; beim nächsten Start wird sie aus der
+     * Blockchain neu erzeugt. Kann sie nicht gelöscht werden, fällt sie beim Start durch die Prüfung der Einträge.
+     */
+    void discard() {
+        discarded = true;
+        try {
+            close();
+        } catch (IOException ignored) {
+            //die Datei wird ohnehin gelöscht
+        }
+        if (file.exists() && !file.delete())
+            System.err.println("Die Indexdatei " + file.getName() + " konnte nicht gelöscht werden.");
+    }
+
+    /**
+     * Schließt die zum Anhängen geöffnete Indexdatei.
+     *
+     * @throws IOException sollte die Datei nicht geschlossen werden können.
+     */
+    @Override
+    public void close() throws IOException {
+        if (appender != null) {
+            appender.close();
+            appender = null;
+        }
+    }
+
+    /**
+     * Schreibt die Indexdatei neu. Dabei wird zunächst in eine temporäre Datei geschrieben,
+     * die anschließend die alte Datei ersetzt.
+     *
+     * @param entries Alle Einträge.
+     * @throws IOException sollte die Datei nicht geschrieben werden können.
+     */
+    void rewrite(List<IndexEntry> entries) throws IOException {
+        try (Rewrite rewrite = beginRewrite()) {
+            for (IndexEntry entry : entries) {
+                rewrite.add(entry);
+            }
+            rewrite.commit();
+        }
+    }
+
+    /**
+     * Beginnt, die Indexdatei neu zu schreiben, ohne alle Einträge im Speicher zu halten.
+     * Die alte Datei wird erst durch {@link Rewrite#commit()} ersetzt.
+     *
+     * @return Das Objekt, über das die Einträge geschrieben werden.
+     * @throws IOException sollte die temporäre Datei nicht angelegt werden können.
+     */
+    Rewrite beginRewrite() throws IOException {
+        close();
+        return new Rewrite();
+    }
+
+    /**
+     * Schreibt die Einträge der Reihe nach in eine temporäre Datei, die anschließend die Indexdatei ersetzt.
+     */
+    class Rewrite implements AutoCloseable {
+        /**
+         * Die temporäre Datei.
+         */
+        private final File tmp = new File(file.getPath() + ".tmp");
+        /**
+         * Die geöffnete temporäre Datei oder {@code null}, sollte sie bereits geschlossen sein.
+         */
+        private DataOutputStream out;
+
+        /**
+         * Legt die temporäre Datei an und schreibt den Dateikopf.
+         *
+         * @throws IOException sollte die Datei nicht angelegt werden können.
+         */
+        private Rewrite() throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+            writeHeader(out);
+        }
+
+        /**
+         * Schreibt den nächsten Eintrag.
+         *
+         * @param entry Der Eintrag.
+         * @throws IOException sollte der Eintrag nicht geschrieben werden können.
+         */
+        void add(IndexEntry entry) throws IOException {
+            writeEntry(out, entry);
+        }
+
+        /**
+         * Schließt die temporäre Datei und ersetzt damit die Indexdatei.
+         *
+         * @throws IOException sollte die Datei nicht ersetzt werden können.
+         */
+        void commit() throws IOException {
+            out.close();
+            out = null;
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            discarded = false;
+        }
+
+        /**
+         * Verwirft die temporäre Datei, sollte {@link #commit()} nicht aufgerufen worden sein.
+         *
+         * @throws IOException sollte die Datei nicht geschlossen werden können.
+         */
+        @Override
+        public void close() throws IOException {
+            if (out == null) return;
+            out.close();
+            out = null;
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Schreibt den Dateikopf.
+     *
+     * @param out Das Ziel.
+     * @throws IOException sollte nicht geschrieben werden können.
+     */
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeLong(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * Schreibt einen Eintrag.
+     *
+     * @param out   Das Ziel.
+     * @param entry Der Eintrag.
+     * @throws IOException sollte nicht geschrieben werden können.
+     */
+    private static void writeEntry(DataOutputStream out, IndexEntry entry) throws IOException {
+        out.writeInt(entry.getSegment());
+        out.writeLong(entry.getOffset());
+        out.writeInt(entry.getLength());
+        out.write(entry.getHash());
+        out.write(entry.getStudentFingerprint());
+        out.writeShort(entry.getYear());
+        out.writeInt(entry.getSchoolNumber());
+    }
+}
@@ -0,0 +1,1173 @@
+package data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Verwaltet die Dateien, in denen die Blöcke der Blockchain liegen.
+ * <p>
+ * Jede Datei beginnt mit dem Kopf {@code [long Magic][int Version]}. Jeder Block wird als Datensatz
+ * {@code [int Länge][Block][int CRC-32C][int Länge]} angehängt, wobei die Prüfsumme über Länge und Block gebildet wird.
+ * Über den Trailer lässt sich der letzte Datensatz vom Ende der Datei aus finden, sodass ein beim Absturz nur teilweise
+ * geschriebener Datensatz beim Öffnen ohne Kryptographie erkannt und abgeschnitten werden kann.
+ * Dateien im alten Format (Version 1) haben keinen Kopf und bestehen nur aus Datensätzen {@code [int Länge][Block]};
+ * sie werden weiterhin gelesen und im selben Format fortgeschrieben.
+ * <p>
+ * Die Blöcke liegen entweder in einer einzigen Datei
+ * oder in einem Verzeichnis mit fortlaufend nummerierten Segmentdateien. Überschreitet ein Segment die eingestellte Größe,
+ * wird es versiegelt: Es erhält einen Footer mit der Anzahl der Blöcke, dem ersten und letzten Blockhash und den Positionen
+ * aller Datensätze und wird danach nie wieder verändert.
+ * <p>
+ * Aufbau des Footers: {@code [int Anzahl][32 Byte erster Hash][32 Byte letzter Hash][long Position je Block][int Footerlänge][long Magic]}
+ */
+class ChainLog implements ChainStore {
+    /**
+     * Die Standardgröße eines Segmentes.
+     */
+    static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+    /**
+     * Markiert das Ende eines versiegelten Segmentes.
+     */
+    private static final long FOOTER_MAGIC = 0x5A45554753454721L;
+    /**
+     * Kennzeichnet eine Datei ab Version 2.
+     */
+    private static final long FILE_MAGIC = 0x5A45554743484E21L;
+    /**
+     * Die Version, in der neue Dateien geschrieben werden.
+     */
+    static final int CURRENT_VERSION = 2;
+    /**
+     * Die Größe des Dateikopfes ab Version 2.
+     */
+    private static final int HEADER_SIZE = 12;
+    /**
+     * Die Größe des Trailers eines Datensatzes ab Version 2.
+     */
+    private static final int TRAILER_SIZE = 8;
+    /**
+     * Die Endung der Segmentdateien.
+     */
+    private static final String SEGMENT_SUFFIX = ".segment";
+    /**
+     * Größe der Ausschnitte, in denen eine Datei im Modus {@link StorageMode#MAPPED} abgebildet wird.
+     */
+    private static final int MAP_WINDOW_SIZE = 1 << 28;
+    /**
+     * Wie viele Bytes bei der Suche nach einem gültigen Datensatz auf einmal gelesen werden.
+     */
+    private static final int SCAN_WINDOW_SIZE = 64 << 10;
+    /**
+     * Die Datei bzw. das Verzeichnis der Blockchain.
+     */
+    private final File path;
+    /**
+     * Die maximale Größe eines Segmentes oder {@code 0}, sollte die Blockchain in einer einzigen Datei liegen.
+     */
+    private final long segmentSize;
+    /**
+     * Die Version des Dateiformates.
+     */
+    private final int version;
+    /**
+     * Die Datei, an die angehängt wird, oder {@code null}, sollte noch kein offenes Segment existieren.
+     */
+    private File activeFile;
+    /**
+     * Die Nummer der Datei, an die angehängt wird.
+     */
+    private int activeSegment = 0;
+    /**
+     * Die Blöcke in der aktiven Datei.
+     */
+    private SegmentInfo active = new SegmentInfo();
+    /**
+     * Die Größe der aktiven Datei.
+     */
+    private long activeSize = 0;
+    /**
+     * Die Nummer des nächsten anzulegenden Segmentes.
+     */
+    private int nextSegment = 0;
+    /**
+     * Das Ende der Datensätze im letzten vorhandenen Segment.
+     */
+    private long tailEnd = 0;
+    /**
+     * Schreibt die Datensätze im Hintergrund.
+     */
+    private final ChainWriter writer;
+    /**
+     * Die geöffnete aktive Datei oder {@code null}, sollte sie noch nicht geöffnet sein.
+     */
+    private FileChannel appendChannel;
+    /**
+     * Die Nummer des zuletzt eingereichten Schreibvorganges.
+     */
+    private long lastSequence = 0;
+    /**
+     * Die bisher abgebildeten Fenster im Modus {@link StorageMode#MAPPED}, nach Segment und Fensternummer.
+     */
+    private final Map<Long, MappedByteBuffer> windows = new HashMap<>();
+    /**
+     * Die zum Lesen geöffneten Segmente im Modus {@link StorageMode#HEAP}, nach ihrer Nummer.
+     */
+    private final Map<Integer, FileChannel> readChannels = new HashMap<>();
+    /**
+     * Die komprimierten Segmente nach ihrer Nummer.
+     */
+    private final Map<Integer, CompressedSegment> compressed = new HashMap<>();
+    /**
+     * Wie die Blöcke gelesen werden.
+     */
+    private final StorageMode mode;
+    /**
+     * Ob die Blockchain nur zum Lesen geöffnet wurde, siehe {@link #openReadOnly(File, ChainConfig)}.
+     */
+    private final boolean readOnly;
+    /**
+     * Ein beim Öffnen nur zum Lesen gefundener beschädigter Datensatz am Ende, der von {@link #read(RecordHandler)}
+     * gemeldet wird, oder {@code null}.
+     */
+    private CorruptedRecordException damagedTail;
+
+    /**
+     * Öffnet die Dateien einer Blockchain bzw. legt diese an.
+     *
+     * @param path   Die Datei oder das Verzeichnis der Blockchain.
+     * @param config Die Einstellungen, aus denen Segmentgröße, {@link StorageMode} und {@link FsyncPolicy} übernommen
+     *               werden.
+     * @throws IOException sollte der Pfad nicht verwendet werden können.
+     */
+    ChainLog(File path, ChainConfig config) throws IOException {
+        this(path, config, false);
+    }
+
+    /**
+     * Öffnet die Dateien einer bestehenden Blockchain nur zum Lesen. Dabei wird nichts verändert: Es wird weder ein
+     * unvollständiger Datensatz abgeschnitten noch ein Segment entfernt oder komprimiert. Ein beschädigter oder
+     * unvollständiger Datensatz am Ende wird stattdessen von {@link #read(RecordHandler)} nach den Blöcken davor als
+     * {@link CorruptedRecordException} gemeldet.
+     *
+     * @param path   Die Datei oder das Verzeichnis der Blockchain.
+     * @param config Die Einstellungen, aus denen Segmentgröße und {@link StorageMode} übernommen werden.
+     * @return Die geöffnete Blockchain. An diese kann nicht angehängt werden.
+     * @throws IOException sollte der Pfad nicht existieren oder nicht gelesen werden können.
+     */
+    static ChainLog openReadOnly(File path, ChainConfig config) throws IOException {
+        return new ChainLog(path, config, true);
+    }
+
+    /**
+     * Öffnet die Dateien einer Blockchain.
+     *
+     * @param path     Die Datei oder das Verzeichnis der Blockchain.
+     * @param config   Die Einstellungen.
+     * @param readOnly {@code true}, um die Dateien nur zu lesen.
+     * @throws IOException sollte der Pfad nicht verwendet werden können.
+     */
+    private ChainLog(File path, ChainConfig config, boolean readOnly) throws IOException {
+        this.path = path;
+        this.mode = config.getMode();
+        this.segmentSize = config.getSegmentSize();
+        this.readOnly = readOnly;
+        if (segmentSize > 0) {
+            if (readOnly ? !path.isDirectory() : !path.isDirectory() && !path.mkdirs())
+                throw new IOException("Parameter is not a directory!");
+            List<File> segments = openSegments();
+            version = segments.isEmpty() ? CURRENT_VERSION : readVersion(segments.get(0));
+            if (!segments.isEmpty() && !readOnly) {
+                File last = segments.get(segments.size() - 1);
+                if (readFooter(last) == null) recoverTail(last);
+                //ein leeres letztes Segment entsteht nur durch einen Abbruch direkt nach dem Anlegen
+                if (last.length() <= dataStart()) {
+                    segments.remove(segments.size() - 1);
+                    if (!last.delete())
+                        throw new IOException("Segment " + last.getName() + " could not be removed!");
+                }
+            }
+            if (!segments.isEmpty()) {
+                File last = segments.get(segments.size() - 1);
+                SegmentInfo footer = readFooter(last);
+                nextSegment = segmentNumber(last) + 1;
+                if (footer == null) {
+                    activeFile = last;
+                    activeSegment = segmentNumber(last);
+                    activeSize = last.length();
+                    tailEnd = activeSize;
+                    if (readOnly) checkTail(last);
+                } else {
+                    activeSegment = segmentNumber(last);
+                    tailEnd = footer.recordsEnd;
+                }
+            }
+            if (!readOnly) compressCold(segments, config.getUncompressedSegments());
+        } else {
+            if (readOnly ? !path.isFile() : !path.exists() && !path.createNewFile() || !path.isFile())
+                throw new IOException("Parameter is not a file!");
+            version = readVersion(path);
+            if (!readOnly) recoverTail(path);
+            activeFile = path;
+            activeSize = path.length();
+            tailEnd = activeSize;
+            if (readOnly) checkTail(path);
+        }
+        if (version < CURRENT_VERSION)
+            System.err.println("Die Blockchain liegt im alten Format (Version " + version + ") ohne Prüfsummen vor "
+                    + "und kann mit \"ChainTool convert\" umgewandelt werden.");
+        writer = new ChainWriter(config.getFsyncPolicy(), config.getFsyncInterval());
+    }
+
+    /**
+     * Liest sämtliche Blöcke in der richtigen Reihenfolge und überprüft dabei die Footer der versiegelten Segmente.
+     *
+     * @param handler Wird für jeden Block aufgerufen.
+     * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
+     * @see InvalidKeySpecException
+     * @see NoSuchAlgorithmException
+     */
+    @Override
+    public void read(RecordHandler handler) throws IOException, InvalidKeySpecException, NoSuchAlgorithmException {
+        if (segmentSize <= 0) {
+            active = readRecords(path, 0, tailEnd, version, mode, handler);
+            if (damagedTail != null) throw damagedTail;
+            return;
+        }
+        List<File> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            File segment = segments.get(i);
+            int number = segmentNumber(segment);
+            SegmentInfo footer = readFooter(segment);
+            if (footer == null) {
+                if (i != segments.size() - 1)
+                    throw new IOException("Segment " + segment.getName() + " is not sealed!");
+                active = readRecords(segment, number, tailEnd, version, mode, handler);
+                if (damagedTail != null) throw damagedTail;
+            } else {
+                SegmentInfo records = readRecords(segment, number, footer.recordsEnd, version, mode, handler);
+                if (!records.matches(footer))
+                    throw new IOException("Footer of segment " + segment.getName() + " does not match!");
+            }
+        }
+    }
+
+    /**
+     * Stellt den Zustand des aktiven Segmentes aus einem bekannten Block wieder her, ohne das Segment zu lesen.
+     * Muss für alle Blöcke in der richtigen Reihenfolge aufgerufen werden.
+     *
+     * @param segment Die Nummer des Segmentes, in dem der Block liegt.
+     * @param offset  Die Position des Datensatzes im Segment.
+     * @param hash    Der Hash des Blockes.
+     */
+    @Override
+    public void restore(int segment, long offset, byte[] hash) {
+        if (activeFile != null && segment == activeSegment)
+            active.add(offset, hash);
+    }
+
+    /**
+     * Überprüft, ob ein Block der letzte Block der Blockchain ist.
+     *
+     * @param segment Die Nummer des Segmentes, in dem der Block liegen soll.
+     * @param offset  Die Position des Datensatzes.
+     * @param length  Die Größe des Blockes.
+     * @return Gibt {@code true} zurück, wenn nach diesem Block kein weiterer Datensatz folgt.
+     */
+    @Override
+    public boolean isTail(int segment, long offset, int length) {
+        return segment == activeSegment && offset + recordOverhead(version) + length == tailEnd;
+    }
+
+    /**
+     * Überprüft, ob ein Datensatz unmittelbar auf einen anderen folgt. Innerhalb eines Segmentes muss er direkt hinter
+     * dem vorherigen beginnen. Beginnt er ein neues Segment, muss der vorherige der letzte Datensatz vor dem Footer
+     * des vorherigen Segmentes sein.
+     *
+     * @param previous Der vorherige Block oder {@code null}, sollte der Datensatz der erste der Blockchain sein.
+     * @param segment  Die Nummer des Segmentes, in dem der Datensatz liegen soll.
+     * @param offset   Die Position des Datensatzes.
+     * @return Gibt {@code true} zurück, wenn der Datensatz direkt auf den vorherigen folgt.
+     * @throws IOException sollte der Footer eines Segmentes nicht gelesen werden können.
+     */
+    @Override
+    public boolean follows(IndexEntry previous, int segment, long offset) throws IOException {
+        if (previous == null) {
+            if (offset != dataStart()) return false;
+            if (segmentSize <= 0) return segment == 0;
+            List<File> segments = listSegments();
+            return !segments.isEmpty() && segment == segmentNumber(segments.get(0));
+        }
+        long end = previous.getOffset() + recordOverhead(version) + previous.getLength();
+        if (segment == previous.getSegment()) return offset == end;
+        if (segment != previous.getSegment() + 1 || offset != dataStart()) return false;
+        File sealed = compressed.containsKey(previous.getSegment())
+                ? new File(path, String.format("%08d", previous.getSegment()) + CompressedSegment.SUFFIX)
+                : segmentFile(previous.getSegment());
+        SegmentInfo footer = sealed.isFile() ? readFooter(sealed) : null;
+        return footer != null && footer.recordsEnd == end;
+    }
+
+    /**
+     * Gibt zurück, ob die Blockchain noch keinen Block enthält.
+     *
+     * @return Gibt {@code true} zurück, wenn noch kein Block geschrieben wurde.
+     */
+    @Override
+    public boolean isEmpty() {
+        return tailEnd <= dataStart();
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    /**
+     * Getter für die Version des Dateiformates.
+     *
+     * @return Die Version.
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * Liest einen einzelnen Block.
+     *
+     * @param segment Die Nummer des Segmentes, in dem der Block liegt.
+     * @param offset  Die Position des Datensatzes im Segment.
+     * @param length  Die Größe des Blockes.
+     * @return Die Rohdaten des Blockes zwischen Position und Limit.
+     * @throws IOException sollte der Block nicht gelesen werden können oder nicht zum Datensatz passen.
+     */
+    @Override
+    public ByteBuffer readBlock(int segment, long offset, int length) throws IOException {
+        ByteBuffer record;
+        CompressedSegment source = compressed.get(segment);
+        boolean mapped = mode == StorageMode.MAPPED && source == null;
+        if (mapped) {
+            record = mapRecord(segment, offset, length);
+        } else {
+            record = ByteBuffer.allocate(recordOverhead(version) + length);
+            if (!(source != null ? source.read(record, offset) : readFully(readChannel(segment), record, offset)))
+                throw new IOException("File is corrupted!");
+            record.flip();
+        }
+        int begin = record.position();
+        if (record.getInt(begin) != length)
+            throw new IOException("File is corrupted!");
+        //im Modus MAPPED wird die Prüfsumme nicht berechnet, um nicht den gesamten Block anfassen zu müssen
+        if (version >= 2 && (mapped ? record.getInt(begin + 8 + length) != length : !isValidRecord(record)))
+            throw new IOException("File is corrupted!");
+        record.limit(begin + 4 + length).position(begin + 4);
+        return record;
+    }
+
+    /**
+     * Gibt einen Datensatz als Ausschnitt einer Abbildung zurück. Die Datei wird in Fenstern der Größe
+     * {@link #MAP_WINDOW_SIZE} abgebildet, die jeweils um die Hälfte ihrer Größe versetzt beginnen.
+     * So liegt jeder Datensatz bis zur halben Fenstergröße vollständig in einem Fenster, größere Datensätze
+     * werden einzeln abgebildet.
+     *
+     * @param segment Die Nummer des Segmentes.
+     * @param offset  Die Position des Datensatzes.
+     * @param length  Die Größe des Blockes.
+     * @return Der Datensatz zwischen Position und Limit.
+     * @throws IOException sollte die Datei nicht abgebildet werden können.
+     */
+    private synchronized ByteBuffer mapRecord(int segment, long offset, int length) throws IOException {
+        long recordEnd = offset + recordOverhead(version) + length;
+        int step = MAP_WINDOW_SIZE / 2;
+        long windowStart = offset / step * step;
+        MappedByteBuffer window;
+        if (recordEnd - windowStart > MAP_WINDOW_SIZE) {
+            windowStart = offset;
+            window = map(segment, windowStart, recordEnd - windowStart);
+        } else {
+            long key = ((long) segment << 32) | (windowStart / step);
+            window = windows.get(key);
+            if (window == null || windowStart + window.limit() < recordEnd) {
+                window = map(segment, windowStart, Math.min(MAP_WINDOW_SIZE, segmentFile(segment).length() - windowStart));
+                windows.put(key, window);
+            }
+        }
+        ByteBuffer record = window.duplicate();
+        int begin = (int) (offset - windowStart);
+        record.limit((int) (begin + recordEnd - offset)).position(begin);
+        return record;
+    }
+
+    /**
+     * Gibt ein zum Lesen geöffnetes Segment zurück. Die Datei bleibt bis {@link #close()} geöffnet,
+     * da positionsbezogene Lesezugriffe von mehreren Threads gleichzeitig erfolgen dürfen.
+     *
+     * @param segment Die Nummer des Segmentes.
+     * @return Die geöffnete Datei.
+     * @throws IOException sollte die Datei nicht geöffnet werden können.
+     */
+    private synchronized FileChannel readChannel(int segment) throws IOException {
+        FileChannel channel = readChannels.get(segment);
+        if (channel == null) {
+            channel = FileChannel.open(segmentFile(segment).toPath(), StandardOpenOption.READ);
+            readChannels.put(segment, channel);
+        }
+        return channel;
+    }
+
+    /**
+     * Bildet einen Bereich eines Segmentes schreibgeschützt ab.
+     *
+     * @param segment Die Nummer des Segmentes.
+     * @param start   Der Anfang des Bereiches.
+     * @param size    Die Größe des Bereiches.
+     * @return Die Abbildung.
+     * @throws IOException sollte die Datei nicht abgebildet werden können.
+     */
+    private MappedByteBuffer map(int segment, long start, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(segment).toPath(), StandardOpenOption.READ)) {
+            if (start + size > channel.size())
+                throw new IOException("File is corrupted!");
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        }
+    }
+
+    /**
+     * Gibt die Datei eines Segmentes zurück.
+     *
+     * @param segment Die Nummer des Segmentes.
+     * @return Die Datei.
+     */
+    private File segmentFile(int segment) {
+        if (segmentSize <= 0) return path;
+        return new File(path, String.format("%08d", segment) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Getter für die Nummer des Segmentes, an das zuletzt angehängt wurde.
+     *
+     * @return Die Nummer des Segmentes.
+     */
+    @Override
+    public int getActiveSegment() {
+        return activeSegment;
+    }
+
+    /**
+     * Hängt einen Block an. Sollte das aktive Segment dadurch zu groß werden, wird es vorher versiegelt.
+     *
+     * Der Block wird nur eingereicht und im Hintergrund geschrieben, siehe {@link #await(long)}.
+     *
+     * @param block Der Block zwischen Position und Limit. Der Inhalt darf danach nicht mehr verändert werden.
+     * @param hash  Der Hash des Blockes.
+     * @return Die Position des Datensatzes im Segment {@link #getActiveSegment()}.
+     * @throws IOException sollte der Block nicht geschrieben werden können.
+     */
+    @Override
+    public long append(ByteBuffer block, byte[] hash) throws IOException {
+        if (readOnly) throw new IOException("Chain is opened read-only!");
+        int blockSize = block.remaining();
+        long recordSize = recordOverhead(version) + (long) blockSize;
+        if (segmentSize > 0 && (activeFile == null || active.count > 0 && activeSize + recordSize > segmentSize)) {
+            if (activeFile != null) seal();
+            activeSegment = nextSegment++;
+            activeFile = segmentFile(activeSegment);
+            if (!activeFile.createNewFile())
+                throw new IOException("Segment " + activeFile.getName() + " already exists!");
+            active = new SegmentInfo();
+            activeSize = 0;
+        }
+        if (appendChannel == null)
+            appendChannel = FileChannel.open(activeFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        List<ByteBuffer> buffers = new ArrayList<>(4);
+        if (activeSize == 0 && version >= 2) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(FILE_MAGIC).putInt(version);
+            header.flip();
+            buffers.add(header);
+            activeSize = HEADER_SIZE;
+        }
+        buffers.add(ByteBuffer.allocate(4).putInt(0, blockSize));
+        buffers.add(block.duplicate());
+        if (version >= 2) {
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).putInt(recordChecksum(blockSize, block)).putInt(blockSize);
+            trailer.flip();
+            buffers.add(trailer);
+        }
+        lastSequence = writer.submit(appendChannel, buffers.toArray(new ByteBuffer[0]), null);
+        long offset = activeSize;
+        active.add(offset, hash);
+        activeSize += recordSize;
+        tailEnd = activeSize;
+        return offset;
+    }
+
+    /**
+     * Gibt die Nummer des zuletzt eingereichten Schreibvorganges zurück.
+     *
+     * @return Die Nummer für {@link #await(long)}.
+     */
+    @Override
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Wartet, bis ein Schreibvorgang gemäß der {@link FsyncPolicy} bestätigt wurde.
+     *
+     * @param sequence Die Nummer des Schreibvorganges.
+     * @throws IOException sollte der Vorgang nicht geschrieben werden können.
+     */
+    @Override
+    public void await(long sequence) throws IOException {
+        writer.await(sequence);
+    }
+
+    /**
+     * Schreibt alle ausstehenden Blöcke, synchronisiert sie und schließt die Dateien.
+     *
+     * @throws IOException sollte dabei ein Fehler auftreten.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        if (appendChannel != null) appendChannel.close();
+        synchronized (this) {
+            for (FileChannel channel : readChannels.values()) {
+                channel.close();
+            }
+            readChannels.clear();
+            for (CompressedSegment segment : compressed.values()) {
+                segment.close();
+            }
+            compressed.clear();
+        }
+    }
+
+    /**
+     * Versiegelt das aktive Segment, indem der Footer angehängt und die Datei schreibgeschützt wird.
+     * Der Footer wird erst nach allen ausstehenden Blöcken geschrieben, danach wird die Datei geschlossen.
+     * Es wird gewartet, bis der Footer geschrieben ist, damit nie ein neues Segment hinter einem
+     * unversiegelten Segment entsteht.
+     *
+     * @throws IOException sollte der Footer nicht geschrieben werden können.
+     */
+    private void seal() throws IOException {
+        ByteBuffer footer = ByteBuffer.allocate(active.footerLength());
+        footer.putInt(active.count);
+        footer.put(active.firstHash);
+        footer.put(active.lastHash);
+        for (int i = 0; i < active.count; i++) {
+            footer.putLong(active.offsets[i]);
+        }
+        footer.putInt(active.footerLength());
+        footer.putLong(FOOTER_MAGIC);
+        footer.flip();
+        FileChannel channel = appendChannel == null
+                ? FileChannel.open(activeFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                : appendChannel;
+        File sealed = activeFile;
+        lastSequence = writer.submit(channel, new ByteBuffer[]{footer}, () -> {
+            channel.close();
+            if (!sealed.setReadOnly())
+                System.err.println("Segment " + sealed.getName() + " konnte nicht schreibgeschützt werden.");
+        });
+        appendChannel = null;
+        activeFile = null;
+        writer.await(lastSequence);
+    }
+
+    /**
+     * Listet alle Segmentdateien nach ihrer Nummer sortiert auf.
+     *
+     * @return Die Segmente.
+     */
+    private List<File> listSegments() {
+        File[] files = path.listFiles((dir, name) -> name.matches("\\d{8}" + SEGMENT_SUFFIX.replace(".", "\\."))
+                || name.matches("\\d{8}" + CompressedSegment.SUFFIX.replace(".", "\\.")));
+        if (files == null) return new ArrayList<>();
+        Arrays.sort(files, (a, b) -> Integer.compare(segmentNumber(a), segmentNumber(b)));
+        List<File> segments = new ArrayList<>(files.length);
+        for (File file : files) {
+            //ein unkomprimiertes Segment neben dem komprimierten bleibt nur beim Öffnen nur zum Lesen übrig
+            if (!isCompressed(file) && compressed.containsKey(segmentNumber(file))) continue;
+            segments.add(file);
+        }
+        return segments;
+    }
+
+    /**
+     * Öffnet alle komprimierten Segmente. Liegt ein Segment sowohl komprimiert als auch unkomprimiert vor, wurde die
+     * Komprimierung unterbrochen, bevor das unkomprimierte Segment gelöscht werden konnte; dieses wird dann entfernt
+     * bzw. beim Öffnen nur zum Lesen übergangen.
+     *
+     * @return Alle Segmente nach ihrer Nummer sortiert.
+     * @throws IOException sollte ein Segment nicht geöffnet oder entfernt werden können.
+     */
+    private List<File> openSegments() throws IOException {
+        for (File segment : listSegments()) {
+            if (!isCompressed(segment)) continue;
+            File plain = new File(path, segment.getName().replace(CompressedSegment.SUFFIX, SEGMENT_SUFFIX));
+            if (!readOnly && plain.exists() && !plain.delete())
+                throw new IOException("Segment " + plain.getName() + " could not be removed!");
+            compressed.put(segmentNumber(segment), new CompressedSegment(segment));
+        }
+        return new ArrayList<>(listSegments());
+    }
+
+    /**
+     * Komprimiert alle versiegelten Segmente bis auf die neuesten.
+     *
+     * @param segments     Alle Segmente nach ihrer Nummer sortiert.
+     * @param uncompressed Die Anzahl der neuesten Segmente, die nicht komprimiert werden, oder {@code 0},
+     *                     um gar nicht zu komprimieren.
+     * @throws IOException sollte ein Segment nicht komprimiert werden können.
+     */
+    private void compressCold(List<File> segments, int uncompressed) throws IOException {
+        if (uncompressed <= 0) return;
+        for (int i = 0; i < segments.size() - uncompressed; i++) {
+            File segment = segments.get(i);
+            if (isCompressed(segment) || readFooter(segment) == null) continue;
+            int number = segmentNumber(segment);
+            File target = new File(path, String.format("%08d", number) + CompressedSegment.SUFFIX);
+            CompressedSegment.compress(segment, target, CompressedSegment.DEFAULT_CHUNK_SIZE);
+            CompressedSegment opened = new CompressedSegment(target);
+            compressed.put(number, opened);
+            if (!segment.delete())
+                throw new IOException("Segment " + segment.getName() + " could not be removed!");
+            System.out.println("Segment " + segment.getName() + " komprimiert: " + opened.length() + " -> "
+                    + opened.compressedLength() + " Bytes (" + opened.compressedLength() * 100 / Math.max(1, opened.length()) + " %).");
+        }
+    }
+
+    /**
+     * Gibt zurück, ob eine Segmentdatei komprimiert ist.
+     *
+     * @param segment Die Segmentdatei.
+     * @return Gibt {@code true} zurück, wenn es sich um ein {@link CompressedSegment} handelt.
+     */
+    private static boolean isCompressed(File segment) {
+        return segment.getName().endsWith(CompressedSegment.SUFFIX);
+    }
+
+    /**
+     * Gibt die Länge einer Segmentdatei bzw. des ursprünglichen Inhaltes eines komprimierten Segmentes zurück.
+     *
+     * @param file Die Datei.
+     * @return Die Länge in Bytes.
+     */
+    private long lengthOf(File file) {
+        CompressedSegment source = isCompressed(file) ? compressed.get(segmentNumber(file)) : null;
+        return source != null ? source.length() : file.length();
+    }
+
+    /**
+     * Liest ab einer Position einer Datei bzw. des ursprünglichen Inhaltes eines komprimierten Segmentes.
+     *
+     * @param file     Die Datei.
+     * @param buffer   Wird zwischen Position und Limit gefüllt.
+     * @param position Die Position.
+     * @throws IOException sollte die Datei vorher enden oder nicht gelesen werden können.
+     */
+    private void readAt(File file, ByteBuffer buffer, long position) throws IOException {
+        CompressedSegment source = isCompressed(file) ? compressed.get(segmentNumber(file)) : null;
+        boolean complete;
+        if (source != null) {
+            complete = source.read(buffer, position);
+        } else {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                complete = readFully(channel, buffer, position);
+            }
+        }
+        if (!complete) throw new IOException("File is corrupted!");
+    }
+
+    /**
+     * Gibt die Nummer eines Segmentes zurück.
+     *
+     * @param segment Die Segmentdatei.
+     * @return Die Nummer.
+     */
+    private static int segmentNumber(File segment) {
+        return Integer.parseInt(segment.getName().substring(0, 8));
+    }
+
+    /**
+     * Liest den Footer eines Segmentes.
+     *
+     * @param segment Die Segmentdatei.
+     * @return Der Inhalt des Footers oder {@code null}, sollte das Segment nicht versiegelt sein.
+     * @throws IOException sollte der Footer fehlerhaft sein.
+     */
+    private SegmentInfo readFooter(File segment) throws IOException {
+        long length = lengthOf(segment);
+        if (length < 12) return null;
+        ByteBuffer tail = ByteBuffer.allocate(12);
+        readAt(segment, tail, length - 12);
+        int footerLength = tail.getInt(0);
+        if (tail.getLong(4) != FOOTER_MAGIC) return null;
+        if (footerLength < 80 || footerLength > length)
+            throw new IOException("Footer of segment " + segment.getName() + " is corrupted!");
+        ByteBuffer buffer = ByteBuffer.allocate(footerLength);
+        readAt(segment, buffer, length - footerLength);
+        buffer.flip();
+        SegmentInfo footer = new SegmentInfo();
+        int count = buffer.getInt();
+        if (footer.footerLength(count) != footerLength)
+            throw new IOException("Footer of segment " + segment.getName() + " is corrupted!");
+        byte[] firstHash = new byte[32];
+        byte[] lastHash = new byte[32];
+        buffer.get(firstHash);
+        buffer.get(lastHash);
+        for (int i = 0; i < count; i++) {
+            footer.add(buffer.getLong(), i == 0 ? firstHash : lastHash);
+        }
+        footer.recordsEnd = length - footerLength;
+        return footer;
+    }
+
+    /**
+     * Bestimmt die Version einer Datei anhand ihres Kopfes.
+     *
+     * @param file Die Datei.
+     * @return Die Version. Eine leere Datei oder eine Datei mit unvollständigem Kopf hat die Version {@link #CURRENT_VERSION}.
+     * @throws IOException sollte die Version nicht unterstützt werden.
+     */
+    private int readVersion(File file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate((int) Math.min(HEADER_SIZE, lengthOf(file)));
+        readAt(file, header, 0);
+        header.flip();
+        ByteBuffer magic = ByteBuffer.allocate(8).putLong(0, FILE_MAGIC);
+        magic.limit(Math.min(8, header.remaining()));
+        if (!header.duplicate().limit(magic.limit()).equals(magic)) return 1;
+        if (header.remaining() < HEADER_SIZE) return CURRENT_VERSION;
+        int version = header.getInt(8);
+        if (version != CURRENT_VERSION)
+            throw new IOException("Unsupported chain version " + version + "!");
+        return version;
+    }
+
+    /**
+     * Schneidet einen unvollständig geschriebenen Datensatz am Ende einer Datei ab.
+     * Ab Version 2 wird zunächst nur der letzte Datensatz über den Trailer geprüft. Nur wenn dieser beschädigt ist,
+     * werden alle Datensätze von vorne geprüft. Abgeschnitten wird nur, wenn der erste ungültige Datensatz tatsächlich
+     * unvollständig geschrieben wurde (siehe {@link #isTorn(FileChannel, long, long)}); eine Beschädigung mitten in der
+     * Datei lässt diese unverändert.
+     *
+     * @param file Die Datei, an die zuletzt angehängt wurde.
+     * @throws IOException sollte die Datei beschädigt sein oder nicht gelesen oder gekürzt werden können.
+     */
+    private void recoverTail(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long length = channel.size();
+            long valid = findTail(channel, length);
+            if (valid < length) {
+                System.err.println("Unvollständiger Datensatz am Ende von " + file.getName() + " ab Position " + valid
+                        + " entfernt (" + (length - valid) + " Bytes).");
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Bestimmt das Ende des letzten vollständigen Datensatzes einer Datei.
+     *
+     * @param channel Die Datei.
+     * @param length  Die Größe der Datei.
+     * @return Das Ende des letzten vollständigen Datensatzes. Ist es kleiner als {@code length}, folgt darauf nur noch
+     * ein unvollständig geschriebener Datensatz.
+     * @throws IOException sollte ein Datensatz vor dem letzten beschädigt sein oder die Datei nicht gelesen werden können.
+     */
+    private long findTail(FileChannel channel, long length) throws IOException {
+        if (length < dataStart()) return 0;
+        long valid = scanRecords(channel, length);
+        if (valid < length && !isTorn(channel, valid, length))
+            throw new IOException("File is corrupted!");
+        return valid;
+    }
+
+    /**
+     * Sucht beim Öffnen nur zum Lesen einen beschädigten oder unvollständigen Datensatz am Ende der aktiven Datei, ohne
+     * diese zu verändern. Gelesen wird dann nur bis zu diesem Datensatz, danach wird er als Fehler gemeldet.
+     *
+     * @param file Die Datei, an die zuletzt angehängt wurde.
+     * @throws IOException sollte die Datei nicht gelesen werden können.
+     */
+    private void checkTail(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            //eine Datei ohne vollständigen Kopf entsteht nur durch einen Abbruch direkt nach dem Anlegen
+            long valid = length < dataStart() ? 0 : scanRecords(channel, length);
+            tailEnd = valid;
+            if (valid == 0 || valid == length) return;
+            damagedTail = new CorruptedRecordException(isTorn(channel, valid, length)
+                    ? "Incomplete record at the end of the chain!" : "File is corrupted!", activeSegment, valid);
+        }
+    }
+
+    /**
+     * Bestimmt, bis wohin die Datensätze einer Datei vollständig und gültig sind. Ab Version 2 wird zunächst nur der
+     * letzte Datensatz über den Trailer geprüft, erst wenn dieser beschädigt ist, alle von vorne.
+     *
+     * @param channel Die Datei.
+     * @param length  Die Größe der Datei, mindestens {@link #dataStart()}.
+     * @return Das Ende des letzten gültigen Datensatzes vor dem ersten ungültigen bzw. {@code length}.
+     * @throws IOException sollte die Datei nicht gelesen werden können.
+     */
+    private long scanRecords(FileChannel channel, long length) throws IOException {
+        if (isValidTail(channel, length)) return length;
+        long valid = dataStart();
+        long next;
+        while ((next = nextRecord(channel, valid, length)) >= 0) valid = next;
+        return valid;
+    }
+
+    /**
+     * Überprüft, ob ein ungültiger Datensatz nur unvollständig geschrieben wurde. Das ist der Fall, wenn seine Länge
+     * fehlt oder er laut dieser bis an das Ende der Datei oder darüber hinaus reicht. Ab Version 2 gilt er außerdem
+     * als unvollständig, wenn hinter ihm an keiner Position mehr ein gültiger Datensatz beginnt.
+     *
+     * @param channel Die Datei.
+     * @param offset  Die Position des ungültigen Datensatzes.
+     * @param end     Das Ende der Datei.
+     * @return Gibt {@code true} zurück, wenn der Datensatz abgeschnitten werden darf.
+     * @throws IOException sollte die Datei nicht gelesen werden können.
+     */
+    private boolean isTorn(FileChannel channel, long offset, long end) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        if (offset + 4 > end || !readFully(channel, length, offset)) return true;
+        int blockSize = length.getInt(0);
+        if (blockSize >= 0 && offset + recordOverhead(version) + blockSize >= end) return true;
+        return version >= 2 && !containsRecord(channel, offset + 1, end);
+    }
+
+    /**
+     * Sucht ab einer Position byteweise nach einem gültigen Datensatz ab Version 2.
+     *
+     * @param channel Die Datei.
+     * @param from    Die erste zu prüfende Position.
+     * @param end     Das Ende der Datei.
+     * @return Gibt {@code true} zurück, wenn an irgendeiner Position ein Datensatz mit passender Prüfsumme beginnt.
+     * @throws IOException sollte die Datei nicht gelesen werden können.
+     */
+    private boolean containsRecord(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW_SIZE + 4);
+        for (long base = from; base + recordOverhead(version) <= end; base += SCAN_WINDOW_SIZE) {
+            window.clear();
+            window.limit((int) Math.min(window.capacity(), end - base));
+            readFully(channel, window, base);
+            for (int i = 0; i < SCAN_WINDOW_SIZE && i + 4 <= window.limit(); i++) {
+                //nur Längen, die in die Datei passen, werden vollständig geprüft
+                int blockSize = window.getInt(i);
+                if (blockSize > 0 && base + i + recordOverhead(version) + blockSize <= end
+                        && nextRecord(channel, base + i, end) >= 0)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Überprüft den letzten Datensatz einer Datei anhand des Trailers.
+     *
+     * @param channel Die Datei.
+     * @param length  Die Größe der Datei.
+     * @return Gibt {@code true} zurück, wenn die Datei mit einem vollständigen Datensatz endet oder keinen enthält.
+     * @throws IOException sollte die Datei nicht gelesen werden können.
+     */
+    private boolean isValidTail(FileChannel channel, long length) throws IOException {
+        if (length == dataStart()) return true;
+        if (version < 2 || length - dataStart() < recordOverhead(version)) return false;
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        if (!readFully(channel, trailer, length - TRAILER_SIZE)) return false;
+        long begin = length - recordOverhead(version) - trailer.getInt(4);
+        return trailer.getInt(4) >= 0 && begin >= dataStart() && nextRecord(channel, begin, length) == length;
+    }
+
+    /**
+     * Prüft einen einzelnen Datensatz. Ab Version 2 wird dabei die Prüfsumme berechnet,
+     * in Version 1 kann nur geprüft werden, ob der Datensatz vollständig ist.
+     *
+     * @param channel Die Datei.
+     * @param offset  Die Position des Datensatzes.
+     * @param end     Das Ende der Datei.
+     * @return Das Ende des Datensatzes oder {@code -1}, sollte er unvollständig oder beschädigt sein.
+     * @throws IOException sollte die Datei nicht gelesen werden können.
+     */
+    private long nextRecord(FileChannel channel, long offset, long end) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        if (offset + 4 > end || !readFully(channel, length, offset)) return -1;
+        int blockSize = length.getInt(0);
+        long recordEnd = offset + recordOverhead(version) + blockSize;
+        if (blockSize < 0 || recordEnd > end) return -1;
+        if (version >= 2) {
+            ByteBuffer record = ByteBuffer.allocate(recordOverhead(version) + blockSize);
+            if (!readFully(channel, record, offset)) return -1;
+            record.flip();
+            if (!isValidRecord(record)) return -1;
+        }
+        return recordEnd;
+    }
+
+    /**
+     * Liest ab einer Position, bis der Buffer gefüllt ist.
+     *
+     * @param channel  Die Datei.
+     * @param buffer   Der zu füllende Buffer.
+     * @param position Die Position in der Datei.
+     * @return Gibt {@code false} zurück, sollte die Datei vorher enden.
+     * @throws IOException sollte die Datei nicht gelesen werden können.
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int begin = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - begin) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Überprüft einen vollständigen Datensatz ab Version 2 anhand der Prüfsumme und des Trailers.
+     *
+     * @param record Der Datensatz zwischen Position und Limit.
+     * @return Gibt {@code true} zurück, wenn Länge, Trailer und Prüfsumme zusammenpassen.
+     */
+    private static boolean isValidRecord(ByteBuffer record) {
+        int begin = record.position();
+        int blockSize = record.getInt(begin);
+        if (blockSize < 0 || record.limit() - begin != 4 + blockSize + TRAILER_SIZE) return false;
+        ByteBuffer block = record.duplicate();
+        block.limit(begin + 4 + blockSize).position(begin + 4);
+        return record.getInt(begin + 8 + blockSize) == blockSize
+                && record.getInt(begin + 4 + blockSize) == recordChecksum(blockSize, block);
+    }
+
+    /**
+     * Berechnet die Prüfsumme eines Datensatzes über dessen Länge und Block.
+     *
+     * @param blockSize Die Größe des Blockes.
+     * @param block     Der Block zwischen Position und Limit. Die Position wird nicht verändert.
+     * @return Die CRC-32C Prüfsumme.
+     */
+    private static int recordChecksum(int blockSize, ByteBuffer block) {
+        CRC32C crc = new CRC32C();
+        crc.update(blockSize >>> 24);
+        crc.update(blockSize >>> 16);
+        crc.update(blockSize >>> 8);
+        crc.update(blockSize);
+        crc.update(block.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Gibt zurück, wie viele Bytes ein Datensatz zusätzlich zum Block belegt.
+     *
+     * @param version Die Version des Dateiformates.
+     * @return Die Größe von Länge und Trailer.
+     */
+    private static int recordOverhead(int version) {
+        return version >= 2 ? 4 + TRAILER_SIZE : 4;
+    }
+
+    /**
+     * Gibt die Position des ersten Datensatzes in einer Datei zurück.
+     *
+     * @return Die Größe des Dateikopfes.
+     */
+    private long dataStart() {
+        return version >= 2 ? HEADER_SIZE : 0;
+    }
+
+    /**
+     * Liest die Datensätze einer Datei bis zu einer bestimmten Position.
+     *
+     * @param file       Die Datei.
+     * @param segment    Die Nummer des Segmentes.
+     * @param recordsEnd Das Ende des letzten Datensatzes.
+     * @param version    Die Version des Dateiformates.
+     * @param mode       Wie die Blöcke gelesen werden sollen.
+     * @param handler    Wird für jeden Block aufgerufen.
+     * @return Die Positionen und Hashes der gelesenen Blöcke.
+     * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
+     * @see InvalidKeySpecException
+     * @see NoSuchAlgorithmException
+     */
+    private SegmentInfo readRecords(File file, int segment, long recordsEnd, int version, StorageMode mode, RecordHandler handler) throws IOException, InvalidKeySpecException, NoSuchAlgorithmException {
+        CompressedSegment source = compressed.get(segment);
+        //komprimierte Segmente können nicht abgebildet werden und werden daher immer entpackt gelesen
+        if (source != null)
+            return readFromStream(source.openStream(), segment, recordsEnd, version, handler);
+        if (mode == StorageMode.MAPPED)
+            return readMapped(file, segment, recordsEnd, version, handler);
+        return readFromStream(new FileInputStream(file), segment, recordsEnd, version, handler);
+    }
+
+    /**
+     * Liest alle Blöcke über einen Stream in den Heap ein.
+     *
+     * @param input      Der Inhalt der Datei. Der Stream wird geschlossen.
+     * @param segment    Die Nummer des Segmentes.
+     * @param recordsEnd Das Ende des letzten Datensatzes.
+     * @param version    Die Version des Dateiformates.
+     * @param handler    Wird für jeden Block aufgerufen.
+     * @return Die Positionen und Hashes der gelesenen Blöcke.
+     * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
+     * @see InvalidKeySpecException
+     * @see NoSuchAlgorithmException
+     */
+    private static SegmentInfo readFromStream(InputStream input, int segment, long recordsEnd, int version, RecordHandler handler) throws IOException, InvalidKeySpecException, NoSuchAlgorithmException {
+        SegmentInfo info = new SegmentInfo();
+        int overhead = recordOverhead(version);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(input))) {
+            long position = 0;
+            if (version >= 2 && recordsEnd > 0) {
+                in.readFully(new byte[HEADER_SIZE]);
+                position = HEADER_SIZE;
+            }
+            while (position < recordsEnd) {
+                if (recordsEnd - position < overhead)
+                    throw new CorruptedRecordException("File is corrupted!", segment, position);
+                int blockSize = in.readInt();
+                if (blockSize < 0 || blockSize > recordsEnd - position - overhead)
+                    throw new CorruptedRecordException("File is corrupted!", segment, position);
+                byte[] block = new byte[blockSize];
+                in.readFully(block);
+                if (version >= 2 && (in.readInt() != recordChecksum(blockSize, ByteBuffer.wrap(block)) || in.readInt() != blockSize))
+                    throw new CorruptedRecordException("File is corrupted!", segment, position);
+                info.add(position, handler.accept(ByteBuffer.wrap(block), segment, position));
+                position += overhead + blockSize;
+            }
+        }
+        return info;
+    }
+
+    /**
+     * Bildet die Datei in den Speicher ab und übergibt die Blöcke als Ausschnitte dieser Abbildung.
+     * Die Datei wird dabei in Fenstern von höchstens {@link #MAP_WINDOW_SIZE} Bytes abgebildet,
+     * die jeweils an einer Blockgrenze beginnen. Nur ein Block, der größer als ein Fenster ist,
+     * erhält ein eigenes Fenster.
+     *
+     * @param file       Die Datei.
+     * @param segment    Die Nummer des Segmentes.
+     * @param recordsEnd Das Ende des letzten Datensatzes.
+     * @param version    Die Version des Dateiformates.
+     * @param handler    Wird für jeden Block aufgerufen.
+     * @return Die Positionen und Hashes der gelesenen Blöcke.
+     * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
+     * @see InvalidKeySpecException
+     * @see NoSuchAlgorithmException
+     */
+    private static SegmentInfo readMapped(File file, int segment, long recordsEnd, int version, RecordHandler handler) throws IOException, InvalidKeySpecException, NoSuchAlgorithmException {
+        SegmentInfo info = new SegmentInfo();
+        int overhead = recordOverhead(version);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long windowStart = 0;
+            MappedByteBuffer window = null;
+            long position = version >= 2 && recordsEnd > 0 ? HEADER_SIZE : 0;
+            while (position < recordsEnd) {
+                if (recordsEnd - position < overhead)
+                    throw new CorruptedRecordException("File is corrupted!", segment, position);
+                if (window == null || position + 4 > windowStart + window.limit()) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(MAP_WINDOW_SIZE, recordsEnd - windowStart));
+                }
+                int blockSize = window.getInt((int) (position - windowStart));
+                if (blockSize < 0 || blockSize > recordsEnd - position - overhead)
+                    throw new CorruptedRecordException("File is corrupted!", segment, position);
+                if (position + overhead + blockSize > windowStart + window.limit()) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(Math.max(MAP_WINDOW_SIZE, (long) overhead + blockSize), recordsEnd - windowStart));
+                }
+                int recordBegin = (int) (position - windowStart);
+                ByteBuffer slice = window.duplicate();
+                slice.limit(recordBegin + overhead + blockSize).position(recordBegin);
+                if (version >= 2 && !isValidRecord(slice))
+                    throw new CorruptedRecordException("File is corrupted!", segment, position);
+                slice.limit(recordBegin + 4 + blockSize).position(recordBegin + 4);
+                info.add(position, handler.accept(slice, segment, position));
+                position += overhead + blockSize;
+            }
+        }
+        return info;
+    }
+
+    /**
+     * Beschreibt die Blöcke eines Segmentes, so wie sie auch im Footer stehen.
+     */
+    private static class SegmentInfo {
+        /**
+         * Die Positionen der Datensätze.
+         */
+        private long[] offsets = new long[16];
+        /**
+         * Anzahl der Blöcke.
+         */
+        private int count = 0;
+        /**
+         * Der Hash des ersten Blockes.
+         */
+        private byte[] firstHash;
+        /**
+         * Der Hash des letzten Blockes.
+         */
+        private byte[] lastHash;
+        /**
+         * Das Ende des letzten Datensatzes, also der Anfang des Footers.
+         */
+        private long recordsEnd;
+
+        /**
+         * Fügt einen Block hinzu.
+         *
+         * @param offset Die Position des Datensatzes.
+         * @param hash   Der Hash des Blockes.
+         */
+        void add(long offset, byte[] hash) {
+            if (count == offsets.length) offsets = Arrays.copyOf(offsets, count << 1);
+            offsets[count++] = offset;
+            if (firstHash == null) firstHash = hash;
+            lastHash = hash;
+        }
+
+        /**
+         * Berechnet die Länge des Footers.
+         *
+         * @return Die Länge in Bytes.
+         */
+        int footerLength() {
+            return footerLength(count);
+        }
+
+        /**
+         * Berechnet die Länge eines Footers.
+         *
+         * @param count Die Anzahl an Blöcken.
+         * @return Die Länge in Bytes.
+         */
+        int footerLength(int count) {
+            return 4 + 32 + 32 + 8 * count + 4 + 8;
+        }
+
+        /**
+         * Vergleicht die gelesenen Blöcke mit einem Footer.
+         *
+         * @param footer Der Footer.
+         * @return Gibt {@code true} zurück, wenn Anzahl, Positionen und Hashes übereinstimmen.
+         */
+        boolean matches(SegmentInfo footer) {
+            return count == footer.count && count > 0
+                    && Arrays.equals(Arrays.copyOf(offsets, count), Arrays.copyOf(footer.offsets, count))
+                    && Arrays.equals(firstHash, footer.firstHash) && Arrays.equals(lastHash, footer.lastHash);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * Speicher für die Rohdaten der Blöcke.
+ * <p>
+ * Ein Block wird über die Nummer seines Segmentes und die Position darin adressiert, die beim Anhängen vergeben werden.
+ * Die Suche nach Höhe, Hash oder Schüler übernimmt {@link Blockchain} mit ihren Indizes über diesen Adressen, sodass
+ * jede Implementierung nur anhängen, einzeln lesen, der Reihe nach lesen und synchronisieren können muss.
+ * Welche Implementierung verwendet wird, legt {@link StorageMode} fest.
+ */
+interface ChainStore extends AutoCloseable {
+    /**
+     * Verarbeitet einen gelesenen Block.
+     */
+    interface RecordHandler {
+        /**
+         * Verarbeitet einen Block.
+         *
+         * @param block   Die Rohdaten des Blockes zwischen Position und Limit.
+         * @param segment Die Nummer des Segmentes, in dem der Block liegt.
+         * @param offset  Die Position des Datensatzes im Segment.
+         * @return Der Hash des Blockes.
+         * @see InvalidKeySpecException
+         * @see NoSuchAlgorithmException
+         */
+        byte[] accept(ByteBuffer block, int segment, long offset) throws InvalidKeySpecException, NoSuchAlgorithmException;
+    }
+
+    /**
+     * Liest sämtliche Blöcke in der richtigen Reihenfolge.
+     *
+     * @param handler Wird für jeden Block aufgerufen.
+     * @throws IOException sollte es irgendwelche Fehler beim Laden geben.
+     * @see InvalidKeySpecException
+     * @see NoSuchAlgorithmException
+     */
+    void read(RecordHandler handler) throws IOException, InvalidKeySpecException, NoSuchAlgorithmException;
+
+    /**
+     * Stellt den Zustand aus einem bekannten Block wieder her, ohne die Blöcke zu lesen.
+     * Muss statt {@link #read(RecordHandler)} für alle Blöcke in der richtigen Reihenfolge aufgerufen werden.
+     *
+     * @param segment Die Nummer des Segmentes, in dem der Block liegt.
+     * @param offset  Die Position des Datensatzes im Segment.
+     * @param hash    Der Hash des Blockes.
+     */
+    void restore(int segment, long offset, byte[] hash);
+
+    /**
+     * Überprüft, ob ein Block der letzte Block der Blockchain ist.
+     *
+     * @param segment Die Nummer des Segmentes, in dem der Block liegen soll.
+     * @param offset  Die Position des Datensatzes.
+     * @param length  Die Größe des Blockes.
+     * @return Gibt {@code true} zurück, wenn nach diesem Block kein weiterer Block folgt.
+     */
+    boolean isTail(int segment, long offset, int length);
+
+    /**
+     * Überprüft, ob ein Datensatz unmittelbar auf einen anderen folgt, also kein Datensatz dazwischen fehlt.
+     *
+     * @param previous Der vorherige Block oder {@code null}, sollte der Datensatz der erste der Blockchain sein.
+     * @param segment  Die Nummer des Segmentes, in dem der Datensatz liegen soll.
+     * @param offset   Die Position des Datensatzes.
+     * @return Gibt {@code true} zurück, wenn der Datensatz direkt auf den vorherigen folgt.
+     * @throws IOException sollte ein Segment nicht gelesen werden können.
+     */
+    boolean follows(IndexEntry previous, int segment, long offset) throws IOException;
+
+    /**
+     * Gibt zurück, ob die Blockchain noch keinen Block enthält.
+     *
+     * @return Gibt {@code true} zurück, wenn noch kein Block gespeichert wurde.
+     */
+    boolean isEmpty();
+
+    /**
+     * Gibt zurück, ob die Blöcke über einen Neustart hinweg erhalten bleiben. Nur dann werden Index, Checkpoint und
+     * Bloom-Filter neben der Blockchain gespeichert.
+     *
+     * @return Gibt {@code true} zurück, wenn die Blöcke in Dateien liegen.
+     */
+    boolean isPersistent();
+
+    /**
+     * Liest einen einzelnen Block. Kann von mehreren Threads gleichzeitig aufgerufen werden.
+     *
+     * @param segment Die Nummer des Segmentes, in dem der Block liegt.
+     * @param offset  Die Position des Datensatzes im Segment.
+     * @param length  Die Größe des Blockes.
+     * @return Die Rohdaten des Blockes zwischen Position und Limit.
+     * @throws IOException sollte der Block nicht gelesen werden können.
+     */
+    ByteBuffer readBlock(int segment, long offset, int length) throws IOException;
+
+    /**
+     * Hängt einen Block an. Der Block wird gegebenenfalls nur eingereicht, siehe {@link #await(long)}.
+     *
+     * @param block Der Block zwischen Position und Limit. Der Inhalt darf danach nicht mehr verändert werden.
+     * @param hash  Der Hash des Blockes.
+     * @return Die Position des Datensatzes im Segment {@link #getActiveSegment()}.
+     * @throws IOException sollte der Block nicht gespeichert werden können.
+     */
+    long append(ByteBuffer block, byte[] hash) throws IOException;
+
+    /**
+     * Getter für die Nummer des Segmentes, an das zuletzt angehängt wurde.
+     *
+     * @return Die Nummer des Segmentes.
+     */
+    int getActiveSegment();
+
+    /**
+     * Gibt die Nummer des zuletzt eingereichten Schreibvorganges zurück.
+     *
+     * @return Die Nummer für {@link #await(long)}.
+     */
+    long getLastSequence();
+
+    /**
+     * Wartet, bis ein Schreibvorgang dauerhaft gespeichert bzw. gemäß der {@link FsyncPolicy} bestätigt wurde.
+     *
+     * @param sequence Die Nummer des Schreibvorganges.
+     * @throws IOException sollte der Vorgang nicht geschrieben werden können.
+     */
+    void await(long sequence) throws IOException;
+
+    /**
+     * Schreibt alle ausstehenden Blöcke, synchronisiert sie und gibt alle Ressourcen frei.
+     *
+     * @throws IOException sollte dabei ein Fehler auftreten.
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Öffnet den Speicher, den die Einstellungen vorgeben.
+     *
+     * @param path   Die Datei oder das Verzeichnis der Blockchain.
+     * @param config Die Einstellungen.
+     * @return Der geöffnete Speicher.
+     * @throws IOException sollte der Pfad nicht verwendet werden können.
+     */
+    static ChainStore open(File path, ChainConfig config) throws IOException {
+        if (config.getMode() == StorageMode.MEMORY) return new MemoryChainStore();
+        return new ChainLog(path, config);
+    }
+}
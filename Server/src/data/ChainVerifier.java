@@ -0,0 +1,124 @@
+package data;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Überprüft die Signaturen eines Bereiches der Blockchain parallel in einem {@code ForkJoinPool}.
+ * <p>
+ * Jeder Block benötigt zur Überprüfung nur den Hash seines Vorgängers, der bereits vor der Überprüfung bekannt ist.
+ * Daher können die Blöcke unabhängig voneinander überprüft werden. Gemeldet wird immer der niedrigste fehlerhafte Block,
+ * unabhängig davon, in welcher Reihenfolge die Threads arbeiten. Ein Block, der nicht gelesen oder geparsed werden kann
+ * (beliebige {@code RuntimeException}), gilt als fehlerhaft.
+ */
+class ChainVerifier {
+    /**
+     * Bis zu dieser Anzahl an Blöcken wird eine Aufgabe nicht weiter geteilt.
+     */
+    private static final int THRESHOLD = 32;
+    /**
+     * Liefert den geparsten Block an einer Position.
+     */
+    private final IntFunction<Block> blockAt;
+    /**
+     * Liefert den Hash des Vorgängers des Blockes an einer Position.
+     */
+    private final IntFunction<byte[]> previousHashAt;
+    /**
+     * Die Anzahl der Threads.
+     */
+    private final int threads;
+
+    /**
+     * Erzeugt ein neues Objekt.
+     *
+     * @param blockAt        Liefert den geparsten Block an einer Position. Muss von mehreren Threads aufgerufen werden können
+     *                       und wirft eine {@code RuntimeException}, sollte der Block nicht gelesen werden können.
+     * @param previousHashAt Liefert den Hash des Vorgängers des Blockes an einer Position.
+     * @param threads        Die Anzahl der Threads.
+     */
+    ChainVerifier(IntFunction<Block> blockAt, IntFunction<byte[]> previousHashAt, int threads) {
+        this.blockAt = blockAt;
+        this.previousHashAt = previousHashAt;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Überprüft die Blöcke in einem Bereich.
+     *
+     * @param from Die Position des ersten Blockes (inklusive).
+     * @param to   Die Position nach dem letzten Block (exklusive).
+     * @return Die Position des ersten fehlerhaften Blockes oder {@code -1}, sollten alle Blöcke korrekt sein.
+     */
+    int verify(int from, int to) {
+        AtomicInteger firstInvalid = new AtomicInteger(Integer.MAX_VALUE);
+        if (threads == 1 || to - from <= THRESHOLD) {
+            new VerifyTask(from, to, firstInvalid).compute();
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new VerifyTask(from, to, firstInvalid));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return firstInvalid.get() == Integer.MAX_VALUE ? -1 : firstInvalid.get();
+    }
+
+    /**
+     * Überprüft einen Teilbereich und teilt diesen bei Bedarf weiter auf.
+     */
+    private class VerifyTask extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1L;
+        /**
+         * Die Position des ersten Blockes.
+         */
+        private final int from;
+        /**
+         * Die Position nach dem letzten Block.
+         */
+        private final int to;
+        /**
+         * Die niedrigste bisher gefundene fehlerhafte Position.
+         */
+        private final AtomicInteger firstInvalid;
+
+        /**
+         * Erzeugt eine neue Aufgabe.
+         *
+         * @param from         Die Position des ersten Blockes (inklusive).
+         * @param to           Die Position nach dem letzten Block (exklusive).
+         * @param firstInvalid Die niedrigste bisher gefundene fehlerhafte Position.
+         */
+        VerifyTask(int from, int to, AtomicInteger firstInvalid) {
+            this.from = from;
+            this.to = to;
+            this.firstInvalid = firstInvalid;
+        }
+
+        @Override
+        protected Void compute() {
+            if (to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new VerifyTask(from, middle, firstInvalid), new VerifyTask(middle, to, firstInvalid));
+                return null;
+            }
+            //Blöcke hinter einem bereits gefundenen Fehler müssen nicht mehr überprüft werden
+            for (int i = from; i < to && i < firstInvalid.get(); i++) {
+                boolean valid;
+                try {
+                    valid = blockAt.apply(i).verify(previousHashAt.apply(i));
+                } catch (RuntimeException e) {
+                    valid = false;
+                }
+                if (!valid) {
+                    firstInvalid.accumulateAndGet(i, Math::min);
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+}
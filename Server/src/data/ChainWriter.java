@@ -0,0 +1,293 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Schreibt Datensätze in einem eigenen Thread in die Dateien der Blockchain (Group Commit).
+ * <p>
+ * Eingereichte Schreibvorgänge erhalten eine fortlaufende Nummer und werden streng in dieser Reihenfolge ausgeführt.
+ * Alle Vorgänge, die sich beim Aufwachen des Threads angesammelt haben, werden je Datei mit einem einzigen
+ * Gathering-Write geschrieben. Je nach {@link FsyncPolicy} folgt darauf ein gemeinsames {@code force()},
+ * bevor die Vorgänge bestätigt werden.
+ */
+class ChainWriter implements AutoCloseable {
+    /**
+     * Wann synchronisiert wird.
+     */
+    private final FsyncPolicy policy;
+    /**
+     * Das Intervall für {@link FsyncPolicy#INTERVAL} in Millisekunden.
+     */
+    private final long intervalMillis;
+    /**
+     * Die noch nicht geschriebenen Vorgänge.
+     */
+    private final ArrayDeque<Write> queue = new ArrayDeque<>();
+    /**
+     * Dateien, die geschrieben, aber noch nicht synchronisiert wurden.
+     */
+    private final Set<FileChannel> dirty = new HashSet<>();
+    /**
+     * Der Thread, der schreibt.
+     */
+    private final Thread committer;
+    /**
+     * Die Nummer des zuletzt eingereichten Vorganges.
+     */
+    private long submitted = 0;
+    /**
+     * Die Nummer des zuletzt bestätigten Vorganges.
+     */
+    private long acknowledged = 0;
+    /**
+     * Der Zeitpunkt der letzten Synchronisation.
+     */
+    private long lastForce = System.currentTimeMillis();
+    /**
+     * Der Fehler, der beim Schreiben aufgetreten ist. Danach werden keine Vorgänge mehr angenommen.
+     */
+    private IOException failure;
+    /**
+     * Ob keine weiteren Vorgänge mehr angenommen werden.
+     */
+    private boolean closed = false;
+
+    /**
+     * Ein einzelner Schreibvorgang.
+     */
+    private static class Write {
+        /**
+         * Die Datei.
+         */
+        private final FileChannel channel;
+        /**
+         * Die zu schreibenden Daten.
+         */
+        private final ByteBuffer[] data;
+        /**
+         * Wird nach dem Schreiben und Synchronisieren ausgeführt oder ist {@code null}.
+         */
+        private final Finisher afterwards;
+        /**
+         * Die Nummer des Vorganges.
+         */
+        private final long sequence;
+
+        /**
+         * Erzeugt einen neuen Vorgang.
+         *
+         * @param channel    Die Datei.
+         * @param data       Die zu schreibenden Daten.
+         * @param afterwards Wird nach dem Schreiben und Synchronisieren ausgeführt oder ist {@code null}.
+         * @param sequence   Die Nummer des Vorganges.
+         */
+        Write(FileChannel channel, ByteBuffer[] data, Finisher afterwards, long sequence) {
+            this.channel = channel;
+            this.data = data;
+            this.afterwards = afterwards;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Abschließende Aufgabe nach einem Schreibvorgang, z.B. das Schließen einer versiegelten Datei.
+     */
+    interface Finisher {
+        /**
+         * Führt die Aufgabe aus.
+         *
+         * @throws IOException sollte die Aufgabe fehlschlagen.
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * Erzeugt ein neues Objekt und startet den schreibenden Thread.
+     *
+     * @param policy         Wann synchronisiert wird.
+     * @param intervalMillis Das Intervall für {@link FsyncPolicy#INTERVAL} in Millisekunden.
+     */
+    ChainWriter(FsyncPolicy policy, long intervalMillis) {
+        this.policy = policy;
+        this.intervalMillis = Math.max(1, intervalMillis);
+        committer = new Thread(this::run, "chain-writer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Reicht einen Schreibvorgang ein.
+     *
+     * @param channel    Die Datei, an deren aktuelle Position geschrieben wird.
+     * @param data       Die zu schreibenden Daten.
+     * @param afterwards Wird nach dem Schreiben und Synchronisieren im schreibenden Thread ausgeführt oder ist {@code null}.
+     * @return Die Nummer des Vorganges für {@link #await(long)}.
+     * @throws IOException sollte zuvor ein Fehler aufgetreten oder der Writer geschlossen sein.
+     */
+    synchronized long submit(FileChannel channel, ByteBuffer[] data, Finisher afterwards) throws IOException {
+        if (failure != null) throw new IOException("Writing the chain failed earlier!", failure);
+        if (closed) throw new IOException("Writer is closed!");
+        queue.add(new Write(channel, data, afterwards, ++submitted));
+        notifyAll();
+        return submitted;
+    }
+
+    /**
+     * Wartet, bis ein Vorgang gemäß der {@link FsyncPolicy} bestätigt wurde.
+     *
+     * @param sequence Die Nummer des Vorganges.
+     * @throws IOException sollte der Vorgang nicht geschrieben werden können.
+     */
+    synchronized void await(long sequence) throws IOException {
+        boolean interrupted = false;
+        while (acknowledged < sequence && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (acknowledged < sequence) throw new IOException("Writing the chain failed!", failure);
+    }
+
+    /**
+     * Schreibt alle ausstehenden Vorgänge, synchronisiert die Dateien und beendet den schreibenden Thread.
+     *
+     * @throws IOException sollte dabei ein Fehler auftreten.
+     */
+    @Override
+    public void close() throws IOException {
+        long last;
+        synchronized (this) {
+            closed = true;
+            last = submitted;
+            notifyAll();
+        }
+        await(last);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        forceDirty();
+    }
+
+    /**
+     * Die Schleife des schreibenden Threads.
+     */
+    private void run() {
+        while (true) {
+            List<Write> batch = new ArrayList<>();
+            synchronized (this) {
+                try {
+                    while (queue.isEmpty() && !closed) {
+                        if (policy == FsyncPolicy.INTERVAL && !dirty.isEmpty())
+                            wait(Math.max(1, lastForce + intervalMillis - System.currentTimeMillis()));
+                        else
+                            wait();
+                        if (policy == FsyncPolicy.INTERVAL && System.currentTimeMillis() - lastForce >= intervalMillis)
+                            break;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (queue.isEmpty() && closed) return;
+                batch.addAll(queue);
+                queue.clear();
+            }
+            try {
+                commit(batch);
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                System.err.println("Fehler beim Schreiben der Blockchain: " + e.getLocalizedMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Schreibt einen Stapel von Vorgängen und bestätigt diese.
+     *
+     * @param batch Die Vorgänge in der Reihenfolge ihrer Nummern.
+     * @throws IOException sollte dabei ein Fehler auftreten.
+     */
+    private void commit(List<Write> batch) throws IOException {
+        int begin = 0;
+        while (begin < batch.size()) {
+            //aufeinanderfolgende Vorgänge in dieselbe Datei zu einem Gathering-Write zusammenfassen
+            int end = begin + 1;
+            if (policy != FsyncPolicy.PER_BLOCK) {
+                while (end < batch.size() && batch.get(end).channel == batch.get(begin).channel
+                        && batch.get(end - 1).afterwards == null) end++;
+            }
+            List<ByteBuffer> buffers = new ArrayList<>();
+            for (int i = begin; i < end; i++) {
+                buffers.addAll(Arrays.asList(batch.get(i).data));
+            }
+            writeFully(batch.get(begin).channel, buffers.toArray(new ByteBuffer[0]));
+            dirty.add(batch.get(begin).channel);
+            Write last = batch.get(end - 1);
+            if (policy == FsyncPolicy.PER_BLOCK || last.afterwards != null) {
+                if (policy != FsyncPolicy.NONE) forceDirty();
+                if (last.afterwards != null) {
+                    dirty.remove(last.channel);
+                    last.afterwards.run();
+                }
+                acknowledge(last.sequence);
+            }
+            begin = end;
+        }
+        long lastSequence = batch.isEmpty() ? 0 : batch.get(batch.size() - 1).sequence;
+        if (policy == FsyncPolicy.GROUP
+                || policy == FsyncPolicy.INTERVAL && System.currentTimeMillis() - lastForce >= intervalMillis)
+            forceDirty();
+        acknowledge(lastSequence);
+    }
+
+    /**
+     * Schreibt alle Buffer vollständig.
+     *
+     * @param channel Die Datei.
+     * @param buffers Die Daten.
+     * @throws IOException sollte nicht geschrieben werden können.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer[] buffers) throws IOException {
+        int first = 0;
+        while (first < buffers.length) {
+            channel.write(buffers, first, buffers.length - first);
+            while (first < buffers.length && !buffers[first].hasRemaining()) first++;
+        }
+    }
+
+    /**
+     * Synchronisiert alle geschriebenen Dateien.
+     *
+     * @throws IOException sollte nicht synchronisiert werden können.
+     */
+    private void forceDirty() throws IOException {
+        for (FileChannel channel : dirty) {
+            if (channel.isOpen()) channel.force(false);
+        }
+        dirty.clear();
+        lastForce = System.currentTimeMillis();
+    }
+
+    /**
+     * Bestätigt alle Vorgänge bis zu einer Nummer.
+     *
+     * @param sequence Die Nummer.
+     */
+    private synchronized void acknowledge(long sequence) {
+        if (sequence > acknowledged) {
+            acknowledged = sequence;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package data;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Ein Checkpoint hält fest, bis zu welcher Höhe die Signaturen der Blockchain bereits überprüft wurden.
+ * <p>
+ * Neben der Höhe werden der Hash des letzten überprüften Blockes und ein fortlaufender Digest über alle Blockhashes
+ * bis zu dieser Höhe gespeichert. Der Digest beginnt mit 32 Nullbytes und wird für jeden Block durch
+ * {@code Sha-256(digest || hash)} fortgeschrieben.
+ * <p>
+ * Aufbau der Datei: {@code [long Magic][int Version][int Höhe][32 Byte Hash][32 Byte Digest]}
+ */
+class Checkpoint {
+    /**
+     * Kennzeichnet eine Checkpointdatei.
+     */
+    private static final long MAGIC = 0x5A45554743504B21L;
+    /**
+     * Die Version des Dateiformates.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Die Anzahl der Blöcke, bis zu der überprüft wurde.
+     */
+    private final int height;
+    /**
+     * Der Hash des letzten überprüften Blockes.
+     */
+    private final byte[] tipHash;
+    /**
+     * Der fortlaufende Digest über alle Blockhashes bis zur Höhe.
+     */
+    private final byte[] digest;
+
+    /**
+     * Erzeugt einen neuen Checkpoint.
+     *
+     * @param height  Die Anzahl der überprüften Blöcke.
+     * @param tipHash Der Hash des letzten überprüften Blockes.
+     * @param digest  Der fortlaufende Digest bis zu diesem Block.
+     */
+    Checkpoint(int height, byte[] tipHash, byte[] digest) {
+        this.height = height;
+        this.tipHash = tipHash;
+        this.digest = digest;
+    }
+
+    /**
+     * Gibt den Anfangswert des fortlaufenden Digests zurück.
+     *
+     * @return 32 Nullbytes.
+     */
+    static byte[] initialDigest() {
+        return new byte[32];
+    }
+
+    /**
+     * Schreibt den fortlaufenden Digest um einen Block fort.
+     *
+     * @param digest Der bisherige Digest.
+     * @param hash   Der Hash des nächsten Blockes.
+     * @return Der neue Digest.
+     * @see NoSuchAlgorithmException
+     */
+    static byte[] extend(byte[] digest, byte[] hash) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("Sha-256");
+        md.update(digest);
+        md.update(hash);
+        return md.digest();
+    }
+
+    /**
+     * Liest einen Checkpoint.
+     *
+     * @param file Die Checkpointdatei.
+     * @return Der Checkpoint oder {@code null}, sollte die Datei fehlen oder nicht lesbar sein.
+     */
+    static Checkpoint load(File file) {
+        if (!file.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) return null;
+            int height = in.readInt();
+            byte[] tipHash = new byte[32];
+            byte[] digest = new byte[32];
+            in.readFully(tipHash);
+            in.readFully(digest);
+            return new Checkpoint(height, tipHash, digest);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Speichert den Checkpoint. Dabei wird zunächst in eine temporäre Datei geschrieben,
+     * die anschließend die alte Datei ersetzt.
+     *
+     * @param file Die Checkpointdatei.
+     * @throws IOException sollte die Datei nicht geschrieben werden können.
+     */
+    void save(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(height);
+            out.write(tipHash);
+            out.write(digest);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Getter für die Höhe.
+     *
+     * @return Die Anzahl der überprüften Blöcke.
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Getter für den Hash des letzten überprüften Blockes.
+     *
+     * @return Der Hash.
+     */
+    byte[] getTipHash() {
+        return tipHash;
+    }
+
+    /**
+     * Getter für den fortlaufenden Digest.
+     *
+     * @return Der Digest.
+     */
+    byte[] getDigest() {
+        return digest;
+    }
+}
@@ -0,0 +1,278 @@
+package data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Ein versiegeltes Segment, das in unabhängig voneinander komprimierten Abschnitten gespeichert ist.
+ * <p>
+ * Der Inhalt des ursprünglichen Segmentes wird in Abschnitte fester Größe geteilt, die jeweils einzeln mit
+ * {@link Deflater} komprimiert werden. Eine Tabelle mit den Positionen der Abschnitte erlaubt es, jeden Bereich des
+ * ursprünglichen Segmentes zu lesen, indem nur die betroffenen Abschnitte entpackt werden. Positionen innerhalb des
+ * Segmentes bleiben so unverändert und die gelesenen Daten sind mit denen des ursprünglichen Segmentes identisch.
+ * <p>
+ * Aufbau: {@code [long Magic][int Version][int Abschnittsgröße][long ursprüngliche Länge][int Anzahl]
+ * [long Position je Abschnitt und Ende][Abschnitte]}
+ */
+class CompressedSegment implements Closeable {
+    /**
+     * Die Endung komprimierter Segmente.
+     */
+    static final String SUFFIX = ".zsegment";
+    /**
+     * Die Standardgröße eines Abschnittes vor der Komprimierung.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 64 << 10;
+    /**
+     * Kennzeichnet ein komprimiertes Segment.
+     */
+    private static final long MAGIC = 0x5A4555475A534547L;
+    /**
+     * Die Version des Dateiformates.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Die Größe des Dateikopfes ohne Tabelle.
+     */
+    private static final int HEADER_SIZE = 8 + 4 + 4 + 8 + 4;
+    /**
+     * Die Datei.
+     */
+    private final FileChannel channel;
+    /**
+     * Die Größe eines Abschnittes vor der Komprimierung.
+     */
+    private final int chunkSize;
+    /**
+     * Die Länge des ursprünglichen Segmentes.
+     */
+    private final long length;
+    /**
+     * Die Positionen der Abschnitte in der Datei, zuletzt das Ende des letzten Abschnittes.
+     */
+    private final long[] chunkOffsets;
+    /**
+     * Entpackt die Abschnitte.
+     */
+    private final Inflater inflater = new Inflater();
+    /**
+     * Die Nummer des zuletzt entpackten Abschnittes oder {@code -1}.
+     */
+    private int cachedChunk = -1;
+    /**
+     * Der zuletzt entpackte Abschnitt.
+     */
+    private final byte[] chunk;
+
+    /**
+     * Öffnet ein komprimiertes Segment.
+     *
+     * @param file Die Datei.
+     * @throws IOException sollte die Datei nicht gelesen werden können oder fehlerhaft sein.
+     */
+    CompressedSegment(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, 0);
+            if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION)
+                throw new IOException("Compressed segment " + file.getName() + " is corrupted!");
+            chunkSize = header.getInt(12);
+            length = header.getLong(16);
+            int count = header.getInt(24);
+            if (chunkSize <= 0 || length < 0 || count < 0 || (long) count * chunkSize < length)
+                throw new IOException("Compressed segment " + file.getName() + " is corrupted!");
+            ByteBuffer table = ByteBuffer.allocate(8 * (count + 1));
+            readFully(table, HEADER_SIZE);
+            chunkOffsets = new long[count + 1];
+            for (int i = 0; i <= count; i++) {
+                chunkOffsets[i] = table.getLong(8 * i);
+            }
+            if (chunkOffsets[count] != channel.size())
+                throw new IOException("Compressed segment " + file.getName() + " is corrupted!");
+            chunk = new byte[chunkSize];
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Komprimiert ein Segment. Dabei wird zunächst in eine temporäre Datei geschrieben,
+     * die anschließend in das Ziel umbenannt wird.
+     *
+     * @param source    Das versiegelte Segment.
+     * @param target    Die komprimierte Datei.
+     * @param chunkSize Die Größe eines Abschnittes vor der Komprimierung.
+     * @throws IOException sollte eine der Dateien nicht gelesen bzw. geschrieben werden können.
+     */
+    static void compress(File source, File target, int chunkSize) throws IOException {
+        long length = source.length();
+        int count = (int) ((length + chunkSize - 1) / chunkSize);
+        long[] offsets = new long[count + 1];
+        ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(source))) {
+            byte[] input = new byte[chunkSize];
+            byte[] output = new byte[chunkSize];
+            long dataStart = HEADER_SIZE + 8L * (count + 1);
+            for (int i = 0; i < count; i++) {
+                offsets[i] = dataStart + chunks.size();
+                int read = 0;
+                int n;
+                while (read < input.length && (n = in.read(input, read, input.length - read)) > 0) read += n;
+                deflater.reset();
+                deflater.setInput(input, 0, read);
+                deflater.finish();
+                while (!deflater.finished()) {
+                    chunks.write(output, 0, deflater.deflate(output));
+                }
+            }
+            offsets[count] = dataStart + chunks.size();
+        } finally {
+            deflater.end();
+        }
+        File tmp = new File(target.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(chunkSize);
+            out.writeLong(length);
+            out.writeInt(count);
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            chunks.writeTo(out);
+        }
+        try (FileChannel written = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Getter für die Länge des ursprünglichen Segmentes.
+     *
+     * @return Die Länge in Bytes.
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Getter für die Größe der komprimierten Datei.
+     *
+     * @return Die Größe in Bytes.
+     */
+    long compressedLength() {
+        return chunkOffsets[chunkOffsets.length - 1];
+    }
+
+    /**
+     * Liest einen Bereich des ursprünglichen Segmentes.
+     *
+     * @param dst      Wird zwischen Position und Limit gefüllt.
+     * @param position Die Position im ursprünglichen Segment.
+     * @return Gibt {@code false} zurück, sollte das Segment vorher enden.
+     * @throws IOException sollte die Datei nicht gelesen oder entpackt werden können.
+     */
+    synchronized boolean read(ByteBuffer dst, long position) throws IOException {
+        if (position < 0 || position + dst.remaining() > length) return false;
+        while (dst.hasRemaining()) {
+            int index = (int) (position / chunkSize);
+            int begin = (int) (position - (long) index * chunkSize);
+            int available = inflate(index) - begin;
+            int n = Math.min(available, dst.remaining());
+            dst.put(chunk, begin, n);
+            position += n;
+        }
+        return true;
+    }
+
+    /**
+     * Öffnet einen Stream über den Inhalt des ursprünglichen Segmentes.
+     *
+     * @return Der Stream.
+     */
+    InputStream openStream() {
+        return new InputStream() {
+            private long position = 0;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (position >= length) return -1;
+                int n = (int) Math.min(len, length - position);
+                CompressedSegment.this.read(ByteBuffer.wrap(b, off, n), position);
+                position += n;
+                return n;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            inflater.end();
+        }
+        channel.close();
+    }
+
+    /**
+     * Entpackt einen Abschnitt in {@link #chunk}, sofern er nicht bereits entpackt vorliegt.
+     *
+     * @param index Die Nummer des Abschnittes.
+     * @return Die Größe des entpackten Abschnittes.
+     * @throws IOException sollte der Abschnitt nicht gelesen oder entpackt werden können.
+     */
+    private int inflate(int index) throws IOException {
+        int size = (int) Math.min(chunkSize, length - (long) index * chunkSize);
+        if (cachedChunk == index) return size;
+        ByteBuffer compressed = ByteBuffer.allocate((int) (chunkOffsets[index + 1] - chunkOffsets[index]));
+        readFully(compressed, chunkOffsets[index]);
+        cachedChunk = -1;
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            int inflated = 0;
+            while (inflated < size && !inflater.finished()) {
+                int n = inflater.inflate(chunk, inflated, size - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                inflated += n;
+            }
+            if (inflated != size)
+                throw new IOException("Compressed segment is corrupted!");
+        } catch (DataFormatException e) {
+            throw new IOException("Compressed segment is corrupted!", e);
+        }
+        cachedChunk = index;
+        return size;
+    }
+
+    /**
+     * Liest ab einer Position der Datei, bis der Buffer gefüllt ist.
+     *
+     * @param buffer   Der zu füllende Buffer.
+     * @param position Die Position in der Datei.
+     * @throws IOException sollte die Datei vorher enden oder nicht gelesen werden können.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new IOException("File is corrupted!");
+            position += n;
+        }
+    }
+}
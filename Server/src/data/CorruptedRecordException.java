@@ -0,0 +1,50 @@
+package data;
+
+import java.io.IOException;
+
+/**
+ * Wird geworfen, wenn ein Datensatz einer Blockchain beschädigt oder unvollständig ist.
+ * Enthält die Stelle, an der der Datensatz liegt.
+ */
+class CorruptedRecordException extends IOException {
+    private static final long serialVersionUID = 1L;
+    /**
+     * Die Nummer des Segmentes, in dem der Datensatz liegt.
+     */
+    private final int segment;
+    /**
+     * Die Position des Datensatzes im Segment.
+     */
+    private final long offset;
+
+    /**
+     * Erzeugt eine neue Exception.
+     *
+     * @param message Die Beschreibung des Fehlers.
+     * @param segment Die Nummer des Segmentes, in dem der Datensatz liegt.
+     * @param offset  Die Position des Datensatzes im Segment.
+     */
+    CorruptedRecordException(String message, int segment, long offset) {
+        super(message);
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    /**
+     * Getter für die Nummer des Segmentes.
+     *
+     * @return Die Nummer des Segmentes, in dem der Datensatz liegt.
+     */
+    int getSegment() {
+        return segment;
+    }
+
+    /**
+     * Getter für die Position des Datensatzes.
+     *
+     * @return Die Position des Datensatzes im Segment.
+     */
+    long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,16 @@
+package data;
+
+/**
+ * Legt fest, in welchem Format {@link ChainExporter} die Metadaten der Blöcke schreibt.
+ */
+public enum ExportFormat {
+    /**
+     * Binäres Spaltenformat: Die Blöcke werden in Gruppen geschrieben, in denen jedes Feld als zusammenhängendes
+     * Array eines primitiven Typs vorliegt.
+     */
+    COLUMNAR,
+    /**
+     * Eine Textzeile je Block mit kommagetrennten Feldern und einer Kopfzeile.
+     */
+    CSV
+}
@@ -0,0 +1,24 @@
+package data;
+
+/**
+ * Legt fest, wann geschriebene Blöcke mit {@code force()} dauerhaft auf den Datenträger gebracht werden.
+ */
+public enum FsyncPolicy {
+    /**
+     * Jeder Block wird einzeln geschrieben und synchronisiert, bevor er bestätigt wird.
+     */
+    PER_BLOCK,
+    /**
+     * Alle kurz nacheinander eingereichten Blöcke werden gemeinsam geschrieben und mit einem einzigen
+     * {@code force()} synchronisiert, bevor sie bestätigt werden.
+     */
+    GROUP,
+    /**
+     * Blöcke werden nach dem Schreiben bestätigt und in einem festen Intervall synchronisiert.
+     */
+    INTERVAL,
+    /**
+     * Blöcke werden nach dem Schreiben bestätigt und nie explizit synchronisiert.
+     */
+    NONE
+}
@@ -0,0 +1,128 @@
+package data;
+
+import utils.ByteUtils;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Index, der einem Sha-256 Hash eine Position zuordnet,
+ * z.B. einem Blockhash die Position des Blockes in der Blockchain.
+ * <p>
+ * Als Schlüssel dienen die ersten acht Bytes des Sha-256 Hashes, die in einer Tabelle mit
+ * offener Adressierung (lineares Sondieren) als {@code long} abgelegt werden.
+ * Da sich zwei Hashes in diesen acht Bytes gleichen können, wird bei einem Treffer der vollständige
+ * Hash über {@code hashAt} verglichen.
+ */
+class HashIndex {
+    /**
+     * Ab diesem Füllgrad wird die Tabelle vergrößert.
+     */
+    private static final float MAX_LOAD = 0.5f;
+    /**
+     * Liefert den vollständigen Hash zu einer Position.
+     */
+    private final IntFunction<byte[]> hashAt;
+    /**
+     * Die ersten acht Bytes der Hashes.
+     */
+    private long[] keys;
+    /**
+     * Die Positionen um eins erhöht, sodass {@code 0} einen leeren Platz markiert.
+     */
+    private int[] positions;
+    /**
+     * Anzahl der eingetragenen Hashes.
+     */
+    private int size = 0;
+
+    /**
+     * Erzeugt einen leeren Index.
+     *
+     * @param expectedSize Die erwartete Anzahl an Einträgen.
+     * @param hashAt       Liefert den vollständigen Hash zu einer Position.
+     */
+    HashIndex(int expectedSize, IntFunction<byte[]> hashAt) {
+        this.hashAt = hashAt;
+        int capacity = 16;
+        while (capacity * MAX_LOAD < expectedSize) capacity <<= 1;
+        keys = new long[capacity];
+        positions = new int[capacity];
+    }
+
+    /**
+     * Verteilt den Schlüssel auf einen Platz in der Tabelle.
+     *
+     * @param key  Der Schlüssel.
+     * @param mask Die Maske der Tabellengröße.
+     * @return Der erste zu prüfende Platz.
+     */
+    private static int slot(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Trägt einen Hash ein.
+     *
+     * @param hash     Der Hash.
+     * @param position Die zugehörige Position.
+     */
+    void put(byte[] hash, int position) {
+        if (size + 1 > keys.length * MAX_LOAD) grow();
+        insert(ByteUtils.toLong(hash, 0), position);
+        size++;
+    }
+
+    /**
+     * Sucht die Position zu diesem Hash.
+     *
+     * @param hash Der gesuchte Hash.
+     * @return Die Position oder {@code -1}, sollte der Hash nicht eingetragen sein.
+     */
+    int find(byte[] hash) {
+        if (hash == null || hash.length < 8) return -1;
+        long key = ByteUtils.toLong(hash, 0);
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); positions[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key && Arrays.equals(hashAt.apply(positions[i] - 1), hash))
+                return positions[i] - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Getter für die Anzahl der eingetragenen Hashes.
+     *
+     * @return Die Anzahl.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Legt einen Eintrag ohne Prüfung des Füllgrades ab.
+     *
+     * @param key      Der Schlüssel.
+     * @param position Die zugehörige Position.
+     */
+    private void insert(long key, int position) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (positions[i] != 0) i = (i + 1) & mask;
+        keys[i] = key;
+        positions[i] = position + 1;
+    }
+
+    /**
+     * Verdoppelt die Tabellengröße und verteilt alle Einträge neu.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldPositions = positions;
+        keys = new long[oldKeys.length << 1];
+        positions = new int[oldPositions.length << 1];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldPositions[i] != 0) insert(oldKeys[i], oldPositions[i] - 1);
+        }
+    }
+}
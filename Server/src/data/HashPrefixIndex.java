@@ -0,0 +1,204 @@
+package data;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Sortierter Index über die ersten acht Bytes der Blockhashes, um Blöcke über einen kurzen Präfix ihres Hashes zu finden.
+ * <p>
+ * Je Block werden nur die ersten acht Bytes als {@code long} und die Position gespeichert, sortiert nach diesem Wert.
+ * Ein Präfix bestimmt einen zusammenhängenden Bereich, der per binärer Suche gefunden wird; längere Präfixe werden
+ * anschließend mit dem vollständigen Hash verglichen. Neue Blöcke landen zunächst in einem kleinen unsortierten Puffer,
+ * der erst beim Überlaufen in den sortierten Teil gemischt wird, damit das Anhängen nicht jedes Mal das gesamte Array
+ * verschiebt.
+ */
+class HashPrefixIndex {
+    /**
+     * Die Anzahl an Einträgen im unsortierten Puffer, ab der dieser vor einer Suche eingemischt wird.
+     */
+    private static final int BUFFER_SIZE = 1024;
+    /**
+     * Liefert den Hash des Blockes an einer Position.
+     */
+    private final IntFunction<byte[]> hashAt;
+    /**
+     * Die ersten acht Bytes der Hashes, mit umgekehrtem Vorzeichenbit, sodass die vorzeichenbehaftete Sortierung der
+     * vorzeichenlosen entspricht. Aufsteigend sortiert.
+     */
+    private long[] keys = new long[16];
+    /**
+     * Die Positionen der Blöcke zu {@link #keys}.
+     */
+    private int[] positions = new int[16];
+    /**
+     * Anzahl der sortierten Einträge.
+     */
+    private int size = 0;
+    /**
+     * Die Schlüssel der noch nicht einsortierten Einträge.
+     */
+    private long[] pendingKeys = new long[16];
+    /**
+     * Die Positionen der noch nicht einsortierten Einträge.
+     */
+    private int[] pendingPositions = new int[16];
+    /**
+     * Anzahl der noch nicht einsortierten Einträge.
+     */
+    private int pending = 0;
+
+    /**
+     * Erzeugt einen leeren Index.
+     *
+     * @param hashAt Liefert den Hash des Blockes an einer Position.
+     */
+    HashPrefixIndex(IntFunction<byte[]> hashAt) {
+        this.hashAt = hashAt;
+    }
+
+    /**
+     * Trägt einen Block ein.
+     *
+     * @param hash     Der Hash des Blockes.
+     * @param position Die Position des Blockes.
+     */
+    void add(byte[] hash, int position) {
+        if (pending == pendingKeys.length) {
+            pendingKeys = Arrays.copyOf(pendingKeys, pending << 1);
+            pendingPositions = Arrays.copyOf(pendingPositions, pending << 1);
+        }
+        pendingKeys[pending] = bound(hash, (byte) 0);
+        pendingPositions[pending++] = position;
+        //beim Laden wächst der Puffer mit dem Index, sodass insgesamt nur O(n log n) gemischt wird
+        if (pending > Math.max(BUFFER_SIZE, size)) merge();
+    }
+
+    /**
+     * Sucht die Blöcke, deren Hash mit einem Präfix beginnt.
+     *
+     * @param prefix Der Präfix, höchstens 32 Bytes.
+     * @param limit  Nach wie vielen Treffern die Suche abgebrochen wird.
+     * @return Die Positionen von höchstens {@code limit} passenden Blöcken.
+     */
+    int[] find(byte[] prefix, int limit) {
+        if (pending > BUFFER_SIZE) merge();
+        long low = bound(prefix, (byte) 0);
+        long high = bound(prefix, (byte) 0xFF);
+        int[] result = new int[limit];
+        int found = 0;
+        for (int i = lowerBound(low); i < size && keys[i] <= high && found < limit; i++) {
+            if (matches(positions[i], prefix)) result[found++] = positions[i];
+        }
+        for (int i = 0; i < pending && found < limit; i++) {
+            if (pendingKeys[i] >= low && pendingKeys[i] <= high && matches(pendingPositions[i], prefix))
+                result[found++] = pendingPositions[i];
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Überprüft, ob der Hash eines Blockes mit dem Präfix beginnt. Bis zu acht Bytes sind bereits durch den Schlüssel
+     * überprüft, für längere Präfixe wird der vollständige Hash verglichen.
+     *
+     * @param position Die Position des Blockes.
+     * @param prefix   Der Präfix.
+     * @return Gibt {@code true} zurück, wenn der Hash mit dem Präfix beginnt.
+     */
+    private boolean matches(int position, byte[] prefix) {
+        if (prefix.length <= 8) return true;
+        byte[] hash = hashAt.apply(position);
+        for (int i = 8; i < prefix.length; i++) {
+            if (hash[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Bildet den Schlüssel aus den ersten acht Bytes, wobei fehlende Bytes aufgefüllt werden.
+     *
+     * @param bytes Der Hash oder Präfix.
+     * @param fill  Der Wert für fehlende Bytes.
+     * @return Der Schlüssel mit umgekehrtem Vorzeichenbit.
+     */
+    private static long bound(byte[] bytes, byte fill) {
+        long key = 0;
+        for (int i = 0; i < 8; i++) {
+            key = (key << 8) | ((i < bytes.length ? bytes[i] : fill) & 0xFF);
+        }
+        return key ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Sucht den ersten sortierten Eintrag, dessen Schlüssel nicht kleiner ist.
+     *
+     * @param key Der Schlüssel.
+     * @return Die Stelle im sortierten Teil.
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Sortiert den Puffer und mischt ihn in den sortierten Teil.
+     */
+    private void merge() {
+        sort(pendingKeys, pendingPositions, 0, pending, new long[pending], new int[pending]);
+        long[] mergedKeys = new long[Math.max(16, Integer.highestOneBit(size + pending) << 1)];
+        int[] mergedPositions = new int[mergedKeys.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size || j < pending) {
+            if (j == pending || i < size && keys[i] <= pendingKeys[j]) {
+                mergedKeys[k] = keys[i];
+                mergedPositions[k++] = positions[i++];
+            } else {
+                mergedKeys[k] = pendingKeys[j];
+                mergedPositions[k++] = pendingPositions[j++];
+            }
+        }
+        keys = mergedKeys;
+        positions = mergedPositions;
+        size = k;
+        pending = 0;
+    }
+
+    /**
+     * Sortiert einen Bereich zweier paralleler Arrays nach den Schlüsseln (Mergesort).
+     *
+     * @param keys      Die Schlüssel.
+     * @param values    Die zugehörigen Positionen.
+     * @param from      Der Anfang des Bereiches (inklusive).
+     * @param to        Das Ende des Bereiches (exklusive).
+     * @param keyTmp    Zwischenspeicher für die Schlüssel, mindestens so groß wie der Bereich.
+     * @param valueTmp  Zwischenspeicher für die Positionen, mindestens so groß wie der Bereich.
+     */
+    private static void sort(long[] keys, int[] values, int from, int to, long[] keyTmp, int[] valueTmp) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        sort(keys, values, from, mid, keyTmp, valueTmp);
+        sort(keys, values, mid, to, keyTmp, valueTmp);
+        if (keys[mid - 1] <= keys[mid]) return;
+        int i = from;
+        int j = mid;
+        int k = 0;
+        while (i < mid || j < to) {
+            if (j == to || i < mid && keys[i] <= keys[j]) {
+                keyTmp[k] = keys[i];
+                valueTmp[k++] = values[i++];
+            } else {
+                keyTmp[k] = keys[j];
+                valueTmp[k++] = values[j++];
+            }
+        }
+        System.arraycopy(keyTmp, 0, keys, from, k);
+        System.arraycopy(valueTmp, 0, values, from, k);
+    }
+}
@@ -0,0 +1,79 @@
+package data;
+
+import java.util.List;
+
+/**
+ * Beweis, dass ein Block in der Blockchain enthalten ist.
+ * <p>
+ * Mit der Position des Blockes, der Anzahl der Blöcke und dem Pfad kann aus dem Blockhash die Wurzel des
+ * {@link MerkleTree} berechnet werden. Stimmt diese mit {@link #getRoot()} überein, ist der Block Teil der Blockchain.
+ */
+public class InclusionProof {
+    /**
+     * Die Position des Blockes.
+     */
+    private final int index;
+    /**
+     * Die Anzahl der Blöcke, über die der Baum gebildet wurde.
+     */
+    private final int size;
+    /**
+     * Die Wurzel des Baumes.
+     */
+    private final byte[] root;
+    /**
+     * Die Hashes der Geschwister auf dem Weg vom Block zur Wurzel.
+     */
+    private final List<byte[]> path;
+
+    /**
+     * Erzeugt einen neuen Beweis.
+     *
+     * @param index Die Position des Blockes.
+     * @param size  Die Anzahl der Blöcke, über die der Baum gebildet wurde.
+     * @param root  Die Wurzel des Baumes.
+     * @param path  Die Hashes der Geschwister auf dem Weg vom Block zur Wurzel, beginnend beim Block.
+     */
+    InclusionProof(int index, int size, byte[] root, List<byte[]> path) {
+        this.index = index;
+        this.size = size;
+        this.root = root;
+        this.path = path;
+    }
+
+    /**
+     * Getter für die Position des Blockes.
+     *
+     * @return Die Position, beginnend bei {@code 0}.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Getter für die Anzahl der Blöcke.
+     *
+     * @return Die Anzahl der Blöcke, über die der Baum gebildet wurde.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Getter für die Wurzel.
+     *
+     * @return Die Wurzel des Baumes.
+     */
+    public byte[] getRoot() {
+        return root;
+    }
+
+    /**
+     * Getter für den Pfad.
+     *
+     * @return Die Hashes der Geschwister auf dem Weg vom Block zur Wurzel, beginnend beim Block.
+     */
+    public List<byte[]> getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,132 @@
+package data;
+
+/**
+ * Beschreibt, wo ein Block gespeichert ist und wie er ohne Parsen gefunden werden kann.
+ */
+class IndexEntry {
+    /**
+     * Die Nummer des Segmentes, in dem der Block liegt.
+     */
+    private final int segment;
+    /**
+     * Die Position des Datensatzes im Segment.
+     */
+    private final long offset;
+    /**
+     * Die Größe des Blockes.
+     */
+    private final int length;
+    /**
+     * Der Blockhash.
+     */
+    private final byte[] hash;
+    /**
+     * Der Fingerabdruck des Schülers.
+     */
+    private final byte[] studentFingerprint;
+    /**
+     * Das Jahr des Blockes.
+     */
+    private final short year;
+    /**
+     * Die Schulnummer des Blockes.
+     */
+    private final int schoolNumber;
+
+    /**
+     * Erzeugt einen neuen Eintrag.
+     *
+     * @param segment            Die Nummer des Segmentes, in dem der Block liegt.
+     * @param offset             Die Position des Datensatzes im Segment.
+     * @param length             Die Größe des Blockes.
+     * @param hash               Der Blockhash.
+     * @param studentFingerprint Der Fingerabdruck des Schülers.
+     * @param year               Das Jahr des Blockes.
+     * @param schoolNumber       Die Schulnummer des Blockes.
+     */
+    IndexEntry(int segment, long offset, int length, byte[] hash, byte[] studentFingerprint, short year, int schoolNumber) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+        this.hash = hash;
+        this.studentFingerprint = studentFingerprint;
+        this.year = year;
+        this.schoolNumber = schoolNumber;
+    }
+
+    /**
+     * Erzeugt einen Eintrag für einen geparsten Block.
+     *
+     * @param segment Die Nummer des Segmentes, in dem der Block liegt.
+     * @param offset  Die Position des Datensatzes im Segment.
+     * @param block   Der Block.
+     * @return Der Eintrag.
+     */
+    static IndexEntry of(int segment, long offset, Block block) {
+        return new IndexEntry(segment, offset, block.getLength(), block.getHash(), block.getStudentFingerprint(),
+                block.getYear(), block.getSchoolNumber());
+    }
+
+    /**
+     * Getter für die Nummer des Segmentes.
+     *
+     * @return Die Nummer des Segmentes.
+     */
+    int getSegment() {
+        return segment;
+    }
+
+    /**
+     * Getter für die Position des Datensatzes.
+     *
+     * @return Die Position im Segment.
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Getter für die Größe des Blockes.
+     *
+     * @return Die Größe in Bytes.
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Getter für den Blockhash.
+     *
+     * @return Der Blockhash.
+     */
+    byte[] getHash() {
+        return hash;
+    }
+
+    /**
+     * Getter für den Fingerabdruck des Schülers.
+     *
+     * @return Der Sha-256 Hash des codierten Schülerschlüssels.
+     */
+    byte[] getStudentFingerprint() {
+        return studentFingerprint;
+    }
+
+    /**
+     * Getter für das Jahr.
+     *
+     * @return Das Jahr des Blockes.
+     */
+    short getYear() {
+        return year;
+    }
+
+    /**
+     * Getter für die Schulnummer.
+     *
+     * @return Die Schulnummer des Blockes.
+     */
+    int getSchoolNumber() {
+        return schoolNumber;
+    }
+}
@@ -0,0 +1,84 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Speicher, der die Blöcke nur im Heap hält und nichts in Dateien schreibt.
+ * <p>
+ * Alle Blöcke liegen im Segment {@code 0}, die Position eines Blockes ist seine Nummer in der Liste.
+ * Angehängte Blöcke gelten sofort als gespeichert.
+ */
+class MemoryChainStore implements ChainStore {
+    /**
+     * Die Blöcke in der Reihenfolge der Blockchain.
+     */
+    private final List<ByteBuffer> blocks = new ArrayList<>();
+
+    @Override
+    public synchronized void read(RecordHandler handler) {
+        //ein neuer Speicher ist immer leer
+    }
+
+    @Override
+    public void restore(int segment, long offset, byte[] hash) {
+        //es gibt keinen Zustand, der wiederhergestellt werden müsste
+    }
+
+    @Override
+    public synchronized boolean isTail(int segment, long offset, int length) {
+        return segment == 0 && offset == blocks.size() - 1 && blocks.get((int) offset).remaining() == length;
+    }
+
+    @Override
+    public boolean follows(IndexEntry previous, int segment, long offset) {
+        return segment == 0 && offset == (previous == null ? 0 : previous.getOffset() + 1);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+
+    @Override
+    public synchronized ByteBuffer readBlock(int segment, long offset, int length) throws IOException {
+        if (segment != 0 || offset < 0 || offset >= blocks.size() || blocks.get((int) offset).remaining() != length)
+            throw new IOException("Block does not exist!");
+        return blocks.get((int) offset).duplicate();
+    }
+
+    @Override
+    public synchronized long append(ByteBuffer block, byte[] hash) {
+        ByteBuffer copy = ByteBuffer.allocate(block.remaining());
+        copy.put(block.duplicate()).flip();
+        blocks.add(copy.asReadOnlyBuffer());
+        return blocks.size() - 1;
+    }
+
+    @Override
+    public int getActiveSegment() {
+        return 0;
+    }
+
+    @Override
+    public long getLastSequence() {
+        return 0;
+    }
+
+    @Override
+    public void await(long sequence) {
+        //angehängte Blöcke sind sofort gespeichert
+    }
+
+    @Override
+    public synchronized void close() {
+        blocks.clear();
+    }
+}
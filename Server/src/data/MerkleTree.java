@@ -0,0 +1,192 @@
+package data;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Merkle-Baum über die Blockhashes, der beim Anhängen eines Blockes mit {@code O(log n)} Hashes fortgeschrieben wird.
+ * <p>
+ * Der Aufbau entspricht dem Baum aus RFC 6962 bzw. RFC 9162: Die Blätter sind die Blockhashes selbst, ein innerer
+ * Knoten ist {@code Sha-256(0x01 || links || rechts)}. Bei {@code n} Blättern besteht der linke Teilbaum aus den ersten
+ * {@code k} Blättern, wobei {@code k} die größte Zweierpotenz kleiner {@code n} ist. Alle vollständigen Teilbäume
+ * werden ebenenweise gespeichert, sodass die Wurzel und Inklusionsbeweise mit {@code O(log n)} Hashes bestimmt werden
+ * können, ohne die Blöcke zu lesen.
+ */
+class MerkleTree {
+    /**
+     * Die Größe eines Hashes.
+     */
+    private static final int HASH_SIZE = 32;
+    /**
+     * Wird den Kindern eines inneren Knotens beim Hashen vorangestellt.
+     */
+    private static final byte NODE_PREFIX = 1;
+    /**
+     * Liefert den Blockhash an einer Position.
+     */
+    private final IntFunction<byte[]> leafAt;
+    /**
+     * Die Knoten der vollständigen Teilbäume ab Ebene 1, je Ebene hintereinander abgelegt.
+     */
+    private final List<byte[]> levels = new ArrayList<>();
+    /**
+     * Berechnet die Hashes der inneren Knoten.
+     */
+    private final MessageDigest digest;
+    /**
+     * Die Anzahl der Blätter.
+     */
+    private int size = 0;
+    /**
+     * Die Wurzel oder {@code null}, sollte sie seit dem letzten Anhängen noch nicht berechnet worden sein.
+     */
+    private byte[] root;
+
+    /**
+     * Erzeugt einen leeren Baum.
+     *
+     * @param leafAt Liefert den Blockhash an einer Position.
+     * @throws NoSuchAlgorithmException sollte Sha-256 nicht verfügbar sein.
+     */
+    MerkleTree(IntFunction<byte[]> leafAt) throws NoSuchAlgorithmException {
+        this.leafAt = leafAt;
+        digest = MessageDigest.getInstance("Sha-256");
+    }
+
+    /**
+     * Hängt ein Blatt an und bildet alle dadurch vollständig gewordenen Teilbäume.
+     *
+     * @param hash Der Blockhash an der nächsten Position.
+     */
+    void add(byte[] hash) {
+        int index = size++;
+        byte[] node = hash;
+        int level = 0;
+        while ((index & 1) == 1) {
+            node = hashNodes(node(level, index - 1), node);
+            level++;
+            index >>>= 1;
+            store(level, index, node);
+        }
+        root = null;
+    }
+
+    /**
+     * Getter für die Anzahl der Blätter.
+     *
+     * @return Die Anzahl.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Getter für die Wurzel.
+     *
+     * @return Die Wurzel über alle Blätter oder 32 Nullbytes, sollte der Baum leer sein.
+     */
+    byte[] getRoot() {
+        if (size == 0) return new byte[HASH_SIZE];
+        if (root == null) root = subtreeHash(0, size);
+        return root.clone();
+    }
+
+    /**
+     * Bestimmt den Inklusionsbeweis für ein Blatt über den aktuellen Baum.
+     *
+     * @param index Die Position des Blattes.
+     * @return Die Hashes der Geschwister auf dem Weg vom Blatt zur Wurzel, beginnend beim Blatt.
+     * @throws IndexOutOfBoundsException sollte die Position nicht belegt sein.
+     */
+    List<byte[]> getPath(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Position: " + index + ", Size: " + size);
+        List<byte[]> path = new ArrayList<>();
+        collectPath(index, 0, size, path);
+        return path;
+    }
+
+    /**
+     * Sammelt den Pfad für ein Blatt innerhalb eines Teilbaumes (PATH aus RFC 6962).
+     *
+     * @param index Die Position des Blattes.
+     * @param start Das erste Blatt des Teilbaumes.
+     * @param count Die Anzahl der Blätter des Teilbaumes.
+     * @param path  Das Ziel.
+     */
+    private void collectPath(int index, int start, int count, List<byte[]> path) {
+        if (count == 1) return;
+        int split = Integer.highestOneBit(count - 1);
+        if (index < start + split) {
+            collectPath(index, start, split, path);
+            path.add(subtreeHash(start + split, count - split));
+        } else {
+            collectPath(index, start + split, count - split, path);
+            path.add(subtreeHash(start, split));
+        }
+    }
+
+    /**
+     * Berechnet den Hash eines Teilbaumes. Vollständige Teilbäume werden dabei nicht neu berechnet.
+     *
+     * @param start Das erste Blatt des Teilbaumes.
+     * @param count Die Anzahl der Blätter des Teilbaumes.
+     * @return Der Hash.
+     */
+    private byte[] subtreeHash(int start, int count) {
+        if (Integer.bitCount(count) == 1) {
+            int level = Integer.numberOfTrailingZeros(count);
+            return node(level, start >>> level);
+        }
+        int split = Integer.highestOneBit(count - 1);
+        return hashNodes(subtreeHash(start, split), subtreeHash(start + split, count - split));
+    }
+
+    /**
+     * Gibt einen Knoten eines vollständigen Teilbaumes zurück.
+     *
+     * @param level Die Ebene, {@code 0} für die Blätter.
+     * @param index Die Position auf der Ebene.
+     * @return Der Hash des Knotens.
+     */
+    private byte[] node(int level, int index) {
+        if (level == 0) return leafAt.apply(index);
+        int from = index * HASH_SIZE;
+        return Arrays.copyOfRange(levels.get(level - 1), from, from + HASH_SIZE);
+    }
+
+    /**
+     * Speichert einen Knoten eines vollständigen Teilbaumes.
+     *
+     * @param level Die Ebene, mindestens {@code 1}.
+     * @param index Die Position auf der Ebene.
+     * @param node  Der Hash des Knotens.
+     */
+    private void store(int level, int index, byte[] node) {
+        if (levels.size() < level) levels.add(new byte[16 * HASH_SIZE]);
+        byte[] nodes = levels.get(level - 1);
+        if ((index + 1) * HASH_SIZE > nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length << 1);
+            levels.set(level - 1, nodes);
+        }
+        System.arraycopy(node, 0, nodes, index * HASH_SIZE, HASH_SIZE);
+    }
+
+    /**
+     * Berechnet den Hash eines inneren Knotens.
+     *
+     * @param left  Der linke Kindknoten.
+     * @param right Der rechte Kindknoten.
+     * @return {@code Sha-256(0x01 || links || rechts)}.
+     */
+    private byte[] hashNodes(byte[] left, byte[] right) {
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+}
@@ -0,0 +1,106 @@
+package data;
+
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index, der einer Kombination aus Schulnummer und Jahr die Positionen der passenden Blöcke zuordnet.
+ * <p>
+ * Schulnummer und Jahr werden zu einem Schlüssel zusammengesetzt, der zuerst nach der Schulnummer und danach nach dem
+ * Jahr sortiert. Alle Blöcke einer Schule aus einem Bereich von Jahren liegen so in einem zusammenhängenden Bereich
+ * des Index und können ohne Durchsuchen der Blockchain gefunden werden.
+ */
+class SchoolIndex {
+    /**
+     * Keine Blöcke.
+     */
+    private static final int[] EMPTY = new int[0];
+    /**
+     * Die Positionen der Blöcke je zusammengesetztem Schlüssel.
+     */
+    private final TreeMap<Long, Positions> entries = new TreeMap<>();
+
+    /**
+     * Trägt einen Block ein. Die Blöcke müssen in aufsteigender Reihenfolge eingetragen werden.
+     *
+     * @param schoolNumber Die Schulnummer des Blockes.
+     * @param year         Das Jahr des Blockes.
+     * @param position     Die Position des Blockes.
+     */
+    void add(int schoolNumber, short year, int position) {
+        entries.computeIfAbsent(key(schoolNumber, year), k -> new Positions()).add(position);
+    }
+
+    /**
+     * Sucht die Blöcke einer Schule aus einem Bereich von Jahren.
+     *
+     * @param schoolNumber Die Schulnummer.
+     * @param fromYear     Das erste Jahr (inklusive).
+     * @param toYear       Das letzte Jahr (inklusive).
+     * @return Die Positionen der Blöcke in aufsteigender Reihenfolge.
+     */
+    int[] find(int schoolNumber, short fromYear, short toYear) {
+        if (fromYear > toYear) return EMPTY;
+        NavigableMap<Long, Positions> range = entries.subMap(key(schoolNumber, fromYear), true, key(schoolNumber, toYear), true);
+        if (range.isEmpty()) return EMPTY;
+        if (range.size() == 1) return range.firstEntry().getValue().toArray();
+        int count = 0;
+        for (Positions positions : range.values()) {
+            count += positions.count;
+        }
+        int[] result = new int[count];
+        int offset = 0;
+        for (Positions positions : range.values()) {
+            System.arraycopy(positions.values, 0, result, offset, positions.count);
+            offset += positions.count;
+        }
+        //Die Jahre sind in der Blockchain nicht sortiert, daher wieder in die Reihenfolge der Blockchain bringen.
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Setzt den Schlüssel aus Schulnummer und Jahr zusammen, sodass die Sortierung beider erhalten bleibt.
+     *
+     * @param schoolNumber Die Schulnummer.
+     * @param year         Das Jahr.
+     * @return Der Schlüssel.
+     */
+    static long key(int schoolNumber, short year) {
+        return ((long) schoolNumber << 16) | (year - Short.MIN_VALUE);
+    }
+
+    /**
+     * Die Positionen der Blöcke zu einem Schlüssel.
+     */
+    private static class Positions {
+        /**
+         * Die Positionen in aufsteigender Reihenfolge.
+         */
+        private int[] values = new int[2];
+        /**
+         * Die Anzahl der belegten Einträge.
+         */
+        private int count = 0;
+
+        /**
+         * Hängt eine Position an.
+         *
+         * @param position Die Position.
+         */
+        private void add(int position) {
+            if (count == values.length) values = Arrays.copyOf(values, count << 1);
+            values[count++] = position;
+        }
+
+        /**
+         * Kopiert die Positionen.
+         *
+         * @return Die Positionen als neues Array.
+         */
+        private int[] toArray() {
+            return Arrays.copyOf(values, count);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Im Speicher gehaltene Statistik über die Blockchain, die mit jedem angehängten Block fortgeschrieben wird.
+ * <p>
+ * Je Kombination aus Schulnummer und Jahr werden Anzahl und Größe der Blöcke sowie die Höhe des letzten Blockes gezählt.
+ * Die Werte stammen aus den Indexeinträgen, sodass die Blöcke selbst weder beim Start noch bei einer Abfrage gelesen
+ * werden. Der Stand für Abfragen wird erst nach einer Änderung neu erzeugt und sonst wiederverwendet.
+ */
+class StatisticsProjection {
+    /**
+     * Die Zähler je zusammengesetztem Schlüssel aus Schulnummer und Jahr.
+     */
+    private final TreeMap<Long, Counter> counters = new TreeMap<>();
+    /**
+     * Die Anzahl der Blöcke.
+     */
+    private int height = 0;
+    /**
+     * Die Größe aller Blöcke zusammen.
+     */
+    private long bytes = 0;
+    /**
+     * Der zuletzt erzeugte Stand oder {@code null}, sollte sich die Statistik seitdem geändert haben.
+     */
+    private ChainStatistics snapshot;
+
+    /**
+     * Zählt einen angehängten Block.
+     *
+     * @param entry  Der Indexeintrag des Blockes.
+     * @param height Die Höhe des Blockes.
+     */
+    void add(IndexEntry entry, int height) {
+        Counter counter = counters.computeIfAbsent(SchoolIndex.key(entry.getSchoolNumber(), entry.getYear()),
+                k -> new Counter(entry.getSchoolNumber(), entry.getYear()));
+        counter.blocks++;
+        counter.bytes += entry.getLength();
+        counter.lastHeight = height;
+        this.height = height + 1;
+        bytes += entry.getLength();
+        snapshot = null;
+    }
+
+    /**
+     * Gibt den aktuellen Stand zurück.
+     *
+     * @return Der Stand, der bis zur nächsten Änderung wiederverwendet wird.
+     */
+    ChainStatistics getSnapshot() {
+        if (snapshot == null) {
+            List<ChainStatistics.Entry> entries = new ArrayList<>(counters.size());
+            for (Counter counter : counters.values()) {
+                entries.add(new ChainStatistics.Entry(counter.schoolNumber, counter.year, counter.blocks, counter.bytes, counter.lastHeight));
+            }
+            snapshot = new ChainStatistics(height, bytes, entries);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Die Zähler einer Schule für ein Jahr.
+     */
+    private static class Counter {
+        /**
+         * Die Schulnummer.
+         */
+        private final int schoolNumber;
+        /**
+         * Das Jahr.
+         */
+        private final short year;
+        /**
+         * Die Anzahl der Blöcke.
+         */
+        private int blocks = 0;
+        /**
+         * Die Größe der Blöcke zusammen.
+         */
+        private long bytes = 0;
+        /**
+         * Die Höhe des zuletzt angehängten Blockes.
+         */
+        private int lastHeight = -1;
+
+        /**
+         * Erzeugt neue Zähler.
+         *
+         * @param schoolNumber Die Schulnummer.
+         * @param year         Das Jahr.
+         */
+        private Counter(int schoolNumber, short year) {
+            this.schoolNumber = schoolNumber;
+            this.year = year;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package data;
+
+/**
+ * Legt fest, wie die Blöcke einer geladenen Blockchain gespeichert und im Speicher gehalten werden.
+ *
+ * @see ChainStore
+ */
+public enum StorageMode {
+    /**
+     * Im Heap bleibt nur die Tabelle mit Position, Größe und Hash jedes Blockes. Die Blöcke selbst werden bei Bedarf
+     * aus der Datei gelesen und im {@link BlockCache} abgelegt, dessen Größe {@link ChainConfig#getBlockCacheSize()}
+     * begrenzt.
+     */
+    HEAP,
+    /**
+     * Die Blockchaindatei wird mit {@code FileChannel.map} in den Speicher abgebildet.
+     * Die Blöcke sind schreibgeschützte Ausschnitte dieser Abbildung und belegen keinen Heap.
+     */
+    MAPPED,
+    /**
+     * Die Blöcke werden nur im Heap gehalten und nicht in Dateien geschrieben.
+     * Nach einem Neustart ist die Blockchain wieder leer, z.B. für Tests oder flüchtige Spiegel.
+     */
+    MEMORY
+}
@@ -0,0 +1,254 @@
+package data;
+
+import data.BenchmarkReport.Phase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Überprüft, ob sich alle Arten der Speicherung ({@link StorageMode}) gleich verhalten, und misst dabei ihre
+ * Geschwindigkeit. Die Blöcke einer vorhandenen Blockchain werden dazu für jede Art in eine neue Blockchain im
+ * Arbeitsverzeichnis eingereicht, nach Höhe und Hash gelesen und nach einem Neustart mit und ohne Indexdatei mit den
+ * Originalen verglichen. Eine Blockchain im Modus {@link StorageMode#MEMORY} muss nach dem Neustart leer sein.
+ * <p>
+ * Die Quelle wird nur gelesen, die neuen Blockchains bleiben im Arbeitsverzeichnis erhalten.
+ */
+public class StoreBenchmark {
+    /**
+     * Die Datei bzw. das Verzeichnis der Quelle.
+     */
+    private final File source;
+    /**
+     * Das Verzeichnis, in dem die neuen Blockchains angelegt werden.
+     */
+    private final File directory;
+    /**
+     * Die maximale Anzahl an Blöcken, die aus der Quelle übernommen werden.
+     */
+    private int limit = Integer.MAX_VALUE;
+    /**
+     * Die maximale Größe eines Segmentes der neuen Blockchains oder {@code 0} für eine einzelne Datei.
+     */
+    private long segmentSize = 0;
+    /**
+     * Wann die neuen Blöcke synchronisiert werden.
+     */
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.GROUP;
+
+    private final List<byte[]> blocks = new ArrayList<>();
+    private final List<byte[]> hashes = new ArrayList<>();
+
+    /**
+     * Erzeugt einen neuen Vergleich.
+     *
+     * @param source    Die Datei bzw. das Verzeichnis der Blockchain, deren Blöcke verwendet werden.
+     * @param directory Das Verzeichnis, in dem die neuen Blockchains angelegt werden.
+     */
+    public StoreBenchmark(File source, File directory) {
+        this.source = source;
+        this.directory = directory;
+    }
+
+    /**
+     * Setter für die Anzahl der Blöcke.
+     *
+     * @param limit Die maximale Anzahl an Blöcken, die aus der Quelle übernommen werden.
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Setter für die Größe der Segmente.
+     *
+     * @param segmentSize Die maximale Größe eines Segmentes der neuen Blockchains oder {@code 0} für eine einzelne Datei.
+     */
+    public void setSegmentSize(long segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Setter für die Synchronisation.
+     *
+     * @param fsyncPolicy Wann die neuen Blöcke synchronisiert werden.
+     */
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    /**
+     * Liest die Quelle und führt alle Schritte für jede Art der Speicherung aus.
+     *
+     * @return Ein Ergebnis je Art der Speicherung in der Reihenfolge von {@link StorageMode#values()}.
+     * @throws IOException sollte die Quelle nicht gelesen oder das Arbeitsverzeichnis nicht verwendet werden können.
+     */
+    public List<BenchmarkReport> run() throws IOException {
+        if (!source.exists())
+            throw new IOException("Source does not exist!");
+        for (StorageMode mode : StorageMode.values()) {
+            File target = getTarget(mode);
+            for (String suffix : new String[]{"", ".idx", ".ckpt", ".bloom"}) {
+                if (new File(target.getPath() + suffix).exists())
+                    throw new IOException("Target " + target.getName() + suffix + " already exists!");
+            }
+        }
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Directory could not be created!");
+        load();
+        List<BenchmarkReport> reports = new ArrayList<>();
+        for (StorageMode mode : StorageMode.values()) {
+            reports.add(run(mode));
+        }
+        return reports;
+    }
+
+    /**
+     * Liest die Blöcke der Quelle in den Heap.
+     *
+     * @throws IOException sollte die Quelle nicht gelesen werden können.
+     */
+    private void load() throws IOException {
+        ChainConfig config = new ChainConfig();
+        config.setSegmentSize(source.isDirectory() ? ChainLog.DEFAULT_SEGMENT_SIZE : 0);
+        try (ChainLog log = ChainLog.openReadOnly(source, config)) {
+            MessageDigest md = MessageDigest.getInstance("Sha-256");
+            log.read((block, segment, offset) -> {
+                md.update(block.duplicate());
+                byte[] hash = md.digest();
+                if (blocks.size() < limit) {
+                    byte[] data = new byte[block.remaining()];
+                    block.duplicate().get(data);
+                    blocks.add(data);
+                    hashes.add(hash);
+                }
+                return hash;
+            });
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IOException("Chain could not be read!", e);
+        }
+    }
+
+    /**
+     * Führt alle Schritte für eine Art der Speicherung aus. Nach dem ersten Fehler wird abgebrochen.
+     *
+     * @param mode Die Art der Speicherung.
+     * @return Das Ergebnis.
+     */
+    private BenchmarkReport run(StorageMode mode) {
+        BenchmarkReport report = new BenchmarkReport(mode, blocks.size());
+        ChainConfig config = new ChainConfig();
+        config.setMode(mode);
+        config.setSegmentSize(segmentSize);
+        config.setFsyncPolicy(fsyncPolicy);
+        File target = getTarget(mode);
+        int expected = mode == StorageMode.MEMORY ? 0 : blocks.size();
+        Phase phase = Phase.APPEND;
+        try {
+            long start = System.nanoTime();
+            try (Blockchain chain = new Blockchain(target, config)) {
+                for (int i = 0; i < blocks.size(); i++) {
+                    if (!chain.verifyAndAdd(blocks.get(i)))
+                        return report.fail(phase, "Block at height " + i + " was rejected!");
+                }
+                report.record(phase, System.nanoTime() - start);
+                phase = Phase.HEIGHT;
+                if (!readByHeight(chain, blocks.size(), report, phase)) return report;
+                phase = Phase.HASH;
+                start = System.nanoTime();
+                for (int i = 0; i < blocks.size(); i++) {
+                    if (!matches(chain.getBlock(hashes.get(i)), i))
+                        return report.fail(phase, "Block " + i + " does not match its hash!");
+                }
+                report.record(phase, System.nanoTime() - start);
+            }
+            phase = Phase.REOPEN;
+            if (!reopen(target, config, expected, report, phase)) return report;
+            if (mode == StorageMode.MEMORY) return report;
+            File index = new File(target.getPath() + ".idx");
+            if (!index.delete())
+                return report.fail(Phase.REBUILD, "Index file could not be deleted!");
+            phase = Phase.REBUILD;
+            reopen(target, config, expected, report, phase);
+        } catch (IOException | RuntimeException e) {
+            report.fail(phase, e.toString());
+        }
+        return report;
+    }
+
+    /**
+     * Öffnet die Blockchain erneut und überprüft ihre Höhe. Beim Neustart mit Index werden danach zusätzlich alle Blöcke
+     * nach ihrer Höhe gelesen und verglichen.
+     *
+     * @param target   Die Datei bzw. das Verzeichnis der Blockchain.
+     * @param config   Die Einstellungen.
+     * @param expected Die Anzahl der Blöcke, die nach dem Öffnen vorhanden sein müssen.
+     * @param report   Das Ergebnis.
+     * @param phase    Der Schritt, als der das Öffnen gemessen wird.
+     * @return Gibt {@code true} zurück, wenn alle Blöcke übereinstimmen.
+     * @throws IOException sollte die Blockchain nicht geöffnet werden können.
+     */
+    private boolean reopen(File target, ChainConfig config, int expected, BenchmarkReport report, Phase phase) throws IOException {
+        long start = System.nanoTime();
+        try (Blockchain chain = new Blockchain(target, config)) {
+            report.record(phase, System.nanoTime() - start);
+            if (chain.getHeight() != expected) {
+                report.fail(phase, "Height is " + chain.getHeight() + " instead of " + expected + "!");
+                return false;
+            }
+            return phase != Phase.REOPEN || readByHeight(chain, expected, report, Phase.COLD);
+        }
+    }
+
+    /**
+     * Liest alle Blöcke nach ihrer Höhe und vergleicht sie mit den Originalen.
+     *
+     * @param chain  Die Blockchain.
+     * @param height Die Anzahl der Blöcke in der Blockchain.
+     * @param report Das Ergebnis.
+     * @param phase  Der Schritt, als der das Lesen gemessen wird.
+     * @return Gibt {@code true} zurück, wenn alle Blöcke übereinstimmen.
+     */
+    private boolean readByHeight(Blockchain chain, int height, BenchmarkReport report, Phase phase) {
+        long start = System.nanoTime();
+        for (int i = 0; i < height; i++) {
+            if (!matches(chain.getBlockAtHeight(i), i)) {
+                report.fail(phase, "Block at height " + i + " does not match!");
+                return false;
+            }
+        }
+        if (chain.getBlockAtHeight(height) != null) {
+            report.fail(phase, "Block at height " + height + " should not exist!");
+            return false;
+        }
+        report.record(phase, System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * Vergleicht einen gelesenen Block mit dem Original.
+     *
+     * @param block  Der gelesene Block oder {@code null}.
+     * @param height Die Höhe des Originals.
+     * @return Gibt {@code true} zurück, wenn der Block mit dem Original übereinstimmt.
+     */
+    private boolean matches(Block block, int height) {
+        return block != null && block.getBuffer().equals(ByteBuffer.wrap(blocks.get(height)));
+    }
+
+    /**
+     * Gibt die Datei bzw. das Verzeichnis der neuen Blockchain für eine Art der Speicherung zurück.
+     *
+     * @param mode Die Art der Speicherung.
+     * @return Die Datei bzw. das Verzeichnis im Arbeitsverzeichnis.
+     */
+    private File getTarget(StorageMode mode) {
+        return new File(directory, mode.name().toLowerCase(Locale.ROOT) + ".chain");
+    }
+}
@@ -0,0 +1,190 @@
+package data;
+
+import utils.ByteUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Bloom-Filter über die Fingerabdrücke der Schüler, die Blöcke in der Blockchain besitzen.
+ * <p>
+ * Liefert {@link #mightContain(byte[])} {@code false}, besitzt der Schüler sicher keine Blöcke. Bei {@code true}
+ * besitzt er mit der eingestellten Fehlerwahrscheinlichkeit doch keine. Da die Fingerabdrücke bereits Sha-256 Hashes
+ * sind, werden die benötigten Positionen per Double Hashing aus den ersten 16 Bytes abgeleitet.
+ * <p>
+ * Der Filter wird neben der Blockchain gespeichert und gibt an, bis zu welcher Höhe er die Blöcke enthält.
+ * Aufbau der Datei: {@code [long Magic][int Version][int Höhe][32 Byte Hash des letzten Blockes][int Anzahl Hashfunktionen]
+ * [int Kapazität][int Anzahl Einträge][int Anzahl Wörter][long Wort...]}
+ */
+class StudentFilter {
+    /**
+     * Kennzeichnet eine Filterdatei.
+     */
+    private static final long MAGIC = 0x5A45554742464C21L;
+    /**
+     * Die Version des Dateiformates.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Die Bits des Filters.
+     */
+    private final long[] bits;
+    /**
+     * Die Anzahl der Bits.
+     */
+    private final long bitCount;
+    /**
+     * Die Anzahl der Hashfunktionen.
+     */
+    private final int hashCount;
+    /**
+     * Die Anzahl an Einträgen, für die der Filter ausgelegt ist.
+     */
+    private final int capacity;
+    /**
+     * Die Anzahl der eingetragenen Fingerabdrücke, mehrfach eingetragene eingeschlossen.
+     */
+    private int size = 0;
+
+    /**
+     * Erzeugt einen leeren Filter.
+     *
+     * @param capacity Die Anzahl an Einträgen, für die der Filter ausgelegt ist.
+     * @param fpp      Die gewünschte Wahrscheinlichkeit für ein falsch positives Ergebnis bei voller Auslastung.
+     */
+    StudentFilter(int capacity, double fpp) {
+        this.capacity = Math.max(64, capacity);
+        fpp = Math.min(0.5, Math.max(1e-9, fpp));
+        long m = (long) Math.ceil(-this.capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6)];
+        bitCount = (long) bits.length << 6;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / this.capacity * Math.log(2)));
+    }
+
+    /**
+     * Erzeugt einen Filter aus gespeicherten Werten.
+     *
+     * @param bits      Die Bits.
+     * @param hashCount Die Anzahl der Hashfunktionen.
+     * @param capacity  Die Anzahl an Einträgen, für die der Filter ausgelegt ist.
+     * @param size      Die Anzahl der eingetragenen Fingerabdrücke.
+     */
+    private StudentFilter(long[] bits, int hashCount, int capacity, int size) {
+        this.bits = bits;
+        this.bitCount = (long) bits.length << 6;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    /**
+     * Trägt einen Fingerabdruck ein.
+     *
+     * @param fingerprint Der Sha-256 Hash des codierten Schlüssels des Schülers.
+     */
+    void add(byte[] fingerprint) {
+        long h1 = ByteUtils.toLong(fingerprint, 0);
+        long h2 = ByteUtils.toLong(fingerprint, 8) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        size++;
+    }
+
+    /**
+     * Prüft, ob ein Schüler Blöcke besitzen könnte.
+     *
+     * @param fingerprint Der Sha-256 Hash des codierten Schlüssels des Schülers.
+     * @return Gibt {@code false} zurück, wenn der Schüler sicher keine Blöcke besitzt.
+     */
+    boolean mightContain(byte[] fingerprint) {
+        if (fingerprint == null || fingerprint.length < 16) return false;
+        long h1 = ByteUtils.toLong(fingerprint, 0);
+        long h2 = ByteUtils.toLong(fingerprint, 8) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gibt zurück, ob mehr Fingerabdrücke eingetragen wurden, als der Filter ausgelegt ist.
+     * Die Fehlerwahrscheinlichkeit steigt dann über den eingestellten Wert.
+     *
+     * @return Gibt {@code true} zurück, wenn der Filter neu aufgebaut werden sollte.
+     */
+    boolean isFull() {
+        return size > capacity;
+    }
+
+    /**
+     * Getter für die Anzahl der eingetragenen Fingerabdrücke.
+     *
+     * @return Die Anzahl, mehrfach eingetragene eingeschlossen.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Liest einen gespeicherten Filter.
+     *
+     * @param file    Die Filterdatei.
+     * @param height  Die Höhe, bis zu der der Filter die Blöcke enthalten muss.
+     * @param tipHash Der Hash des Blockes auf dieser Höhe.
+     * @return Der Filter oder {@code null}, sollte die Datei fehlen, nicht lesbar sein oder nicht zur Blockchain passen.
+     */
+    static StudentFilter load(File file, int height, byte[] tipHash) {
+        if (!file.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) return null;
+            byte[] storedHash = new byte[32];
+            if (in.readInt() != height) return null;
+            in.readFully(storedHash);
+            if (!Arrays.equals(storedHash, tipHash)) return null;
+            int hashCount = in.readInt();
+            int capacity = in.readInt();
+            int size = in.readInt();
+            int words = in.readInt();
+            if (hashCount <= 0 || capacity <= 0 || words <= 0) return null;
+            long[] bits = new long[words];
+            for (int i = 0; i < words; i++) {
+                bits[i] = in.readLong();
+            }
+            return new StudentFilter(bits, hashCount, capacity, size);
+        } catch (IOException | OutOfMemoryError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Speichert den Filter. Dabei wird zunächst in eine temporäre Datei geschrieben,
+     * die anschließend die alte Datei ersetzt.
+     *
+     * @param file    Die Filterdatei.
+     * @param height  Die Höhe, bis zu der der Filter die Blöcke enthält.
+     * @param tipHash Der Hash des Blockes auf dieser Höhe.
+     * @throws IOException sollte die Datei nicht geschrieben werden können.
+     */
+    void save(File file, int height, byte[] tipHash) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(height);
+            out.write(tipHash);
+            out.writeInt(hashCount);
+            out.writeInt(capacity);
+            out.writeInt(size);
+            out.writeInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,87 @@
+package data;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Index, der dem Fingerabdruck eines Schülers (Sha-256 Hash des codierten Schlüssels)
+ * die Positionen seiner Blöcke in aufsteigender Reihenfolge zuordnet.
+ */
+class StudentIndex {
+    /**
+     * Keine Blöcke.
+     */
+    private static final int[] EMPTY = new int[0];
+    /**
+     * Ordnet einem Fingerabdruck die Nummer des Schülers zu.
+     */
+    private final HashIndex students;
+    /**
+     * Die Positionen der Blöcke je Schüler.
+     */
+    private int[][] positions = new int[16][];
+    /**
+     * Die Anzahl der belegten Einträge in {@code positions} je Schüler.
+     */
+    private int[] counts = new int[16];
+    /**
+     * Anzahl der bekannten Schüler.
+     */
+    private int studentCount = 0;
+
+    /**
+     * Erzeugt einen leeren Index.
+     *
+     * @param fingerprintAt Liefert den Fingerabdruck des Schülers des Blockes an einer Position.
+     */
+    StudentIndex(IntFunction<byte[]> fingerprintAt) {
+        students = new HashIndex(0, student -> fingerprintAt.apply(positions[student][0]));
+    }
+
+    /**
+     * Trägt einen Block ein. Die Blöcke müssen in aufsteigender Reihenfolge eingetragen werden.
+     *
+     * @param fingerprint Der Fingerabdruck des Schülers.
+     * @param position    Die Position des Blockes.
+     * @return Gibt {@code true} zurück, wenn der Schüler bisher keine Blöcke besaß.
+     */
+    boolean add(byte[] fingerprint, int position) {
+        int student = students.find(fingerprint);
+        if (student == -1) {
+            student = studentCount++;
+            if (student == positions.length) {
+                positions = Arrays.copyOf(positions, student << 1);
+                counts = Arrays.copyOf(counts, student << 1);
+            }
+            positions[student] = new int[2];
+            positions[student][counts[student]++] = position;
+            students.put(fingerprint, student);
+            return true;
+        }
+        if (counts[student] == positions[student].length)
+            positions[student] = Arrays.copyOf(positions[student], counts[student] << 1);
+        positions[student][counts[student]++] = position;
+        return false;
+    }
+
+    /**
+     * Getter für die Anzahl der Schüler.
+     *
+     * @return Die Anzahl der Schüler, die Blöcke besitzen.
+     */
+    int size() {
+        return studentCount;
+    }
+
+    /**
+     * Sucht die Blöcke eines Schülers.
+     *
+     * @param fingerprint Der Fingerabdruck des Schülers.
+     * @return Die Positionen seiner Blöcke in aufsteigender Reihenfolge.
+     */
+    int[] find(byte[] fingerprint) {
+        int student = students.find(fingerprint);
+        if (student == -1) return EMPTY;
+        return Arrays.copyOf(positions[student], counts[student]);
+    }
+}
@@ -0,0 +1,266 @@
+package network;
+
+import data.Block;
+import data.Blockchain;
+import data.InclusionProof;
+import utils.CryptoUtils;
+import utils.ProtocolCommands;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Repräsentiert die Verbindung zu einem Client, die in einem eigenen (virtuellen) Thread bedient wird.
+ * <p>
+ * Jede Anfrage wird blockierend gelesen und vollständig beantwortet, bevor die nächste gelesen wird. Das Protokoll und
+ * das Verhalten entsprechen {@link Client}: Nach Fehlermeldungen, Übertragungen mehrerer Blöcke bzw. Hashes und
+ * {@link ProtocolCommands#CLOSE} wird die Verbindung geschlossen. Wird eine begonnene Anfrage länger als
+ * {@link Client#READ_TIMEOUT} nicht fortgesetzt, wird die Verbindung gekappt.
+ */
+class BlockingClient implements Runnable {
+    /**
+     * Die Größe der Buffer für Ein- und Ausgabe.
+     */
+    private static final int BUFFER_SIZE = 4096;
+    /**
+     * Der Socket zum Client.
+     */
+    private final Socket socket;
+    /**
+     * Die Blockchain.
+     */
+    private final Blockchain chain;
+
+    /**
+     * Erzeugt ein neues Objekt.
+     *
+     * @param socket Der Socket zum Client.
+     * @param chain  Die Blockchain.
+     */
+    BlockingClient(Socket socket, Blockchain chain) {
+        this.socket = socket;
+        this.chain = chain;
+    }
+
+    /**
+     * Beantwortet Anfragen, bis die Verbindung geschlossen wird.
+     */
+    @Override
+    public void run() {
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), BUFFER_SIZE));
+            BufferedOutputStream buffer = new BufferedOutputStream(s.getOutputStream(), BUFFER_SIZE);
+            ResponseWriter responses = new ResponseWriter(new DataOutputStream(buffer), Channels.newChannel(buffer));
+            boolean open = true;
+            while (open) {
+                //auf den nächsten Befehl wird beliebig lange gewartet, auf den Rest einer Anfrage nicht
+                s.setSoTimeout(0);
+                int type = in.read();
+                if (type == -1) return;
+                s.setSoTimeout((int) Client.READ_TIMEOUT);
+                open = handle((byte) type, in, responses);
+                buffer.flush();
+            }
+        } catch (SocketTimeoutException ignored) {
+            //die Anfrage wurde nicht rechtzeitig vervollständigt
+        } catch (IOException e) {
+            System.err.println("Fehler mit Client: " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Liest den Rest einer Anfrage und beantwortet diese.
+     *
+     * @param type      Der empfangene Befehl.
+     * @param in        Liest vom Client.
+     * @param responses Schreibt an den Client.
+     * @return Gibt {@code false} zurück, wenn die Verbindung danach geschlossen werden soll.
+     * @throws IOException sollte es Probleme beim Lesen oder Senden geben.
+     */
+    private boolean handle(byte type, DataInputStream in, ResponseWriter responses) throws IOException {
+        switch (type) {
+            case ProtocolCommands.LASTHASH: {
+                byte[] hash;
+                int height;
+                synchronized (chain) {
+                    hash = chain.getLastHash();
+                    height = chain.getHeight();
+                }
+                responses.lastHash(hash, height);
+                return true;
+            }
+            case ProtocolCommands.ERROR:
+                return error(responses, "Wrong usage of the Error command!");
+            case ProtocolCommands.BLOCK:
+                return receiveBlock(readData(in, in.readInt()), responses);
+            case ProtocolCommands.CLOSE:
+                return false;
+            case ProtocolCommands.HASH:
+                return error(responses, "Wrong usage of the Hash command!");
+            case ProtocolCommands.OK:
+                return error(responses, "Wrong usage of the OK command!");
+            case ProtocolCommands.REJECT:
+                return error(responses, "Wrong usage of the Reject command!");
+            case ProtocolCommands.GETBLOCK: {
+                Block b = chain.getBlock(readData(in, 32));
+                if (b == null) return error(responses, "Block does not exist!");
+                responses.block(b);
+                return true;
+            }
+            case ProtocolCommands.PGETBLOCK: {
+                int length = in.readUnsignedByte();
+                if (length == 0 || length > 32) return error(responses, "Illegal hash prefix!");
+                List<Block> blocks = chain.getBlocksByPrefix(readData(in, length));
+                if (blocks.size() != 1)
+                    return error(responses, blocks.isEmpty() ? "Block does not exist!" : "Hash prefix is ambiguous!");
+                responses.block(blocks.get(0));
+                return true;
+            }
+            case ProtocolCommands.SGETBLOCK:
+                return sendStudentBlocks(readData(in, in.readInt()), responses);
+            case ProtocolCommands.FGETBLOCK: {
+                byte[] fingerprint = readData(in, 32);
+                if (!chain.mightContainStudent(fingerprint))
+                    return sendAllBlocks(Collections.emptyList(), responses);
+                return sendAllBlocks(chain.getStudentBlocks(fingerprint), responses);
+            }
+            case ProtocolCommands.STATS:
+                responses.statistics(chain.getStatistics());
+                return true;
+            case ProtocolCommands.GETRANGE: {
+                int from = in.readInt();
+                int count = in.readInt();
+                if (from < 0 || count <= 0 || from >= chain.getHeight())
+                    return error(responses, "Height out of range!");
+                int to = (int) Math.min((long) from + count, chain.getHeight());
+                //jeder Block wird erst unmittelbar vor dem Senden gelesen
+                for (int height = from; height < to; height++) {
+                    responses.block(chain.getBlockAtHeight(height));
+                }
+                responses.end();
+                return false;
+            }
+            case ProtocolCommands.GETPROOF: {
+                InclusionProof proof = chain.getProof(readData(in, 32));
+                if (proof == null) return error(responses, "Block does not exist!");
+                responses.proof(proof);
+                return true;
+            }
+            case ProtocolCommands.RGETBLOCK:
+            case ProtocolCommands.RGETHASH: {
+                int schoolNumber = in.readInt();
+                short fromYear = in.readShort();
+                short toYear = in.readShort();
+                if (type == ProtocolCommands.RGETBLOCK)
+                    return sendAllBlocks(chain.getSchoolBlocks(schoolNumber, fromYear, toYear), responses);
+                for (byte[] hash : chain.getSchoolHashes(schoolNumber, fromYear, toYear)) {
+                    responses.hash(hash);
+                }
+                responses.end();
+                return false;
+            }
+            default:
+                return error(responses, "Unknown command!");
+        }
+    }
+
+    /**
+     * Sendet alle Blöcke eines Schülers.
+     * Schließt der Bloom-Filter der Blockchain den Schüler aus, wird sofort geantwortet, ohne den Schlüssel zu parsen.
+     *
+     * @param key       Der codierte Schlüssel des Schülers.
+     * @param responses Schreibt an den Client.
+     * @return Gibt {@code false} zurück, da die Verbindung danach geschlossen wird.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    private boolean sendStudentBlocks(byte[] key, ResponseWriter responses) throws IOException {
+        try {
+            if (!chain.mightContainStudent(CryptoUtils.calculateSha256(key)))
+                return sendAllBlocks(Collections.emptyList(), responses);
+            PublicKey student = CryptoUtils.toPublicRSAKey(key);
+            return sendAllBlocks(chain.getStudentBlocks(student), responses);
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            return error(responses, "Illegal key!");
+        }
+    }
+
+    /**
+     * Sendet die spezifizierten Blöcke und beendet die Übertragung danach.
+     *
+     * @param blocks    Die Blöcke, die gesendet werden sollen.
+     * @param responses Schreibt an den Client.
+     * @return Gibt {@code false} zurück, da die Verbindung danach geschlossen wird.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    private boolean sendAllBlocks(List<Block> blocks, ResponseWriter responses) throws IOException {
+        for (Block b : blocks) {
+            responses.block(b);
+        }
+        responses.end();
+        return false;
+    }
+
+    /**
+     * Verifiziert einen neuen Block und fügt ihn gegebenenfalls der Blockchain hinzu.
+     *
+     * @param block     Der empfangene Block.
+     * @param responses Schreibt an den Client.
+     * @return Gibt {@code false} zurück, wenn die Verbindung danach geschlossen werden soll.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    private boolean receiveBlock(byte[] block, ResponseWriter responses) throws IOException {
+        if (chain.hasWriteFailed())
+            return error(responses, "Chain could not be written, no blocks are accepted!");
+        if (!chain.isVerified()) {
+            if (chain.getInvalidHeight() != -1)
+                return error(responses, "Chain is invalid at height " + chain.getInvalidHeight() + ", no blocks are accepted!");
+            return error(responses, "Chain is still being verified (" + chain.getVerifiedHeight() + " of "
+                    + chain.getHeight() + " blocks), try again later!");
+        }
+        responses.result(chain.verifyAndAdd(block));
+        return true;
+    }
+
+    /**
+     * Sendet eine Fehlermeldung an den Client.
+     *
+     * @param responses Schreibt an den Client.
+     * @param msg       Die gewünschte Fehlermeldung.
+     * @return Gibt {@code false} zurück, da die Verbindung danach geschlossen wird.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    private boolean error(ResponseWriter responses, String msg) throws IOException {
+        responses.error(msg);
+        return false;
+    }
+
+    /**
+     * Liest eine gewisse Anzahl an Bytes ein.
+     *
+     * @param in     Liest vom Client.
+     * @param length Die Anzahl der Bytes.
+     * @return Die gelesenen Bytes.
+     * @throws IOException sollte die Länge ungültig sein oder nicht gelesen werden können.
+     */
+    private static byte[] readData(DataInputStream in, int length) throws IOException {
+        byte[] data;
+        try {
+            data = new byte[length];
+        } catch (OutOfMemoryError | NegativeArraySizeException e) {
+            throw new IOException("Illegal length: " + length, e);
+        }
+        in.readFully(data);
+        return data;
+    }
+}
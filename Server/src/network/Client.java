@@ -2,6 +2,7 @@ package network;
 
 import data.Block;
 import data.Blockchain;
+import data.InclusionProof;
 import utils.ByteUtils;
 import utils.CryptoUtils;
 import utils.ProtocolCommands;
@@ -9,47 +10,93 @@ import utils.ProtocolCommands;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Collections;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.concurrent.Executor;
 
 /**
  * Repräsentiert die Verbindung zu einem Client.
+ * <p>
+ * Die Verbindung ist nicht blockierend. Sobald der Kanal lesbar oder schreibbar ist, werden die empfangenen Daten so weit
+ * verarbeitet, bis weitere Daten benötigt werden oder genug Antworten zum Senden ausstehen. Ein- und Ausgabe laufen über
+ * einen {@link InputBuffer} und einen {@link OutputBuffer}, sodass keine Aufgabe auf den Kanal wartet. Neue Blöcke
+ * werden in einem anderen Thread verifiziert; bis das Ergebnis gesendet wurde, ruhen die weiteren Anfragen des Clients.
  */
 class Client implements AutoCloseable {
+    /**
+     * Wie viele Bytes bei {@link ProtocolCommands#GETRANGE} höchstens je Zyklus gesendet werden.
+     */
+    private static final int RANGE_BATCH_SIZE = 256 << 10;
+    /**
+     * Ab so vielen ausstehenden Bytes werden keine weiteren Aufgaben ausgeführt, bis gesendet wurde.
+     */
+    private static final int OUTPUT_LIMIT = RANGE_BATCH_SIZE;
+    /**
+     * Wie lange auf den Rest einer begonnenen Anfrage gewartet wird, bevor die Verbindung gekappt wird, in Millisekunden.
+     */
+    static final long READ_TIMEOUT = 5000;
     /**
      * Die Blockchain.
      */
     private final Blockchain chain;
     /**
-     * Der Socket zum Client.
+     * Der Kanal zum Client.
      */
-    private final Socket s;
+    private final SocketChannel channel;
     /**
-     * Methode die mit {@code this} aufgerufen wird, sollte die Verbindung geschlossen werden.
+     * Verifiziert und speichert neue Blöcke, ohne den Thread des Selectors aufzuhalten.
      */
-    private final Consumer<Client> onExit;
+    private final Executor submissions;
     /**
-     * Der InputStream vom Socket.
+     * Übergibt Aufgaben an den Thread des Selectors.
      */
-    private DataInputStream in;
+    private final Executor loop;
     /**
-     * Der OutputStream vom Socket.
+     * Die empfangenen Daten.
      */
-    private DataOutputStream out;
+    private final InputBuffer input = new InputBuffer();
+    /**
+     * Die ausstehenden Daten.
+     */
+    private final OutputBuffer output = new OutputBuffer();
+    /**
+     * Liest aus {@link #input}.
+     */
+    private final DataInputStream in = new DataInputStream(input);
+    /**
+     * Schreibt die Antworten in {@link #output}.
+     */
+    private final ResponseWriter responses = new ResponseWriter(new DataOutputStream(output), output);
     /**
      * Die nächste auszuführende Aufgabe.
      */
     private Runnable nextTask = null;
     /**
-     * Anzahl der Male, die der Client keine erwarteten Daten gesendet hat.
-     * Sollte dieser Counter zu hoch werden, wird die Verbindung gekappt.
+     * Ob die letzte Aufgabe auf weitere Daten vom Client wartet.
+     */
+    private boolean waitingForInput = false;
+    /**
+     * Ob auf das Ergebnis der Prüfung eines neuen Blocks gewartet wird.
+     */
+    private boolean waitingForChain = false;
+    /**
+     * Der Schlüssel des Kanals.
+     */
+    private SelectionKey key;
+    /**
+     * Ob die Verbindung geschlossen wird, sobald alle ausstehenden Daten gesendet wurden.
+     */
+    private boolean closing = false;
+    /**
+     * Der Zeitpunkt, zu dem zuletzt Daten empfangen wurden ({@link System#currentTimeMillis()}).
      */
-    private int requeueCounter = 0;
+    private long lastInput = System.currentTimeMillis();
     /**
      * Anzahl der gelesenen Bytes.
      */
@@ -62,17 +109,16 @@ class Client implements AutoCloseable {
     /**
      * Erzeugt ein neues Objekt.
      *
-     * @param s      Der Socket zum Client.
-     * @param chain  Die Blockchain.
-     * @param onExit Die Methode, die beim Schließen aufgerufen werden soll.
-     * @throws IOException sollte es Probleme beim Verbindungsaufbau geben.
+     * @param channel     Der nicht blockierende Kanal zum Client.
+     * @param chain       Die Blockchain.
+     * @param submissions Verifiziert und speichert neue Blöcke.
+     * @param loop        Übergibt Aufgaben an den Thread des Selectors.
      */
-    Client(Socket s, Blockchain chain, Consumer<Client> onExit) throws IOException {
-        this.s = s;
+    Client(SocketChannel channel, Blockchain chain, Executor submissions, Executor loop) {
+        this.channel = channel;
         this.chain = chain;
-        this.onExit = onExit;
-        out = new DataOutputStream(s.getOutputStream());
-        in = new DataInputStream(s.getInputStream());
+        this.submissions = submissions;
+        this.loop = loop;
     }
 
     /**
@@ -82,20 +128,87 @@ class Client implements AutoCloseable {
      */
     private void handleException(Throwable e) {
         System.err.println("Fehler mit Client: " + e.getLocalizedMessage());
-        secureClose();
+        closeNow();
     }
 
     /**
-     * Regelmäßig aufgerufene Methode, die neue Befehle abfragt bzw. die Aufgaben delegiert
+     * Wird aufgerufen, sobald der Kanal lesbar oder schreibbar ist. Liest die empfangenen Daten und bearbeitet danach
+     * die Anfragen (siehe {@link #serve()}).
+     *
+     * @param key Der Schlüssel des Kanals.
      */
-    public void handle() {
-        if (s.isClosed() || !s.isConnected())
-            secureClose();
+    void handle(SelectionKey key) {
+        this.key = key;
+        try {
+            if (key.isReadable()) {
+                int read = input.readFrom(channel);
+                if (read == -1) {
+                    closeNow();
+                    return;
+                }
+                if (read > 0) lastInput = System.currentTimeMillis();
+            }
+            serve();
+        } catch (IOException e) {
+            handleException(e);
+        }
+    }
+
+    /**
+     * Führt Aufgaben aus, bis weitere Daten benötigt werden oder zu viel aussteht, sendet so viel wie möglich und meldet
+     * danach, worauf gewartet wird.
+     *
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    private void serve() throws IOException {
+        while (true) {
+            process();
+            if (!channel.isOpen()) return;
+            boolean sent = output.writeTo(channel);
+            if (sent && closing) {
+                closeNow();
+                return;
+            }
+            if (!sent || waitingForInput || waitingForChain || closing) break;
+        }
+        int ops = 0;
+        if (!closing && !input.isFull()) ops |= SelectionKey.OP_READ;
+        if (!output.isEmpty()) ops |= SelectionKey.OP_WRITE;
+        key.interestOps(ops);
+    }
+
+    /**
+     * Kappt die Verbindung, sollte der Client eine begonnene Anfrage zu lange nicht vervollständigen.
+     *
+     * @param now Die aktuelle Zeit ({@link System#currentTimeMillis()}).
+     */
+    void checkTimeout(long now) {
+        if (nextTask != null && waitingForInput && now - lastInput > READ_TIMEOUT)
+            closeNow();
+    }
+
+    /**
+     * Führt Aufgaben aus, bis auf weitere Daten gewartet werden muss oder mehr als {@link #OUTPUT_LIMIT} Bytes ausstehen.
+     */
+    private void process() {
+        while (channel.isOpen() && !closing && !waitingForChain && output.size() < OUTPUT_LIMIT) {
+            waitingForInput = false;
+            step();
+            if (waitingForInput) return;
+        }
+    }
+
+    /**
+     * Fragt einen neuen Befehl ab bzw. führt die nächste Aufgabe aus.
+     */
+    private void step() {
         if (nextTask != null) {
             nextTask.run();
         } else {
             try {
-                if (in.available() != 0) {
+                if (in.available() == 0) {
+                    waitingForInput = true;
+                } else {
                     byte type = in.readByte();
                     switch (type) {
                         case ProtocolCommands.LASTHASH:
@@ -105,7 +218,6 @@ class Client implements AutoCloseable {
                             nextTask = () -> sendErrorMsg("Wrong usage of the Error command!");
                             break;
                         case ProtocolCommands.BLOCK:
-                            requeueCounter = 0;
                             readCount = 0;
                             readData = new byte[4];
                             nextTask = this::receiveNewBlock;
@@ -123,17 +235,44 @@ class Client implements AutoCloseable {
                             nextTask = () -> sendErrorMsg("Wrong usage of the Reject command!");
                             break;
                         case ProtocolCommands.GETBLOCK:
-                            requeueCounter = 0;
                             readCount = 0;
                             readData = new byte[32];
                             nextTask = this::receiveBlockHash;
                             break;
+                        case ProtocolCommands.PGETBLOCK:
+                            readCount = 0;
+                            readData = new byte[1];
+                            nextTask = this::receivePrefixLen;
+                            break;
                         case ProtocolCommands.SGETBLOCK:
-                            requeueCounter = 0;
                             readCount = 0;
                             readData = new byte[4];
                             nextTask = this::receiveStudentLen;
                             break;
+                        case ProtocolCommands.FGETBLOCK:
+                            readCount = 0;
+                            readData = new byte[32];
+                            nextTask = this::receiveFingerprint;
+                            break;
+                        case ProtocolCommands.STATS:
+                            nextTask = this::sendStatistics;
+                            break;
+                        case ProtocolCommands.GETRANGE:
+                            readCount = 0;
+                            readData = new byte[8];
+                            nextTask = this::receiveRange;
+                            break;
+                        case ProtocolCommands.GETPROOF:
+                            readCount = 0;
+                            readData = new byte[32];
+                            nextTask = this::receiveProofHash;
+                            break;
+                        case ProtocolCommands.RGETBLOCK:
+                        case ProtocolCommands.RGETHASH:
+                            readCount = 0;
+                            readData = new byte[8];
+                            nextTask = () -> receiveSchoolRange(type == ProtocolCommands.RGETHASH);
+                            break;
                         default:
                             nextTask = () -> sendErrorMsg("Unknown command!");
                     }
@@ -150,7 +289,6 @@ class Client implements AutoCloseable {
     private void receiveStudentLen() {
         readBytes(() -> {
             readCount = 0;
-            requeueCounter = 0;
             try {
                 readData = new byte[ByteUtils.toInt(readData)];
             } catch (OutOfMemoryError | Exception e) {
@@ -166,23 +304,85 @@ class Client implements AutoCloseable {
      */
     private void receiveStudent() {
         //ReadBytes and then set nextTask to the code
+        readBytes(() -> nextTask = () -> sendStudentBlock(readData));
+    }
+
+    /**
+     * Empfängt den Fingerabdruck des Schülers und sorgt für das Senden der Blöcke.
+     */
+    private void receiveFingerprint() {
+        readBytes(() -> nextTask = () -> sendFingerprintBlocks(readData));
+    }
+
+    /**
+     * Sendet alle Blöcke eines Schülers anhand seines Fingerabdrucks.
+     * Schließt der Bloom-Filter der Blockchain den Schüler aus, wird sofort geantwortet, ohne den Index zu durchsuchen.
+     *
+     * @param fingerprint Der Sha-256 Hash des codierten Schlüssels des Schülers.
+     */
+    private void sendFingerprintBlocks(byte[] fingerprint) {
+        if (!chain.mightContainStudent(fingerprint))
+            sendAllBlocks(Collections.emptyList());
+        else
+            sendAllBlocks(chain.getStudentBlocks(fingerprint));
+    }
+
+    /**
+     * Empfängt Schulnummer und den Bereich der Jahre und sorgt für das Senden der passenden Blöcke bzw. Hashes.
+     * Aufbau der Anfrage: {@code [int Schulnummer][short erstes Jahr][short letztes Jahr]}.
+     *
+     * @param hashesOnly Ob statt der Blöcke nur deren Hashes gesendet werden sollen.
+     */
+    private void receiveSchoolRange(boolean hashesOnly) {
         readBytes(() -> nextTask = () -> {
-            try {
-                sendStudentBlock(CryptoUtils.toPublicRSAKey(readData));
-            } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-                nextTask = () -> sendErrorMsg("Illegal key!");
-                secureClose();
-            }
+            ByteBuffer request = ByteBuffer.wrap(readData);
+            int schoolNumber = request.getInt();
+            short fromYear = request.getShort();
+            short toYear = request.getShort();
+            if (hashesOnly)
+                sendAllHashes(chain.getSchoolHashes(schoolNumber, fromYear, toYear));
+            else
+                sendAllBlocks(chain.getSchoolBlocks(schoolNumber, fromYear, toYear));
         });
     }
 
+    /**
+     * Sendet die spezifizierten Hashes, jeweils mit vorangestelltem {@link ProtocolCommands#HASH}, und beendet die
+     * Übertragung danach.
+     *
+     * @param hashes Die Hashes, die gesendet werden sollen.
+     */
+    private void sendAllHashes(List<byte[]> hashes) {
+        try {
+            for (byte[] hash : hashes) {
+                responses.hash(hash);
+            }
+            responses.end();
+            secureClose();
+        } catch (IOException e) {
+            handleException(e);
+        }
+        nextTask = null;
+    }
+
     /**
      * Sendet alle Blöcke eines Schülers.
+     * Schließt der Bloom-Filter der Blockchain den Schüler aus, wird sofort geantwortet, ohne den Schlüssel zu parsen.
      *
-     * @param student Der Schüler.
+     * @param key Der codierte Schlüssel des Schülers.
      */
-    private void sendStudentBlock(PublicKey student) {
-        sendAllBlocks(chain.getStudentBlocks(student));
+    private void sendStudentBlock(byte[] key) {
+        try {
+            if (!chain.mightContainStudent(CryptoUtils.calculateSha256(key))) {
+                sendAllBlocks(Collections.emptyList());
+                return;
+            }
+            PublicKey student = CryptoUtils.toPublicRSAKey(key);
+            sendAllBlocks(chain.getStudentBlocks(student));
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            nextTask = () -> sendErrorMsg("Illegal key!");
+            secureClose();
+        }
     }
 
     /**
@@ -193,7 +393,7 @@ class Client implements AutoCloseable {
     private void sendAllBlocks(List<Block> blocks) {
         if (blocks.size() == 0) {
             try {
-                out.write(ProtocolCommands.CLOSE);
+                responses.end();
                 secureClose();
             } catch (IOException e) {
                 handleException(e);
@@ -202,15 +402,12 @@ class Client implements AutoCloseable {
             return;
         }
         Block current = blocks.get(0);
-        byte[] currentData = current.getData();
         try {
-            out.write(ProtocolCommands.BLOCK);
-            out.write(ByteUtils.toBytes(currentData.length));
-            out.write(currentData);
+            responses.block(current);
             if (blocks.size() > 1)
                 nextTask = () -> sendAllBlocks(blocks.subList(1, blocks.size()));
             else {
-                out.write(ProtocolCommands.CLOSE);
+                responses.end();
                 secureClose();
             }
         } catch (IOException e) {
@@ -237,11 +434,123 @@ class Client implements AutoCloseable {
             nextTask = () -> sendErrorMsg("Block does not exist!");
             return;
         }
-        byte[] blockData = b.getData();
         try {
-            out.write(ProtocolCommands.BLOCK);
-            out.write(ByteUtils.toBytes(blockData.length));
-            out.write(blockData);
+            responses.block(b);
+        } catch (IOException e) {
+            handleException(e);
+        }
+        nextTask = null;
+    }
+
+    /**
+     * Empfängt die Länge des Präfixes und sorgt für das Abfragen dieses.
+     * Aufbau der Anfrage: {@code [byte Länge][Präfix]}, der Präfix ist höchstens 32 Bytes lang.
+     */
+    private void receivePrefixLen() {
+        readBytes(() -> {
+            int length = readData[0] & 0xFF;
+            if (length == 0 || length > 32) {
+                nextTask = () -> sendErrorMsg("Illegal hash prefix!");
+                return;
+            }
+            readCount = 0;
+            readData = new byte[length];
+            nextTask = this::receivePrefix;
+        });
+    }
+
+    /**
+     * Empfängt den Präfix des Blockhashes und sorgt für das Senden des Blockes.
+     */
+    private void receivePrefix() {
+        readBytes(() -> nextTask = () -> sendPrefixBlock(readData));
+    }
+
+    /**
+     * Sendet den Block, dessen Hash mit dem Präfix beginnt, sofern genau ein solcher Block existiert.
+     *
+     * @param prefix Der Präfix des gewünschten Blockhashes.
+     */
+    private void sendPrefixBlock(byte[] prefix) {
+        List<Block> blocks = chain.getBlocksByPrefix(prefix);
+        if (blocks.size() != 1) {
+            String msg = blocks.isEmpty() ? "Block does not exist!" : "Hash prefix is ambiguous!";
+            nextTask = () -> sendErrorMsg(msg);
+            return;
+        }
+        try {
+            responses.block(blocks.get(0));
+        } catch (IOException e) {
+            handleException(e);
+        }
+        nextTask = null;
+    }
+
+    /**
+     * Empfängt die Höhe des ersten Blockes und die Anzahl der Blöcke, die gesendet werden sollen.
+     * Aufbau der Anfrage: {@code [int erste Höhe][int Anzahl]}.
+     */
+    private void receiveRange() {
+        readBytes(() -> nextTask = () -> {
+            ByteBuffer request = ByteBuffer.wrap(readData);
+            int from = request.getInt();
+            int count = request.getInt();
+            if (from < 0 || count <= 0 || from >= chain.getHeight()) {
+                sendErrorMsg("Height out of range!");
+                return;
+            }
+            sendRange(from, (int) Math.min((long) from + count, chain.getHeight()));
+        });
+    }
+
+    /**
+     * Sendet aufeinanderfolgende Blöcke. Je Zyklus werden höchstens {@link #RANGE_BATCH_SIZE} Bytes gesendet und
+     * jeder Block erst unmittelbar vor dem Senden gelesen, sodass auch große Bereiche nur wenig Speicher belegen.
+     * Nach dem letzten Block wird die Übertragung beendet.
+     *
+     * @param from Die Höhe des nächsten Blockes.
+     * @param to   Die Höhe hinter dem letzten Block.
+     */
+    private void sendRange(int from, int to) {
+        try {
+            int sent = 0;
+            while (from < to && sent < RANGE_BATCH_SIZE) {
+                Block b = chain.getBlockAtHeight(from++);
+                responses.block(b);
+                sent += b.getLength();
+            }
+            if (from < to) {
+                int next = from;
+                nextTask = () -> sendRange(next, to);
+                return;
+            }
+            responses.end();
+            secureClose();
+        } catch (IOException e) {
+            handleException(e);
+        }
+    }
+
+    /**
+     * Empfängt den Hash des Blockes, dessen Inklusionsbeweis gesendet werden soll.
+     */
+    private void receiveProofHash() {
+        readBytes(() -> nextTask = () -> sendProof(readData));
+    }
+
+    /**
+     * Sendet den Inklusionsbeweis für einen Block.
+     *
+     * @param hash Der Hash des Blockes.
+     */
+    private void sendProof(byte[] hash) {
+        InclusionProof proof = chain.getProof(hash);
+        if (proof == null) {
+            nextTask = () -> sendErrorMsg("Block does not exist!");
+            return;
+        }
+        try {
+            responses.proof(proof);
         } catch (IOException e) {
             handleException(e);
         }
@@ -254,7 +563,6 @@ class Client implements AutoCloseable {
     private void receiveNewBlock() {
         readBytes(() -> {
             readCount = 0;
-            requeueCounter = 0;
             try {
                 readData = new byte[ByteUtils.toInt(readData)];
             } catch (OutOfMemoryError | Exception e) {
@@ -270,62 +578,129 @@ class Client implements AutoCloseable {
      */
     private void receiveBlock() {
         readBytes(() -> {
-            try {
-                if (chain.verifyAndAdd(readData)) {
-                    out.write(ProtocolCommands.OK);
-                } else {
-                    out.write(ProtocolCommands.REJECT);
-                }
+            if (chain.hasWriteFailed()) {
                 nextTask = null;
-            } catch (IOException e) {
-                handleException(e);
+                sendErrorMsg("Chain could not be written, no blocks are accepted!");
+                return;
+            }
+            if (!chain.isVerified()) {
+                nextTask = null;
+                if (chain.getInvalidHeight() != -1)
+                    sendErrorMsg("Chain is invalid at height " + chain.getInvalidHeight() + ", no blocks are accepted!");
+                else
+                    sendErrorMsg("Chain is still being verified (" + chain.getVerifiedHeight() + " of "
+                            + chain.getHeight() + " blocks), try again later!");
+                return;
             }
+            byte[] block = readData;
+            nextTask = null;
+            waitingForChain = true;
+            submissions.execute(() -> {
+                boolean accepted;
+                try {
+                    accepted = chain.verifyAndAdd(block);
+                } catch (RuntimeException e) {
+                    System.err.println("Fehler beim Hinzufügen eines Blocks: " + e);
+                    accepted = false;
+                }
+                boolean result = accepted;
+                loop.execute(() -> sendResult(result));
+            });
         });
     }
 
     /**
-     * Schließt die Verbindung. Dabei werden sämtliche Exceptions einfach ignoriert.
+     * Sendet das Ergebnis der Prüfung eines neuen Blocks und setzt die Bearbeitung der Anfragen fort.
+     * Wird im Thread des Selectors ausgeführt.
+     *
+     * @param accepted Ob der Block hinzugefügt wurde.
+     */
+    private void sendResult(boolean accepted) {
+        waitingForChain = false;
+        if (!channel.isOpen()) return;
+        try {
+            responses.result(accepted);
+            serve();
+        } catch (IOException e) {
+            handleException(e);
+        }
+    }
+
+    /**
+     * Schließt die Verbindung, nachdem alle ausstehenden Daten gesendet wurden.
      */
     private void secureClose() {
+        close();
+    }
+
+    /**
+     * Sendet die Statistik je Schule und Jahr.
+     * Aufbau: {@code [STATS][int Anzahl Blöcke][long Größe][int Anzahl Einträge]} gefolgt von Einträgen
+     * {@code [int Schulnummer][short Jahr][int Anzahl Blöcke][long Größe][int Höhe des letzten Blockes]}.
+     */
+    private void sendStatistics() {
         try {
-            this.close();
-        } catch (Exception ignored) {
+            responses.statistics(chain.getStatistics());
+        } catch (IOException e) {
+            secureClose();
         }
+        nextTask = null;
     }
 
     /**
-     * Sendet den Hash des letzten Blockes in der Chain.
+     * Sendet den Hash des letzten Blockes in der Chain und die Anzahl der Blöcke.
+     * Aufbau: {@code [HASH][32 Byte Hash][int Anzahl Blöcke]}.
      */
     private void sendLastHash() {
+        byte[] hash;
+        int height;
+        synchronized (chain) {
+            hash = chain.getLastHash();
+            height = chain.getHeight();
+        }
         try {
-            out.write(ProtocolCommands.HASH);
-            out.write(chain.getLastHash());
+            responses.lastHash(hash, height);
         } catch (IOException e) {
             secureClose();
         }
         nextTask = null;
     }
 
+    /**
+     * Schließt die Verbindung, sobald alle ausstehenden Daten gesendet wurden.
+     */
     @Override
-    public void close() throws Exception {
+    public void close() {
+        nextTask = null;
+        closing = true;
+    }
+
+    /**
+     * Schließt die Verbindung sofort, ohne ausstehende Daten zu senden.
+     */
+    private void closeNow() {
         nextTask = null;
-        in.close();
-        out.close();
-        s.close();
-        onExit.accept(this);
+        closing = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
     }
 
     /**
      * Liest eine gewisse Anzahl an Bytes ein (soviele wie in {@code readData} passen).
+     * Sind gerade keine Daten verfügbar, wird es erneut versucht, sobald wieder Daten empfangen wurden.
      *
      * @param andThen Die Aufgabe, die ausgeführt wird, wenn die Bytes gelesen wurden.
      */
     private void readBytes(Runnable andThen) {
-        if (requeueCounter == 10)
-            secureClose();
+        if (readCount == readData.length) {
+            andThen.run();
+            return;
+        }
         try {
             if (in.available() == 0) {
-                requeueCounter++;
+                waitingForInput = true;
                 nextTask = () -> readBytes(andThen);
                 return;
             }
@@ -350,11 +725,8 @@ class Client implements AutoCloseable {
      * @param msg Die gewünschte Fehlermeldung.
      */
     private void sendErrorMsg(String msg) {
-        byte[] data = msg.getBytes(StandardCharsets.UTF_8);
         try {
-            out.write(ProtocolCommands.ERROR);
-            out.write(ByteUtils.toBytes(data.length));
-            out.write(data);
+            responses.error(msg);
             secureClose();
         } catch (IOException e) {
             handleException(e);
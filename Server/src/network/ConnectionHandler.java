@@ -3,99 +3,187 @@ package network;
 import data.Blockchain;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.ArrayList;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Verwaltet sämtliche Verbindungen.
+ * <p>
+ * Alle Verbindungen werden in einem einzigen Thread über einen {@code Selector} bedient. Ein Client wird nur dann
+ * bearbeitet, wenn sein Kanal Daten bereithält oder wieder Daten annimmt, sodass Anfragen ohne Verzögerung beantwortet
+ * werden und ruhende Verbindungen keine Rechenzeit kosten.
+ * <p>
+ * Neue Blöcke werden nicht in diesem Thread, sondern von {@link #SUBMISSION_THREADS} Hilfsthreads verifiziert und
+ * gespeichert, da die Prüfung der Signatur und das Warten auf die Festplatte alle anderen Verbindungen aufhalten würden.
+ * Das Ergebnis wird danach wieder im Thread des Selectors an den Client gesendet. Da so mehrere Blöcke gleichzeitig auf
+ * die Festplatte warten können, werden sie gemeinsam geschrieben (Group Commit).
  */
 public class ConnectionHandler {
     /**
-     * Alle Clients.
+     * Wie oft begonnene Anfragen auf eine Zeitüberschreitung überprüft werden, in Millisekunden.
      */
-    private final ArrayList<Client> clients;
-
+    private static final long TIMEOUT_CHECK_INTERVAL = 1000;
     /**
-     * Erzeugt ein neues Objekt, das auf einem gewissen Port und mit einer gewissen Blockchain arbeitet.
-     *
-     * @param port  Der Port, der verwendet werden soll.
-     * @param chain Die Blockchain.
+     * Wie viele Threads neue Blöcke verifizieren und speichern.
      */
-    public ConnectionHandler(int port, Blockchain chain) {
-        clients = new ArrayList<>();
-        Thread acceptor = new Thread(() -> acceptClients(port, chain));
-        acceptor.setDaemon(true);
-        acceptor.start();
-        ScheduledExecutorService listener = Executors.newSingleThreadScheduledExecutor();
-        listener.scheduleWithFixedDelay(this::traverseAllClients, 0, 500, TimeUnit.MILLISECONDS);
-    }
-
+    private static final int SUBMISSION_THREADS = 4;
     /**
-     * Ruft bei für jeden Client seine {@code handle} Methode auf.
+     * Der Selector, über den alle Kanäle bedient werden.
      */
-    private void traverseAllClients() {
-        //Würde eine forEach Schleife verwendet,
-        //könnte das Programm durch das Schließen einer Verbindung zum Absturz gebracht werden.
-        //noinspection ForLoopReplaceableByForEach
-        for (int i = 0; i < clients.size(); i++) {
-            clients.get(i).handle();
-        }
-    }
+    private final Selector selector;
+    /**
+     * Der Kanal, auf dem neue Verbindungen angenommen werden.
+     */
+    private final ServerSocketChannel server;
+    /**
+     * Die Blockchain.
+     */
+    private final Blockchain chain;
+    /**
+     * Verifiziert und speichert neue Blöcke.
+     */
+    private final ExecutorService submissions = Executors.newFixedThreadPool(SUBMISSION_THREADS, task -> {
+        Thread t = new Thread(task, "block-submission");
+        t.setDaemon(true);
+        return t;
+    });
+    /**
+     * Aufgaben, die von anderen Threads an den Thread des Selectors übergeben wurden.
+     */
+    private final Queue<Runnable> loopTasks = new ConcurrentLinkedQueue<>();
 
     /**
-     * Versucht dauerhaft neue Verbindungen anzunehmen.
+     * Erzeugt ein neues Objekt, das auf einem gewissen Port und mit einer gewissen Blockchain arbeitet.
      *
-     * @param port  Der Port, auf dem gesucht wird.
-     * @param chain Die Blockchain, mit der die neuen Clients arbeiten sollen.
+     * @param port  Der Port, der verwendet werden soll.
+     * @param chain Die Blockchain.
      */
-    private void acceptClients(int port, Blockchain chain) {
-        ServerSocket soc = null;
+    public ConnectionHandler(int port, Blockchain chain) {
+        this.chain = chain;
+        Selector selector = null;
+        ServerSocketChannel server = null;
         try {
-            soc = new ServerSocket(port);
+            selector = Selector.open();
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
         } catch (IOException e) {
             System.err.println("Fehler beim Erstellen des Servers: " + e.getLocalizedMessage());
             System.exit(1);
         }
+        this.selector = selector;
+        this.server = server;
+        new Thread(this::run, "connection-loop").start();
+    }
+
+    /**
+     * Wartet dauerhaft auf bereite Kanäle und bearbeitet diese.
+     */
+    private void run() {
+        long lastTimeoutCheck = System.currentTimeMillis();
         while (!Thread.interrupted()) {
             try {
-                Socket s = soc.accept();
-                s.setSoTimeout(500);
-                addClient(new Client(s, chain, this::removeClient));
+                selector.select(TIMEOUT_CHECK_INTERVAL);
             } catch (IOException e) {
-                System.err.println("Fehler beim Erstellen einer Clientverbindung: " + e.getLocalizedMessage());
+                System.err.println("Fehler beim Warten auf Verbindungen: " + e.getLocalizedMessage());
+                break;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) continue;
+                if (key.isAcceptable()) {
+                    acceptClients();
+                    continue;
+                }
+                try {
+                    ((Client) key.attachment()).handle(key);
+                } catch (RuntimeException e) {
+                    dropClient(key, e);
+                }
+            }
+            Runnable task;
+            while ((task = loopTasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Fehler mit Client: " + e);
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastTimeoutCheck >= TIMEOUT_CHECK_INTERVAL) {
+                lastTimeoutCheck = now;
+                for (SelectionKey key : selector.keys()) {
+                    if (!key.isValid() || !(key.attachment() instanceof Client)) continue;
+                    try {
+                        ((Client) key.attachment()).checkTimeout(now);
+                    } catch (RuntimeException e) {
+                        dropClient(key, e);
+                    }
+                }
             }
         }
+        submissions.shutdown();
         try {
-            soc.close();
+            server.close();
+            selector.close();
         } catch (IOException e) {
             System.err.println("Fehler beim Schließen des Servers: " + e.getLocalizedMessage());
         }
     }
 
     /**
-     * Fügt einen Client in die Liste aller Clients hinzu.
-     *
-     * @param client Der neue Client.
+     * Nimmt alle wartenden Verbindungen an.
      */
-    private void addClient(Client client) {
-        synchronized (clients) {
-            clients.add(client);
+    private void acceptClients() {
+        while (true) {
+            try {
+                SocketChannel channel = server.accept();
+                if (channel == null) return;
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.register(selector, SelectionKey.OP_READ, new Client(channel, chain, submissions, this::runInLoop));
+            } catch (IOException e) {
+                System.err.println("Fehler beim Erstellen einer Clientverbindung: " + e.getLocalizedMessage());
+                return;
+            }
         }
     }
 
     /**
-     * Entfernt einen Client aus der Liste aller Clients.
+     * Führt eine Aufgabe im Thread des Selectors aus, sobald dieser das nächste Mal aufwacht.
+     *
+     * @param task Die Aufgabe.
+     */
+    private void runInLoop(Runnable task) {
+        loopTasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Schließt die Verbindung zu einem Client, bei dessen Bearbeitung ein unerwarteter Fehler aufgetreten ist.
+     * Die anderen Verbindungen bleiben davon unberührt.
      *
-     * @param client Der zu entfernende Client.
+     * @param key Der Schlüssel des Kanals.
+     * @param e   Der entstandene Fehler.
      */
-    @SuppressWarnings("WeakerAccess")
-    public void removeClient(Client client) {
-        synchronized (clients) {
-            clients.remove(client);
+    private void dropClient(SelectionKey key, RuntimeException e) {
+        System.err.println("Fehler mit Client: " + e);
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
         }
     }
 }
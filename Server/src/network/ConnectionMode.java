@@ -0,0 +1,17 @@
+package network;
+
+/**
+ * Legt fest, wie die Verbindungen der Clients bedient werden.
+ */
+public enum ConnectionMode {
+    /**
+     * Alle Verbindungen werden nicht blockierend in einem einzigen Thread über einen {@code Selector} bedient
+     * ({@link ConnectionHandler}).
+     */
+    SELECTOR,
+    /**
+     * Jede Verbindung wird in einem eigenen virtuellen Thread mit blockierenden Lese- und Schreibvorgängen bedient
+     * ({@link VirtualThreadHandler}).
+     */
+    VIRTUAL_THREADS
+}
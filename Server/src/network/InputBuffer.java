@@ -0,0 +1,74 @@
+package network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Empfangene, aber noch nicht verarbeitete Daten einer Verbindung in einem eigenen Direct-Buffer.
+ * <p>
+ * Gelesen wird nur, wenn der Kanal Daten bereithält; danach liefert der Stream genau die empfangenen Bytes und blockiert
+ * nie. {@link #available()} gibt an, wie viele Bytes ohne erneutes Lesen vom Kanal verfügbar sind.
+ */
+class InputBuffer extends InputStream {
+    /**
+     * Die Größe des Buffers.
+     */
+    private static final int SIZE = 4096;
+    /**
+     * Die empfangenen Daten zwischen Position und Limit.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(SIZE);
+
+    /**
+     * Erzeugt einen leeren Buffer.
+     */
+    InputBuffer() {
+        buffer.limit(0);
+    }
+
+    /**
+     * Liest so viele Bytes vom Kanal, wie gerade verfügbar sind und in den Buffer passen.
+     *
+     * @param channel Der Kanal.
+     * @return Die Anzahl der gelesenen Bytes oder {@code -1}, sollte der Kanal geschlossen worden sein.
+     * @throws IOException sollte nicht gelesen werden können.
+     */
+    int readFrom(SocketChannel channel) throws IOException {
+        buffer.compact();
+        try {
+            return channel.read(buffer);
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Gibt zurück, ob der Buffer voll ist und erst verarbeitet werden muss, bevor weiter gelesen werden kann.
+     *
+     * @return Gibt {@code true} zurück, wenn kein Platz mehr frei ist.
+     */
+    boolean isFull() {
+        return buffer.position() == 0 && buffer.limit() == buffer.capacity();
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) return 0;
+        if (!buffer.hasRemaining()) return -1;
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+}
@@ -0,0 +1,160 @@
+package network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Ausgehende Daten einer Verbindung, die gesendet werden, sobald der Kanal bereit ist.
+ * <p>
+ * Kleine Schreibvorgänge landen in einem Direct-Buffer der Verbindung. Blöcke werden mit {@link #write(ByteBuffer)}
+ * nicht kopiert, sondern als eigener Buffer eingereiht und direkt aus dem Heap bzw. der abgebildeten Datei gesendet.
+ * Schreiben blockiert nie; wie viel noch aussteht, gibt {@link #size()} an.
+ */
+class OutputBuffer extends OutputStream implements WritableByteChannel {
+    /**
+     * Die Größe des Direct-Buffers für kleine Schreibvorgänge, solange nicht mehr auf einmal aussteht.
+     */
+    private static final int INITIAL_SIZE = 4096;
+    /**
+     * Höchstens so viele Buffer werden mit einem Aufruf gesendet.
+     */
+    private static final int MAX_GATHER = 16;
+    /**
+     * Die eingereihten Buffer in der Reihenfolge, in der sie gesendet werden.
+     */
+    private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+    /**
+     * Der Direct-Buffer für kleine Schreibvorgänge.
+     */
+    private ByteBuffer staging = ByteBuffer.allocateDirect(INITIAL_SIZE);
+    /**
+     * Der Anfang der Daten in {@link #staging}, die noch nicht eingereiht wurden.
+     */
+    private int sealed = 0;
+    /**
+     * Die Anzahl der ausstehenden Bytes.
+     */
+    private long size = 0;
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(1);
+        staging.put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        staging.put(b, off, len);
+        size += len;
+    }
+
+    /**
+     * Reiht Daten ein, ohne sie zu kopieren. Die Position von {@code data} wird danach auf das Limit gesetzt.
+     *
+     * @param data Die Daten zwischen Position und Limit. Der Inhalt darf bis zum Senden nicht verändert werden.
+     * @return Die Anzahl der eingereihten Bytes.
+     */
+    @Override
+    public int write(ByteBuffer data) {
+        int length = data.remaining();
+        seal();
+        queue.add(data.duplicate());
+        data.position(data.limit());
+        size += length;
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    /**
+     * Sendet so viel, wie der Kanal gerade annimmt.
+     *
+     * @param channel Der Kanal.
+     * @return Gibt {@code true} zurück, wenn nichts mehr aussteht.
+     * @throws IOException sollte nicht gesendet werden können.
+     */
+    boolean writeTo(SocketChannel channel) throws IOException {
+        seal();
+        ByteBuffer[] buffers = new ByteBuffer[MAX_GATHER];
+        while (!queue.isEmpty()) {
+            int count = 0;
+            for (ByteBuffer buffer : queue) {
+                buffers[count++] = buffer;
+                if (count == MAX_GATHER) break;
+            }
+            long written = channel.write(buffers, 0, count);
+            size -= written;
+            while (!queue.isEmpty() && !queue.peek().hasRemaining()) {
+                queue.poll();
+            }
+            if (written == 0) return false;
+        }
+        reset();
+        return true;
+    }
+
+    /**
+     * Gibt zurück, wie viele Bytes noch ausstehen.
+     *
+     * @return Die Anzahl der ausstehenden Bytes.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Gibt zurück, ob nichts mehr aussteht.
+     *
+     * @return Gibt {@code true} zurück, wenn alles gesendet wurde.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Reiht die bisher in {@link #staging} geschriebenen Daten ein.
+     */
+    private void seal() {
+        if (staging.position() == sealed) return;
+        ByteBuffer part = staging.duplicate();
+        part.limit(staging.position()).position(sealed);
+        queue.add(part);
+        sealed = staging.position();
+    }
+
+    /**
+     * Stellt sicher, dass in {@link #staging} Platz für eine bestimmte Anzahl an Bytes ist. Reicht der Platz nicht, wird
+     * ein größerer Buffer angelegt; der alte bleibt bis zum Senden der eingereihten Daten erhalten.
+     *
+     * @param length Die Anzahl an Bytes.
+     */
+    private void ensureCapacity(int length) {
+        if (staging.remaining() >= length) return;
+        if (size == 0) {
+            reset();
+            if (staging.remaining() >= length) return;
+        }
+        seal();
+        staging = ByteBuffer.allocateDirect(Math.max(staging.capacity() * 2, length));
+        sealed = 0;
+    }
+
+    /**
+     * Leert {@link #staging}, nachdem alles gesendet wurde. Ein vergrößerter Buffer wird dabei wieder durch einen kleinen
+     * ersetzt, damit ruhende Verbindungen wenig Speicher belegen.
+     */
+    private void reset() {
+        if (staging.capacity() > INITIAL_SIZE) staging = ByteBuffer.allocateDirect(INITIAL_SIZE);
+        else staging.clear();
+        sealed = 0;
+    }
+}
@@ -0,0 +1,149 @@
+package network;
+
+import data.Block;
+import data.ChainStatistics;
+import data.InclusionProof;
+import utils.ProtocolCommands;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Schreibt die Antworten des Protokolls, unabhängig davon, wie die Verbindung bedient wird.
+ */
+class ResponseWriter {
+    /**
+     * Das Ziel der Antworten.
+     */
+    private final DataOutputStream out;
+    /**
+     * Das Ziel der Blockdaten. Muss in dieselbe Verbindung wie {@link #out} schreiben, ohne die Reihenfolge zu ändern.
+     */
+    private final WritableByteChannel blockChannel;
+
+    /**
+     * Erzeugt ein neues Objekt.
+     *
+     * @param out          Das Ziel der Antworten.
+     * @param blockChannel Das Ziel der Blockdaten, über das Blöcke direkt aus ihren Buffern geschrieben werden.
+     */
+    ResponseWriter(DataOutputStream out, WritableByteChannel blockChannel) {
+        this.out = out;
+        this.blockChannel = blockChannel;
+    }
+
+    /**
+     * Schreibt den Hash des letzten Blockes und die Anzahl der Blöcke.
+     * Aufbau: {@code [HASH][32 Byte Hash][int Anzahl Blöcke]}.
+     *
+     * @param hash   Der Hash des letzten Blockes.
+     * @param height Die Anzahl der Blöcke.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    void lastHash(byte[] hash, int height) throws IOException {
+        out.write(ProtocolCommands.HASH);
+        out.write(hash);
+        out.writeInt(height);
+    }
+
+    /**
+     * Schreibt einen Block samt Befehl und Länge, ohne seine Daten vorher zu kopieren.
+     *
+     * @param b Der zu sendende Block.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    void block(Block b) throws IOException {
+        out.write(ProtocolCommands.BLOCK);
+        out.writeInt(b.getLength());
+        ByteBuffer blockData = b.getBuffer();
+        while (blockData.hasRemaining()) {
+            blockChannel.write(blockData);
+        }
+    }
+
+    /**
+     * Schreibt einen Hash mit vorangestelltem {@link ProtocolCommands#HASH}.
+     *
+     * @param hash Der Hash.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    void hash(byte[] hash) throws IOException {
+        out.write(ProtocolCommands.HASH);
+        out.write(hash);
+    }
+
+    /**
+     * Beendet eine Übertragung mehrerer Blöcke bzw. Hashes.
+     *
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    void end() throws IOException {
+        out.write(ProtocolCommands.CLOSE);
+    }
+
+    /**
+     * Schreibt, ob ein neuer Block angenommen wurde.
+     *
+     * @param accepted Ob der Block angenommen wurde.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    void result(boolean accepted) throws IOException {
+        out.write(accepted ? ProtocolCommands.OK : ProtocolCommands.REJECT);
+    }
+
+    /**
+     * Schreibt eine Fehlermeldung.
+     *
+     * @param msg Die Fehlermeldung.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    void error(String msg) throws IOException {
+        byte[] data = msg.getBytes(StandardCharsets.UTF_8);
+        out.write(ProtocolCommands.ERROR);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    /**
+     * Schreibt den Inklusionsbeweis für einen Block.
+     * Aufbau: {@code [PROOF][int Position][int Anzahl Blöcke][32 Byte Wurzel][byte Länge des Pfades][32 Byte Hash...]}
+     *
+     * @param proof Der Beweis.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    void proof(InclusionProof proof) throws IOException {
+        out.write(ProtocolCommands.PROOF);
+        out.writeInt(proof.getIndex());
+        out.writeInt(proof.getSize());
+        out.write(proof.getRoot());
+        out.write(proof.getPath().size());
+        for (byte[] node : proof.getPath()) {
+            out.write(node);
+        }
+    }
+
+    /**
+     * Schreibt die Statistik je Schule und Jahr.
+     * Aufbau: {@code [STATS][int Anzahl Blöcke][long Größe][int Anzahl Einträge]} gefolgt von Einträgen
+     * {@code [int Schulnummer][short Jahr][int Anzahl Blöcke][long Größe][int Höhe des letzten Blockes]}.
+     *
+     * @param statistics Die Statistik.
+     * @throws IOException sollte es Probleme beim Senden geben.
+     */
+    void statistics(ChainStatistics statistics) throws IOException {
+        out.writeByte(ProtocolCommands.STATS);
+        out.writeInt(statistics.getHeight());
+        out.writeLong(statistics.getBytes());
+        out.writeInt(statistics.getEntries().size());
+        for (ChainStatistics.Entry entry : statistics.getEntries()) {
+            out.writeInt(entry.getSchoolNumber());
+            out.writeShort(entry.getYear());
+            out.writeInt(entry.getBlocks());
+            out.writeLong(entry.getBytes());
+            out.writeInt(entry.getLastHeight());
+        }
+    }
+}
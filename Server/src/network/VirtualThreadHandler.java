@@ -0,0 +1,64 @@
+package network;
+
+import data.Blockchain;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Verwaltet sämtliche Verbindungen, indem jede angenommene Verbindung in einem eigenen virtuellen Thread bedient wird.
+ * <p>
+ * Ein {@link BlockingClient} liest und schreibt blockierend; während er wartet, belegt sein virtueller Thread keinen
+ * Thread des Betriebssystems, sodass auch viele ruhende Verbindungen nur wenig kosten. Virtuelle Threads gibt es erst
+ * ab Java 21, das damit die Mindestversion des Servers ist.
+ */
+public class VirtualThreadHandler {
+    /**
+     * Der Socket, auf dem neue Verbindungen angenommen werden.
+     */
+    private final ServerSocket server;
+    /**
+     * Die Blockchain.
+     */
+    private final Blockchain chain;
+
+    /**
+     * Erzeugt ein neues Objekt, das auf einem gewissen Port und mit einer gewissen Blockchain arbeitet.
+     *
+     * @param port  Der Port, der verwendet werden soll.
+     * @param chain Die Blockchain.
+     */
+    public VirtualThreadHandler(int port, Blockchain chain) {
+        this.chain = chain;
+        ServerSocket server = null;
+        try {
+            server = new ServerSocket(port);
+        } catch (IOException e) {
+            System.err.println("Fehler beim Erstellen des Servers: " + e.getLocalizedMessage());
+            System.exit(1);
+        }
+        this.server = server;
+        new Thread(this::acceptClients, "connection-acceptor").start();
+    }
+
+    /**
+     * Nimmt dauerhaft neue Verbindungen an und startet für jede einen virtuellen Thread.
+     */
+    private void acceptClients() {
+        while (!Thread.interrupted()) {
+            try {
+                Socket s = server.accept();
+                s.setTcpNoDelay(true);
+                Thread.ofVirtual().start(new BlockingClient(s, chain));
+            } catch (IOException e) {
+                System.err.println("Fehler beim Erstellen einer Clientverbindung: " + e.getLocalizedMessage());
+            }
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schließen des Servers: " + e.getLocalizedMessage());
+        }
+    }
+}
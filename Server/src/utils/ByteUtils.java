@@ -54,4 +54,20 @@ public class ByteUtils {
         return bufShort.getShort();
     }
 
+    /**
+     * Liest acht Bytes ab einer Position als {@code long} (Big Endian) aus.
+     * Im Gegensatz zu den anderen Methoden wird dabei kein geteilter Buffer verwendet.
+     *
+     * @param in     Das Bytearray.
+     * @param offset Die Position des ersten Bytes.
+     * @return Der daraus resultierende {@code long}.
+     */
+    public static long toLong(byte[] in, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = (result << 8) | (in[i] & 0xFF);
+        }
+        return result;
+    }
+
 }
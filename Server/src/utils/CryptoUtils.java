@@ -1,13 +1,32 @@
 package utils;
 
+import java.nio.ByteBuffer;
 import java.security.*;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Enthält Funktionalität für die benötigte Kryptographie.
  */
 public class CryptoUtils {
+    /**
+     * Die maximale Anzahl an Schlüsseln im Pool.
+     */
+    private static final int KEY_POOL_SIZE = 4096;
+    /**
+     * Pool der zuletzt umgewandelten öffentlichen Schlüssel, nach ihrer Codierung.
+     * Gleiche Schlüssel, z.B. die der Schulleitung und Klassenleitung, werden so nur einmal umgewandelt und teilen sich
+     * ein Objekt. Ist der Pool voll, wird der am längsten nicht verwendete Schlüssel entfernt.
+     */
+    private static final Map<ByteBuffer, PublicKey> keyPool = new LinkedHashMap<ByteBuffer, PublicKey>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, PublicKey> eldest) {
+            return size() > KEY_POOL_SIZE;
+        }
+    };
+
     /**
      * Wandelt ein Bytearray in einen {@code PublicKey} um, der für elliptische Kurven eingesetzt werden kann.
      *
@@ -17,8 +36,7 @@ public class CryptoUtils {
      * @see InvalidKeySpecException
      */
     public static PublicKey toPublicECKey(byte[] publicKey) throws NoSuchAlgorithmException, InvalidKeySpecException {
-        KeyFactory factory = KeyFactory.getInstance("EC");
-        return factory.generatePublic(new X509EncodedKeySpec(publicKey));
+        return internPublicKey("EC", publicKey);
     }
 
     /**
@@ -30,8 +48,33 @@ public class CryptoUtils {
      * @see InvalidKeySpecException
      */
     public static PublicKey toPublicRSAKey(byte[] publicKey) throws NoSuchAlgorithmException, InvalidKeySpecException {
-        KeyFactory factory = KeyFactory.getInstance("RSA");
-        return factory.generatePublic(new X509EncodedKeySpec(publicKey));
+        return internPublicKey("RSA", publicKey);
+    }
+
+    /**
+     * Wandelt ein Bytearray in einen öffentlichen Key um und verwendet dabei ein bereits umgewandeltes Objekt
+     * mit derselben Codierung erneut. Gleiche Keys sind so dasselbe Objekt und können per Referenz verglichen werden.
+     *
+     * @param algorithm Der Algorithmus des Keys, z.B. {@code "EC"} oder {@code "RSA"}.
+     * @param publicKey Der Key als Bytearray.
+     * @return Der umgewandelte Key.
+     * @see NoSuchAlgorithmException
+     * @see InvalidKeySpecException
+     */
+    private static PublicKey internPublicKey(String algorithm, byte[] publicKey) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        ByteBuffer encoded = ByteBuffer.wrap(publicKey);
+        PublicKey key;
+        synchronized (keyPool) {
+            key = keyPool.get(encoded);
+        }
+        if (key != null && key.getAlgorithm().equals(algorithm)) return key;
+        key = KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(publicKey));
+        synchronized (keyPool) {
+            PublicKey existing = keyPool.get(encoded);
+            if (existing != null && existing.getAlgorithm().equals(algorithm)) return existing;
+            keyPool.put(ByteBuffer.wrap(publicKey.clone()), key);
+        }
+        return key;
     }
 
     /**
@@ -51,4 +94,34 @@ public class CryptoUtils {
         sig.update(message);
         return sig.verify(signature);
     }
+
+    /**
+     * Überprüft eine gegebene Signatur über den verbleibenden Inhalt eines Buffers.
+     *
+     * @param key       Der zum Überprüfen zu verwendende Key.
+     * @param message   Die signierte Nachricht. Die Position des Buffers wird dabei bis zum Limit verschoben.
+     * @param signature Die Signatur.
+     * @return Gibt {@code true} zurück, wenn die Signatur korrekt ist. Ansonsten wird {@code false} zurückgegeben.
+     * @see NoSuchAlgorithmException
+     * @see SignatureException
+     * @see InvalidKeyException
+     */
+    public static boolean verify(PublicKey key, ByteBuffer message, byte[] signature) throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        Signature sig = Signature.getInstance("SHA256WITHECDSA");
+        sig.initVerify(key);
+        sig.update(message);
+        return sig.verify(signature);
+    }
+
+    /**
+     * Berechnet den Sha-256 Hash der Nachricht.
+     *
+     * @param data Die Nachricht.
+     * @return Der Hashwert der Nachricht.
+     * @see NoSuchAlgorithmException
+     */
+    public static byte[] calculateSha256(byte[] data) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("Sha-256");
+        return md.digest(data);
+    }
 }
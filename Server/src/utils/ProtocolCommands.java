@@ -7,6 +7,14 @@ public class ProtocolCommands {
     public static final byte LASTHASH = 27;
     public static final byte GETBLOCK = 42;
     public static final byte SGETBLOCK = 48;
+    public static final byte FGETBLOCK = 49;
+    public static final byte RGETBLOCK = 51;
+    public static final byte RGETHASH = 52;
+    public static final byte GETPROOF = 53;
+    public static final byte PROOF = 54;
+    public static final byte GETRANGE = 55;
+    public static final byte STATS = 56;
+    public static final byte PGETBLOCK = 58;
     public static final byte BLOCK = 50;
     public static final byte OK = 30;
     public static final byte REJECT = 57;